@@ -5,9 +5,18 @@ import io.fabric8.kubernetes.client.KubernetesClientBuilder;
 import io.javaoperatorsdk.operator.Operator;
 import io.javaoperatorsdk.operator.api.reconciler.Reconciler;
 import com.paymenthub.PaymentHubDeploymentController;
+import com.paymenthub.utils.AdminServer;
+import com.paymenthub.utils.EnvUtil;
+import com.paymenthub.utils.FlightRecorderInterceptor;
+import com.paymenthub.utils.FlightRecorderUtil;
+import com.paymenthub.utils.ReconcileLagMetrics;
+import com.paymenthub.utils.WriteAuditInterceptor;
+import com.paymenthub.utils.WriteAuditUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Executors;
+
 /**
  * Main class to start the Payment Hub EE Operator.
  * Sets up the Kubernetes client, initializes the operator, and starts the reconciliation process.
@@ -26,8 +35,29 @@ public class OperatorMain {
         log.info("Starting the Payment Hub EE Operator!");
 
         // Initialize the Kubernetes client using the KubernetesClientBuilder
-        KubernetesClient client = new KubernetesClientBuilder().build(); // Moved outside try block
-        Operator operator = new Operator(client, o -> o.withStopOnInformerErrorDuringStartup(false));
+        KubernetesClientBuilder clientBuilder = new KubernetesClientBuilder();
+        boolean writeAudit = EnvUtil.getBoolean("WRITE_AUDIT_ENABLED", true);
+        clientBuilder.withHttpClientBuilderConsumer(builder -> {
+            if (writeAudit) {
+                // Audit every write made through the client, including the status patches issued by the framework
+                builder.addOrReplaceInterceptor("write-audit", new WriteAuditInterceptor());
+            }
+            // Emit a flight recorder event per API call; the events cost nothing while no recording runs
+            builder.addOrReplaceInterceptor("flight-recorder", new FlightRecorderInterceptor());
+        });
+        if (writeAudit) {
+            WriteAuditUtil.startSummary(EnvUtil.getLong("WRITE_AUDIT_SUMMARY_INTERVAL_SECONDS", 300));
+        }
+        KubernetesClient client = clientBuilder.build(); // Moved outside try block
+        boolean recording = FlightRecorderUtil.startRecording();
+        startAdminServer(recording);
+        // Run enough threads for every pending resource to enter the reconcile queue, which then orders them by priority
+        int reconcileThreads = EnvUtil.getInt("RECONCILE_THREADS", 64);
+        Operator operator = new Operator(client, o -> o.withStopOnInformerErrorDuringStartup(false)
+                .withConcurrentReconciliationThreads(reconcileThreads)
+                .withMinConcurrentReconciliationThreads(reconcileThreads)
+                // Sees the events of the custom resources to measure the lag until their reconciliation
+                .withMetrics(new ReconcileLagMetrics()));
         log.info("Operator instance created.");
 
         try {
@@ -50,4 +80,36 @@ public class OperatorMain {
             client.close();
         }
     }
+
+    /**
+     * Starts the admin HTTP server serving metrics, unless disabled by setting ADMIN_PORT to 0.
+     * A failure to bind the port is logged but does not stop the operator.
+     *
+     * @param recording Whether a continuous flight recording runs, to be served on {@link FlightRecorderUtil#DUMP_PATH}.
+     */
+    private static void startAdminServer(boolean recording) {
+        int adminPort = EnvUtil.getInt("ADMIN_PORT", 8080);
+        if (adminPort <= 0) {
+            log.info("Admin server disabled.");
+            return;
+        }
+        try {
+            AdminServer adminServer = new AdminServer(adminPort);
+            if (recording) {
+                if (EnvUtil.getString("JFR_DUMP_TOKEN", "").isEmpty()) {
+                    log.warn("JFR_DUMP_TOKEN is not set, {} refuses every request.", FlightRecorderUtil.DUMP_PATH);
+                }
+                // Dumps stream whole recordings, one at a time on their own thread
+                adminServer.addHandler(FlightRecorderUtil.DUMP_PATH, FlightRecorderUtil::dump,
+                        Executors.newSingleThreadExecutor(runnable -> {
+                            Thread thread = new Thread(runnable, "jfr-dump");
+                            thread.setDaemon(true);
+                            return thread;
+                        }));
+            }
+            adminServer.start();
+        } catch (Exception e) {
+            log.error("Failed to start the admin server on port {}: ", adminPort, e);
+        }
+    }
 }
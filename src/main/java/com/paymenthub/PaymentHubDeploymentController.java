@@ -11,8 +11,14 @@ import io.fabric8.kubernetes.client.dsl.Resource;
 // Operator SDK imports
 import io.javaoperatorsdk.operator.api.reconciler.Context;    
 import io.javaoperatorsdk.operator.api.reconciler.ControllerConfiguration;    
+import io.javaoperatorsdk.operator.api.reconciler.EventSourceContext;
+import io.javaoperatorsdk.operator.api.reconciler.EventSourceInitializer;
 import io.javaoperatorsdk.operator.api.reconciler.Reconciler;  
 import io.javaoperatorsdk.operator.api.reconciler.UpdateControl;  
+import io.javaoperatorsdk.operator.api.config.informer.InformerConfiguration;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.javaoperatorsdk.operator.processing.event.source.EventSource;
+import io.javaoperatorsdk.operator.processing.event.source.informer.InformerEventSource;
 
 // Logging imports
 import org.slf4j.Logger;  
@@ -29,17 +35,36 @@ import com.paymenthub.utils.RbacUtils;
 import com.paymenthub.utils.ResourceUtils;  
 import com.paymenthub.utils.NetworkingUtils;  
 import com.paymenthub.utils.OwnerReferenceUtils;  
+import com.paymenthub.utils.PrePullUtils;  
+import com.paymenthub.utils.RolloutUtils;  
+import com.paymenthub.utils.WriteAuditUtil;  
+import com.paymenthub.utils.BlueGreenUtils;  
+import com.paymenthub.utils.ConfigHashUtils;
+import com.paymenthub.utils.ConfigReloadUtils;
+import com.paymenthub.utils.ReconcileThrottle;
+import com.paymenthub.utils.ReconcileQueue;  
+import com.paymenthub.utils.ReconcileLagMetrics;
+import com.paymenthub.utils.FlightRecorderUtil;
+import com.paymenthub.utils.CanaryUtils;  
+import com.paymenthub.utils.AutoscalingUtils;  
+import com.paymenthub.utils.VerticalAutoscalingUtils;  
+import com.paymenthub.utils.MetricScaler;  
+import com.paymenthub.utils.SchedulingUtils;  
+import com.paymenthub.utils.PerformanceProfileUtils;  
+import com.paymenthub.utils.ShutdownUtils;
  
 
 // Java utils
+import java.time.Duration;  
 import java.time.Instant;  
 import java.util.*;  
+import java.util.function.Function;
 import java.util.stream.Collectors;  
 
 
 
 @ControllerConfiguration
-public class PaymentHubDeploymentController implements Reconciler<PaymentHubDeployment> {
+public class PaymentHubDeploymentController implements Reconciler<PaymentHubDeployment>, EventSourceInitializer<PaymentHubDeployment> {
 
 
     /**
@@ -51,12 +76,39 @@ public class PaymentHubDeploymentController implements Reconciler<PaymentHubDepl
      * - {@code rbacUtils} provides utility methods for handling RBAC (Role-Based Access Control) related operations.
      * - {@code resourceUtils} offers utility methods for creating and managing Kubernetes resources such as ConfigMaps and Secrets.
      * - {@code networkingUtils} includes utility methods for managing networking components like Services and Ingresses.
+     * - {@code prePullUtils} pulls a new image onto the nodes before the Deployment is updated to it.
+     * - {@code blueGreenUtils} runs blue/green releases with two Deployments and a Service selector switch.
+     * - {@code canaryUtils} runs weighted canary releases next to the stable Deployment.
+     * - {@code autoscalingUtils} manages the HorizontalPodAutoscaler of the serving Deployment.
+     * - {@code verticalAutoscalingUtils} manages the VerticalPodAutoscaler, or recommends resources itself without one.
+     * - {@code metricScaler} scales Deployments on the metrics scraped from their own pods.
+     * - {@code schedulingUtils} manages the PodDisruptionBudget of the component.
+     * - {@code performanceProfileUtils} creates the PriorityClasses used by the performance profiles.
+     * - {@code configReloadUtils} notifies running pods of configuration changes they reload in place.
+     * - {@code reconcileThrottle} coalesces bursts of changes and limits the overall reconciliation rate.
+     * - {@code reconcileQueue} lets high-priority resources reconcile first when many are pending.
      */
     private static final Logger log = LoggerFactory.getLogger(PaymentHubDeploymentController.class);
     private final KubernetesClient kubernetesClient;
     private final RbacUtils rbacUtils;
     private final ResourceUtils resourceUtils;
     private final NetworkingUtils networkingUtils;
+    private final PrePullUtils prePullUtils;
+    private final BlueGreenUtils blueGreenUtils;
+    private final CanaryUtils canaryUtils;
+    private final AutoscalingUtils autoscalingUtils;
+    private final VerticalAutoscalingUtils verticalAutoscalingUtils;
+    private final MetricScaler metricScaler;
+    private final SchedulingUtils schedulingUtils;
+    private final PerformanceProfileUtils performanceProfileUtils;
+    private final ConfigReloadUtils configReloadUtils;
+    private final ReconcileThrottle reconcileThrottle;
+    private final ReconcileQueue reconcileQueue;
+
+    // Delay between two checks while the reconciliation waits for a pre-pull or a rollout to complete
+    private static final Duration PENDING_RECHECK_INTERVAL = Duration.ofSeconds(10);
+    // Delay between two checks of a failed rollout that could not be rolled back
+    private static final Duration FAILED_RECHECK_INTERVAL = Duration.ofSeconds(60);
 
     /**
      * Constructor for initializing the PaymentHubDeploymentController with the necessary clients and utilities.
@@ -68,6 +120,74 @@ public class PaymentHubDeploymentController implements Reconciler<PaymentHubDepl
         this.rbacUtils = new RbacUtils(kubernetesClient);
         this.resourceUtils = new ResourceUtils(kubernetesClient);
         this.networkingUtils = new NetworkingUtils(kubernetesClient);
+        this.prePullUtils = new PrePullUtils(kubernetesClient);
+        this.blueGreenUtils = new BlueGreenUtils(kubernetesClient);
+        this.canaryUtils = new CanaryUtils(kubernetesClient);
+        this.autoscalingUtils = new AutoscalingUtils(kubernetesClient);
+        this.verticalAutoscalingUtils = new VerticalAutoscalingUtils(kubernetesClient);
+        this.metricScaler = new MetricScaler(kubernetesClient);
+        this.schedulingUtils = new SchedulingUtils(kubernetesClient);
+        this.performanceProfileUtils = new PerformanceProfileUtils(kubernetesClient);
+        this.configReloadUtils = new ConfigReloadUtils(kubernetesClient);
+        this.reconcileThrottle = ReconcileThrottle.fromEnvironment();
+        this.reconcileQueue = ReconcileQueue.fromEnvironment();
+        ShutdownUtils.detectNativeSleep(kubernetesClient);
+    }
+
+    /**
+     * Watches the ConfigMaps and Secrets matching {@link ConfigHashUtils#getWatchLabelSelector()}, so that a change
+     * to one consumed by a PaymentHubDeployment reconciles it and the new content hash rolls its pods, see
+     * {@link ConfigHashUtils}. Their caches also serve the content hashes.
+     *
+     * @param context The event source context, giving access to the cached custom resources.
+     * @return The event sources of the controller.
+     */
+    @Override
+    public Map<String, EventSource> prepareEventSources(EventSourceContext<PaymentHubDeployment> context) {
+        InformerEventSource<ConfigMap, PaymentHubDeployment> configMaps = new InformerEventSource<>(
+                InformerConfiguration.from(ConfigMap.class, context)
+                        .withLabelSelector(ConfigHashUtils.getWatchLabelSelector())
+                        .withSecondaryToPrimaryMapper((ConfigMap configMap) -> consumers(context, configMap,
+                                ConfigHashUtils::getConfigMapNames, ReconcileLagMetrics.SOURCE_CONFIGMAP))
+                        .build(), context);
+        InformerEventSource<Secret, PaymentHubDeployment> secrets = new InformerEventSource<>(
+                InformerConfiguration.from(Secret.class, context)
+                        .withLabelSelector(ConfigHashUtils.getWatchLabelSelector())
+                        .withSecondaryToPrimaryMapper((Secret secret) -> consumers(context, secret,
+                                ConfigHashUtils::getSecretNames, ReconcileLagMetrics.SOURCE_SECRET))
+                        .build(), context);
+        ConfigHashUtils.useCaches(configMaps, secrets);
+        return EventSourceInitializer.nameEventSources(configMaps, secrets);
+    }
+
+    /**
+     * Returns the PaymentHubDeployments in the namespace of a ConfigMap or Secret that consume it, and starts
+     * their reconcile lag clock.
+     */
+    private static Set<ResourceID> consumers(EventSourceContext<PaymentHubDeployment> context, HasMetadata consumed,
+                                             Function<PaymentHubDeployment, SortedSet<String>> consumedNames, String source) {
+        String namespace = consumed.getMetadata().getNamespace();
+        Set<ResourceID> consumers = context.getPrimaryCache().list(namespace)
+                .filter(resource -> consumes(resource, consumedNames, consumed.getMetadata().getName()))
+                .map(ResourceID::fromResource)
+                .collect(Collectors.toSet());
+        consumers.forEach(resourceID -> ReconcileLagMetrics.recordEvent(resourceID, source));
+        return consumers;
+    }
+
+    /**
+     * Tells whether a PaymentHubDeployment consumes the named ConfigMap or Secret. A name template that cannot be
+     * resolved only fails the reconciliation of its own resource, which reports it in the status, instead of the
+     * mapping of the event for every resource in the namespace.
+     */
+    private static boolean consumes(PaymentHubDeployment resource, Function<PaymentHubDeployment, SortedSet<String>> consumedNames,
+                                    String name) {
+        try {
+            return consumedNames.apply(resource).contains(name);
+        } catch (IllegalArgumentException e) {
+            log.debug("Skipping {} while mapping a change to {}: {}", resource.getMetadata().getName(), name, e.getMessage());
+            return false;
+        }
     }
 
     /**
@@ -81,11 +201,62 @@ public class PaymentHubDeploymentController implements Reconciler<PaymentHubDepl
      */
     @Override
     public UpdateControl<PaymentHubDeployment> reconcile(PaymentHubDeployment resource, Context<PaymentHubDeployment> context) {
+        // Wait for a burst of changes to settle, or for the rate limit, and reconcile the latest state once
+        Optional<Duration> deferral = reconcileThrottle.acquire(resource);
+        if (deferral.isPresent()) {
+            return UpdateControl.<PaymentHubDeployment>noUpdate().rescheduleAfter(deferral.get());
+        }
+
+        // Wait for a reconciliation slot; the payment path goes before non-critical components
+        ReconcileQueue.Ticket ticket;
+        try {
+            ticket = reconcileQueue.enter(resource);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return UpdateControl.<PaymentHubDeployment>noUpdate().rescheduleAfter(PENDING_RECHECK_INTERVAL);
+        }
+        // Attribute the API calls made on this thread to the resource for the write audit
+        WriteAuditUtil.setCurrentResource(resource);
+        Long lagMillis = ReconcileLagMetrics.reconcileStarted(resource);
+        FlightRecorderUtil.ReconcileEvent event = FlightRecorderUtil.beginReconcile(resource, lagMillis);
+        String outcome = "Exception";
+        try {
+            UpdateControl<PaymentHubDeployment> control = reconcileResource(resource, context);
+            // Carried by the status patch of this reconciliation, if it makes one
+            if (lagMillis != null && resource.getStatus() != null) {
+                resource.getStatus().setLastReconcileLagMillis(lagMillis);
+            }
+            outcome = resource.getStatus() != null && resource.getStatus().getPhase() != null ? resource.getStatus().getPhase() : "Unknown";
+            return control;
+        } finally {
+            FlightRecorderUtil.endReconcile(event, outcome);
+            ReconcileLagMetrics.reconcileFinished();
+            WriteAuditUtil.clearCurrentResource();
+            ticket.release();
+        }
+    }
+
+    /**
+     * Performs the reconciliation of a single custom resource. See {@link #reconcile(PaymentHubDeployment, Context)}.
+     *
+     * @param resource The custom resource containing the specifications for the various Kubernetes resources.
+     * @param context  The context in which the reconciliation is taking place.
+     * @return UpdateControl<PaymentHubDeployment> The control object that dictates the next steps for the reconciliation loop.
+     */
+    private UpdateControl<PaymentHubDeployment> reconcileResource(PaymentHubDeployment resource, Context<PaymentHubDeployment> context) {
         String resourceName = resource.getMetadata().getName();
 
         // Check if the deployment is disabled
         if (resource.getSpec().getEnabled() == null || !resource.getSpec().getEnabled()) {
+            if ("scaleToZero".equals(resource.getSpec().getDisableMode())) {
+                // Warm standby: keep every object and only scale the Deployment down
+                log.info("Deployment {} is disabled, scaling it to zero and keeping all associated resources.", resourceName);
+                metricScaler.unregister(resource);
+                scaleDeploymentToZero(resource);
+                return StatusUpdateUtil.updateStandbyStatus(kubernetesClient, resource);
+            }
             log.info("Deployment {} is disabled, deleting all associated resources.", resourceName);
+            metricScaler.unregister(resource);
             DeletionUtil.deleteResources(kubernetesClient, resource);
             return StatusUpdateUtil.updateDisabledStatus(kubernetesClient, resource);
         }
@@ -95,6 +266,7 @@ public class PaymentHubDeploymentController implements Reconciler<PaymentHubDepl
 
         try {
             // Check and reconcile RBACs
+            FlightRecorderUtil.step(resource, "rbac");
             if (resource.getSpec().getRbacEnabled() == null || !resource.getSpec().getRbacEnabled()) {
                 log.info("RBACs for resource {} are disabled, deleting associated RBAC resources.", resourceName);
                 DeletionUtil.deleteRbacResources(kubernetesClient, resource);
@@ -109,6 +281,7 @@ public class PaymentHubDeploymentController implements Reconciler<PaymentHubDepl
             }
 
             // Check and reconcile Secrets
+            FlightRecorderUtil.step(resource, "secret");
             if (resource.getSpec().getSecretEnabled() == null || !resource.getSpec().getSecretEnabled()) {
                 log.info("Secrets for resource {} are disabled, deleting associated Secret resources.", resourceName);
                 DeletionUtil.deleteSecretResources(kubernetesClient, resource);
@@ -119,6 +292,7 @@ public class PaymentHubDeploymentController implements Reconciler<PaymentHubDepl
             } 
 
             // Check and reconcile ConfigMaps
+            FlightRecorderUtil.step(resource, "configMap");
             if (resource.getSpec().getConfigMapEnabled() == null || !resource.getSpec().getConfigMapEnabled()) {
                 log.info("ConfigMap for resource {} is disabled, deleting associated ConfigMap resources.", resourceName);
                 DeletionUtil.deleteConfigMapResources(kubernetesClient, resource);
@@ -129,6 +303,7 @@ public class PaymentHubDeploymentController implements Reconciler<PaymentHubDepl
             }
 
             // Check and reconcile Ingress and Services
+            FlightRecorderUtil.step(resource, "networking");
             if ("ph-ee-connector-gsma".equals(resourceName)) {
                 // Special case: only reconcile Services, not Ingress, for "ph-ee-connector-gsma"
                 log.info("Special case for {}: Reconciling Services only, not Ingress.", resourceName);
@@ -146,18 +321,110 @@ public class PaymentHubDeploymentController implements Reconciler<PaymentHubDepl
                 }
             }
 
+            // Check and reconcile the HorizontalPodAutoscaler
+            FlightRecorderUtil.step(resource, "horizontalAutoscaling");
+            if (AutoscalingUtils.isHorizontalAutoscalingEnabled(resource)) {
+                log.info("Reconciling HorizontalPodAutoscaler for {}.", resourceName);
+                autoscalingUtils.reconcileHorizontalPodAutoscaler(resource);
+            } else {
+                autoscalingUtils.deleteHorizontalPodAutoscaler(resource);
+            }
+
+            // Check and reconcile the PodDisruptionBudget
+            FlightRecorderUtil.step(resource, "podDisruptionBudget");
+            if (SchedulingUtils.isDisruptionBudgetEnabled(resource)) {
+                log.debug("Reconciling PodDisruptionBudget for {}.", resourceName);
+                schedulingUtils.reconcilePodDisruptionBudget(resource);
+            } else {
+                schedulingUtils.deletePodDisruptionBudget(resource);
+            }
+
+            // Make sure the PriorityClass of the performance profile exists before pods refer to it
+            FlightRecorderUtil.step(resource, "priorityClass");
+            performanceProfileUtils.reconcilePriorityClass(resource);
+
+            // Register the metric scaler; it runs on its own schedule and leaves the replica count to the HPA if both are enabled
+            FlightRecorderUtil.step(resource, "metricScaling");
+            if (MetricScaler.isMetricScalingEnabled(resource) && !AutoscalingUtils.isHorizontalAutoscalingEnabled(resource)) {
+                metricScaler.register(resource);
+            } else {
+                if (MetricScaler.isMetricScalingEnabled(resource)) {
+                    log.warn("Both spec.autoscaling and spec.metricScaling are enabled for {}, the HorizontalPodAutoscaler takes precedence.", resourceName);
+                }
+                metricScaler.unregister(resource);
+            }
+
+            // Check and reconcile the resource recommendations
+            FlightRecorderUtil.step(resource, "verticalAutoscaling");
+            if (VerticalAutoscalingUtils.isVerticalAutoscalingEnabled(resource)) {
+                log.debug("Reconciling vertical autoscaling for {}.", resourceName);
+                verticalAutoscalingUtils.reconcileVerticalAutoscaling(resource);
+            } else {
+                verticalAutoscalingUtils.deleteVerticalAutoscaling(resource);
+            }
+
+            // Pick the image to roll out, staying on the last known-good image after a failed rollout
+            String image = RolloutUtils.resolveImage(resource);
+
+            // Hold the Deployment update until the new image has been pulled onto enough nodes
+            FlightRecorderUtil.step(resource, "prePull");
+            PrePullUtils.Progress prePull = prePullUtils.reconcilePrePull(resource, image);
+            if (!prePull.isFinished()) {
+                return StatusUpdateUtil.updatePendingStatus(kubernetesClient, resource, "PrePulling", prePull.getMessage(), PENDING_RECHECK_INTERVAL);
+            }
+
+            // Blue/green releases run two Deployments and switch the Services between them
+            FlightRecorderUtil.step(resource, "blueGreen");
+            if (BlueGreenUtils.isBlueGreen(resource)) {
+                log.info("Reconciling blue/green Deployments for {}.", resourceName);
+                return scheduleRecommendation(resource, blueGreenUtils.reconcileBlueGreen(resource, image, PENDING_RECHECK_INTERVAL));
+            }
+
+            // Canary releases validate a change on a slice of the traffic before it reaches the stable Deployment
+            FlightRecorderUtil.step(resource, "canary");
+            if (CanaryUtils.isCanary(resource)) {
+                UpdateControl<PaymentHubDeployment> canary = canaryUtils.reconcileCanary(resource, image, PENDING_RECHECK_INTERVAL);
+                if (canary != null) {
+                    return canary;
+                }
+            } else if (resource.getStatus() != null && resource.getStatus().getCanaryWeight() != null) {
+                // Switched away from canary while one was running
+                canaryUtils.removeCanary(resource);
+            }
+
             // Always reconcile the Deployment itself
+            FlightRecorderUtil.step(resource, "deployment");
             log.info("Reconciling Deployment for {}.", resourceName);
-            reconcileDeployment(resource);
-
-            // Return success status update
-            log.info("Reconciliation successful for {}.", resourceName);
-            return StatusUpdateUtil.updateStatus(kubernetesClient, resource, resource.getSpec().getReplicas(), resource.getSpec().getImage(), true, "");
+            Deployment deployment = reconcileDeployment(resource, image);
+
+            // Track the rollout through the Deployment status and conditions
+            FlightRecorderUtil.step(resource, "rollout");
+            switch (RolloutUtils.getRolloutState(deployment)) {
+                case COMPLETE:
+                    log.info("Reconciliation successful for {}.", resourceName);
+                    if (resource.getStatus() != null && resource.getStatus().getActiveColor() != null) {
+                        // Switched back from blue/green: move traffic to the rolled out Deployment and drop the colors
+                        blueGreenUtils.retireColors(resource);
+                    }
+                    // The pods no longer use superseded versions of content-addressed configuration
+                    if (ResourceUtils.isImmutableConfig(resource)) {
+                        resourceUtils.deleteSupersededVersions(resource);
+                    }
+                    // Reload changed configuration in the running pods; the progress is part of the status update
+                    boolean reloadPending = ConfigReloadUtils.isHotReload(resource) && configReloadUtils.reconcileReload(resource);
+                    UpdateControl<PaymentHubDeployment> completed = scheduleRecommendation(resource, StatusUpdateUtil.updateStatus(kubernetesClient, resource,
+                            RolloutUtils.getAvailableReplicas(deployment), image, true, RolloutUtils.describeCompletedRollout(resource, image)));
+                    return reloadPending ? completed.rescheduleAfter(PENDING_RECHECK_INTERVAL) : completed;
+                case STALLED:
+                    return handleStalledRollout(resource, deployment, image);
+                default:
+                    return StatusUpdateUtil.updatePendingStatus(kubernetesClient, resource, "Progressing", RolloutUtils.describeProgress(deployment), PENDING_RECHECK_INTERVAL);
+            }
 
         } catch (Exception e) {
             // Log the error and return an error status update
             log.error("Error during reconciliation for resource " + resourceName, e);
-            return StatusUpdateUtil.updateErrorStatus(kubernetesClient, resource, resource.getSpec().getImage(), e);
+            return StatusUpdateUtil.updateErrorStatus(kubernetesClient, resource, RolloutUtils.getLastAppliedImage(resource), e);
         }
     }
 
@@ -166,171 +433,111 @@ public class PaymentHubDeploymentController implements Reconciler<PaymentHubDepl
      * Reconciles the Deployment based on the given custom resource.
      * 
      * @param resource The custom resource containing the specifications for the deployment.
+     * @param image The container image to deploy.
+     * @return The Deployment as returned by the API server.
      */
-    private void reconcileDeployment(PaymentHubDeployment resource) {
+    private Deployment reconcileDeployment(PaymentHubDeployment resource, String image) {
         log.info("Reconciling Deployment for resource: {}", resource.getMetadata().getName());
-        Deployment deployment = createDeployment(resource);
+        Deployment deployment = DeploymentUtils.createDeployment(resource, resource.getMetadata().getName(), image, Collections.emptyMap(),
+                ConfigHashUtils.computeConfigHash(kubernetesClient, resource));
         log.info("Created Deployment spec: {}", deployment);
 
         Resource<Deployment> deploymentResource = kubernetesClient.apps().deployments()
                 .inNamespace(resource.getMetadata().getNamespace())
                 .withName(resource.getMetadata().getName());
 
-        if (deploymentResource.get() == null) {
-            deploymentResource.create(deployment);
+        Deployment existing = deploymentResource.get();
+        DeploymentUtils.preserveReplicas(resource, deployment, existing);
+
+        if (existing == null) {
+            Deployment created = deploymentResource.create(deployment);
             log.info("Created new Deployment: {}", resource.getMetadata().getName());
+            return created;
         } else {
-            deploymentResource.replace(deployment);
+            Deployment updated = deploymentResource.replace(deployment);
             log.info("Updated existing Deployment: {}", resource.getMetadata().getName());
+            return updated;
         }
     }
 
 
     /**
-     * Creates a Kubernetes Deployment object based on the custom resource specifications.
-     * 
-     * @param resource The custom resource specifying the deployment configuration.
-     * @return The created Deployment object, or null if critical fields are missing.
+     * Handles a rollout that made no progress within the progress deadline. If automatic rollback is enabled
+     * and a last known-good image is known, the Deployment is rolled back to it; in any case the failure is
+     * recorded in the status.
+     *
+     * @param resource The custom resource whose rollout stalled.
+     * @param deployment The stalled Deployment.
+     * @param image The image whose rollout stalled.
+     * @return The status update for the failed rollout.
      */
-    private Deployment createDeployment(PaymentHubDeployment resource) {
-        log.info("Creating Deployment spec for resource: {}", resource.getMetadata().getName());
-
-        // Define labels for the Deployment and Pod templates
-        Map<String, String> labels = resource.getSpec().getLabels();
-        if (labels == null) {
-            labels = new HashMap<>();
-        }
-
-        labels.putIfAbsent("app", resource.getMetadata().getName());
-        labels.putIfAbsent("app.kubernetes.io/managed-by", "ph-ee-operator");
-
-        // Build the main container with environment variables, resources, and volume mounts
-        ContainerBuilder containerBuilder = new ContainerBuilder()
-            .withName(resource.getMetadata().getName())
-            .withImage(resource.getSpec().getImage())
-            .withEnv(DeploymentUtils.createEnvironmentVariables(resource))
-            .withResources(DeploymentUtils.createResourceRequirements(resource))
-            .withLivenessProbe(DeploymentUtils.createProbe(resource, "liveness"))
-            .withReadinessProbe(DeploymentUtils.createProbe(resource, "readiness"));
-
-        // Conditionally add the container port if it's provided in the CR
-        Integer containerPort = resource.getSpec().getContainerPort();
-        if (containerPort != null) {
-            containerBuilder.withPorts(new ContainerPortBuilder()
-                .withContainerPort(containerPort)
-                .build());
-        } else {
-            log.info("Container port not provided, skipping port configuration.");
+    private UpdateControl<PaymentHubDeployment> handleStalledRollout(PaymentHubDeployment resource, Deployment deployment, String image) {
+        String resourceName = resource.getMetadata().getName();
+        String reason = RolloutUtils.describeStall(deployment);
+        String lastGoodImage = RolloutUtils.getLastAppliedImage(resource);
+
+        if (RolloutUtils.isAutoRollbackEnabled(resource) && lastGoodImage != null && !lastGoodImage.equals(image)) {
+            log.warn("Rollout of image {} stalled for {}, rolling back to {}.", image, resourceName, lastGoodImage);
+            reconcileDeployment(resource, lastGoodImage);
+            return StatusUpdateUtil.updateRolloutFailedStatus(kubernetesClient, resource, image, true,
+                    "Rollout of image " + image + " stalled (" + reason + "), rolled back to " + lastGoodImage + ".", PENDING_RECHECK_INTERVAL);
         }
 
-        // Logging for volume mount configuration
-        log.debug("Volume mount configuration: {}", resource.getSpec().getVolMount());
-
-        // Add volume mount conditionally
-        if (resource.getSpec().getVolMount() != null && Boolean.TRUE.equals(resource.getSpec().getVolMount().getEnabled())) {
-            String volMountName = resource.getSpec().getVolMount().getName();
-            String deploymentName = resource.getMetadata().getName();
-
-            if (volMountName != null) {
-                VolumeMountBuilder volumeMountBuilder = new VolumeMountBuilder().withName(volMountName);
+        String failedImage = RolloutUtils.getFailedImageToRecord(resource, image);
+        log.error("Rollout of image {} stalled for {} and cannot be rolled back.", image, resourceName);
+        return StatusUpdateUtil.updateRolloutFailedStatus(kubernetesClient, resource, failedImage, false,
+                "Rollout of image " + image + " stalled (" + reason + ").", FAILED_RECHECK_INTERVAL);
+    }
 
-                // Check the deployment name and set the appropriate path
-                if ("ph-ee-operations-web".equals(deploymentName)) {
-                    // For ph-ee-operations-web, use the specific path and subPath
-                    volumeMountBuilder
-                        .withMountPath("/usr/share/nginx/html/assets/configuration.properties")
-                        .withSubPath("configuration.properties");
-                } else {
-                    // For other deployments, use the generic /config  
-                    volumeMountBuilder.withMountPath("/config");
-                }
 
-                containerBuilder.withVolumeMounts(volumeMountBuilder.build());
-            } else {
-                log.warn("Volume mount name is null, skipping volume mount.");
-            }
+    /**
+     * Schedules the next reconciliation of a resource with vertical autoscaling, so that its recommendation is
+     * refreshed while nothing else changes. Controls that already reschedule are returned as they are.
+     *
+     * @param resource The reconciled custom resource.
+     * @param control The control returned by the reconciliation.
+     * @return The control, rescheduled after {@link VerticalAutoscalingUtils#RECOMMENDATION_INTERVAL} if needed.
+     */
+    private UpdateControl<PaymentHubDeployment> scheduleRecommendation(PaymentHubDeployment resource, UpdateControl<PaymentHubDeployment> control) {
+        if (VerticalAutoscalingUtils.isVerticalAutoscalingEnabled(resource) && !control.getScheduleDelay().isPresent()) {
+            return control.rescheduleAfter(VerticalAutoscalingUtils.RECOMMENDATION_INTERVAL);
         }
+        return control;
+    }
 
 
-        Container container = containerBuilder.build();
-
-        // Create PodSpec with the defined container and volumes
-        PodSpecBuilder podSpecBuilder = new PodSpecBuilder()
-            .withContainers(container);
-
-        // Check the flag to determine whether to add the init container 
-        if (Boolean.TRUE.equals(resource.getSpec().getInitContainerEnabled())) {
-            log.info("Init container enabled, adding to the PodSpec.");
-            Container initContainer = new ContainerBuilder()
-                .withName("wait-db")
-                .withImage("jwilder/dockerize")
-                .withArgs("-timeout=120s", "-wait", "tcp://operationsmysql:3306") 
-                .build();
-            podSpecBuilder.withInitContainers(initContainer);
-        } else {
-            log.info("Init container not enabled, skipping init container.");
-        }
-
-        // Add volumes conditionally
-        if (resource.getSpec().getVolMount() != null && Boolean.TRUE.equals(resource.getSpec().getVolMount().getEnabled())) {
-            String volMountName = resource.getSpec().getVolMount().getName();
-            if (volMountName != null) {
-                podSpecBuilder.withVolumes(new VolumeBuilder()
-                    .withName(volMountName)
-                    .withConfigMap(new ConfigMapVolumeSourceBuilder()
-                        .withName(volMountName)
-                        .build())
-                    .build());
+    /**
+     * Scales the Deployments of a disabled custom resource to zero replicas while keeping them and all other
+     * associated resources in place, so that re-enabling only has to scale them up again. Besides the serving
+     * Deployment this covers both blue/green colors and a running canary.
+     *
+     * @param resource The disabled custom resource.
+     */
+    private void scaleDeploymentToZero(PaymentHubDeployment resource) {
+        String name = resource.getMetadata().getName();
+        List<String> names = Arrays.asList(name, BlueGreenUtils.getDeploymentName(resource, BlueGreenUtils.BLUE),
+                BlueGreenUtils.getDeploymentName(resource, BlueGreenUtils.GREEN), CanaryUtils.getDeploymentName(resource));
+        boolean found = false;
+        for (String deploymentName : names) {
+            Resource<Deployment> deploymentResource = kubernetesClient.apps().deployments()
+                    .inNamespace(resource.getMetadata().getNamespace())
+                    .withName(deploymentName);
+            Deployment existing = deploymentResource.get();
+            if (existing == null) {
+                continue;
+            }
+            found = true;
+            if (existing.getSpec().getReplicas() != null && existing.getSpec().getReplicas() == 0) {
+                log.info("Deployment {} is already scaled to zero.", deploymentName);
             } else {
-                log.warn("Volume mount name is null, skipping volume creation.");
+                deploymentResource.scale(0);
+                log.info("Scaled Deployment {} to zero replicas.", deploymentName);
             }
         }
-
-        PodSpec podSpec = podSpecBuilder.build();
-
-        // Build the PodTemplateSpec with metadata and spec
-        PodTemplateSpec podTemplateSpec = new PodTemplateSpecBuilder()
-            .withNewMetadata()
-                .withLabels(labels)
-            .endMetadata()
-            .withSpec(podSpec)
-            .build();
-
-        // Define the DeploymentSpec with replicas, selector, and template
-        DeploymentSpec deploymentSpec = new DeploymentSpecBuilder()
-            .withReplicas(resource.getSpec().getReplicas())
-            .withSelector(new LabelSelectorBuilder()
-                .withMatchLabels(labels)
-                .build())
-            .withTemplate(podTemplateSpec)
-            .build();
-
-        // Handle the case where metadata fields might be null
-        String name = resource.getMetadata().getName();
-        String namespace = resource.getMetadata().getNamespace();
-
-        if (name == null || namespace == null) {
-            log.error("Name or namespace is null, cannot create deployment metadata.");
-            return null;  // Or handle it appropriately
+        if (!found) {
+            log.warn("No Deployment of {} found, nothing to keep on standby.", name);
         }
-
-        // Create Deployment metadata with owner references
-        ObjectMeta metadata = new ObjectMetaBuilder()
-            .withName(name)
-            .withNamespace(namespace)
-            .withLabels(labels)
-            .withOwnerReferences(OwnerReferenceUtils.createOwnerReferences(resource))
-            .build();
-
-        // Log the final deployment object for debugging purposes
-        log.debug("Final Deployment object: {}", metadata);
-
-        // Build the final Deployment object
-        return new DeploymentBuilder()
-            .withMetadata(metadata)
-            .withSpec(deploymentSpec)
-            .build();
     }
 
 
-}
\ No newline at end of file
+}
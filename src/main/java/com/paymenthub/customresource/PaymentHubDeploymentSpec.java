@@ -1,5 +1,7 @@
 package com.paymenthub.customresource;
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import io.fabric8.kubernetes.api.model.Affinity;
+import io.fabric8.kubernetes.api.model.TopologySpreadConstraint;
 import java.util.*; 
 
 public class PaymentHubDeploymentSpec {
@@ -20,6 +22,29 @@ public class PaymentHubDeploymentSpec {
     private List<Service> services;
     private List<EnvironmentVariable> environment;
     private Boolean initContainerEnabled;
+    private String disableMode;
+    private ImagePrePull imagePrePull;
+    private Rollout rollout;
+    private String releaseStrategy;
+    private BlueGreen blueGreen;
+    private Canary canary;
+    private Autoscaling autoscaling;
+    private VerticalAutoscaling verticalAutoscaling;
+    private MetricScaling metricScaling;
+    private Scheduling scheduling;
+    private DisruptionBudget disruptionBudget;
+    private String performanceProfile;
+    private String dedicatedNodePool;
+    private Jvm jvm;
+    private Probe startupProbe;
+    private Shutdown shutdown;
+    private ReloadStrategy reloadStrategy;
+    private Boolean immutableConfig;
+    private Boolean sharedConfig;
+    private Map<String, String> configData;
+    private Map<String, String> secretData;
+    private Integer reconcilePriority;
+    private Boolean exclusiveCpus;
 
     public PaymentHubDeploymentSpec() {
     }
@@ -183,6 +208,190 @@ public class PaymentHubDeploymentSpec {
         this.initContainerEnabled = initContainerEnabled;
     }
 
+    public String getDisableMode() {
+        return disableMode;
+    }
+
+    public void setDisableMode(String disableMode) {
+        this.disableMode = disableMode;
+    }
+
+    public ImagePrePull getImagePrePull() {
+        return imagePrePull;
+    }
+
+    public void setImagePrePull(ImagePrePull imagePrePull) {
+        this.imagePrePull = imagePrePull;
+    }
+
+    public Rollout getRollout() {
+        return rollout;
+    }
+
+    public void setRollout(Rollout rollout) {
+        this.rollout = rollout;
+    }
+
+    public String getReleaseStrategy() {
+        return releaseStrategy;
+    }
+
+    public void setReleaseStrategy(String releaseStrategy) {
+        this.releaseStrategy = releaseStrategy;
+    }
+
+    public BlueGreen getBlueGreen() {
+        return blueGreen;
+    }
+
+    public void setBlueGreen(BlueGreen blueGreen) {
+        this.blueGreen = blueGreen;
+    }
+
+    public Canary getCanary() {
+        return canary;
+    }
+
+    public void setCanary(Canary canary) {
+        this.canary = canary;
+    }
+
+    public Autoscaling getAutoscaling() {
+        return autoscaling;
+    }
+
+    public void setAutoscaling(Autoscaling autoscaling) {
+        this.autoscaling = autoscaling;
+    }
+
+    public VerticalAutoscaling getVerticalAutoscaling() {
+        return verticalAutoscaling;
+    }
+
+    public void setVerticalAutoscaling(VerticalAutoscaling verticalAutoscaling) {
+        this.verticalAutoscaling = verticalAutoscaling;
+    }
+
+    public MetricScaling getMetricScaling() {
+        return metricScaling;
+    }
+
+    public void setMetricScaling(MetricScaling metricScaling) {
+        this.metricScaling = metricScaling;
+    }
+
+    public Scheduling getScheduling() {
+        return scheduling;
+    }
+
+    public void setScheduling(Scheduling scheduling) {
+        this.scheduling = scheduling;
+    }
+
+    public DisruptionBudget getDisruptionBudget() {
+        return disruptionBudget;
+    }
+
+    public void setDisruptionBudget(DisruptionBudget disruptionBudget) {
+        this.disruptionBudget = disruptionBudget;
+    }
+
+    public String getPerformanceProfile() {
+        return performanceProfile;
+    }
+
+    public void setPerformanceProfile(String performanceProfile) {
+        this.performanceProfile = performanceProfile;
+    }
+
+    public String getDedicatedNodePool() {
+        return dedicatedNodePool;
+    }
+
+    public void setDedicatedNodePool(String dedicatedNodePool) {
+        this.dedicatedNodePool = dedicatedNodePool;
+    }
+
+    public Jvm getJvm() {
+        return jvm;
+    }
+
+    public void setJvm(Jvm jvm) {
+        this.jvm = jvm;
+    }
+
+    public Probe getStartupProbe() {
+        return startupProbe;
+    }
+
+    public void setStartupProbe(Probe startupProbe) {
+        this.startupProbe = startupProbe;
+    }
+
+    public Shutdown getShutdown() {
+        return shutdown;
+    }
+
+    public void setShutdown(Shutdown shutdown) {
+        this.shutdown = shutdown;
+    }
+
+    public ReloadStrategy getReloadStrategy() {
+        return reloadStrategy;
+    }
+
+    public void setReloadStrategy(ReloadStrategy reloadStrategy) {
+        this.reloadStrategy = reloadStrategy;
+    }
+
+    public Boolean getImmutableConfig() {
+        return immutableConfig;
+    }
+
+    public void setImmutableConfig(Boolean immutableConfig) {
+        this.immutableConfig = immutableConfig;
+    }
+
+    public Boolean getSharedConfig() {
+        return sharedConfig;
+    }
+
+    public void setSharedConfig(Boolean sharedConfig) {
+        this.sharedConfig = sharedConfig;
+    }
+
+    public Map<String, String> getConfigData() {
+        return configData;
+    }
+
+    public void setConfigData(Map<String, String> configData) {
+        this.configData = configData;
+    }
+
+    public Map<String, String> getSecretData() {
+        return secretData;
+    }
+
+    public void setSecretData(Map<String, String> secretData) {
+        this.secretData = secretData;
+    }
+
+    public Integer getReconcilePriority() {
+        return reconcilePriority;
+    }
+
+    public void setReconcilePriority(Integer reconcilePriority) {
+        this.reconcilePriority = reconcilePriority;
+    }
+
+    public Boolean getExclusiveCpus() {
+        return exclusiveCpus;
+    }
+
+    public void setExclusiveCpus(Boolean exclusiveCpus) {
+        this.exclusiveCpus = exclusiveCpus;
+    }
+
 
     @Override
     public String toString() {
@@ -204,6 +413,29 @@ public class PaymentHubDeploymentSpec {
                 ", services=" + services +
                 ", environment=" + environment +
                 ", initContainerEnabled=" + initContainerEnabled +
+                ", disableMode='" + disableMode + '\'' +
+                ", imagePrePull=" + imagePrePull +
+                ", rollout=" + rollout +
+                ", releaseStrategy='" + releaseStrategy + '\'' +
+                ", blueGreen=" + blueGreen +
+                ", canary=" + canary +
+                ", autoscaling=" + autoscaling +
+                ", verticalAutoscaling=" + verticalAutoscaling +
+                ", metricScaling=" + metricScaling +
+                ", scheduling=" + scheduling +
+                ", disruptionBudget=" + disruptionBudget +
+                ", performanceProfile='" + performanceProfile + '\'' +
+                ", dedicatedNodePool='" + dedicatedNodePool + '\'' +
+                ", jvm=" + jvm +
+                ", startupProbe=" + startupProbe +
+                ", shutdown=" + shutdown +
+                ", reloadStrategy=" + reloadStrategy +
+                ", immutableConfig=" + immutableConfig +
+                ", sharedConfig=" + sharedConfig +
+                ", configData=" + configData +
+                ", secretData=" + (secretData != null ? secretData.keySet() : null) +
+                ", reconcilePriority=" + reconcilePriority +
+                ", exclusiveCpus=" + exclusiveCpus +
                 '}';
     }
 
@@ -228,14 +460,60 @@ public class PaymentHubDeploymentSpec {
                Objects.equals(getIngress(), that.getIngress()) &&
                Objects.equals(getServices(), that.getServices()) &&
                Objects.equals(getEnvironment(), that.getEnvironment()) &&
-               Objects.equals(getInitContainerEnabled(), that.getInitContainerEnabled());
+               Objects.equals(getInitContainerEnabled(), that.getInitContainerEnabled()) &&
+               Objects.equals(getDisableMode(), that.getDisableMode()) &&
+               Objects.equals(getImagePrePull(), that.getImagePrePull()) &&
+               Objects.equals(getRollout(), that.getRollout()) &&
+               Objects.equals(getReleaseStrategy(), that.getReleaseStrategy()) &&
+               Objects.equals(getBlueGreen(), that.getBlueGreen()) &&
+               Objects.equals(getCanary(), that.getCanary()) &&
+               Objects.equals(getAutoscaling(), that.getAutoscaling()) &&
+               Objects.equals(getVerticalAutoscaling(), that.getVerticalAutoscaling()) &&
+               Objects.equals(getMetricScaling(), that.getMetricScaling()) &&
+               Objects.equals(getScheduling(), that.getScheduling()) &&
+               Objects.equals(getDisruptionBudget(), that.getDisruptionBudget()) &&
+               Objects.equals(getPerformanceProfile(), that.getPerformanceProfile()) &&
+               Objects.equals(getDedicatedNodePool(), that.getDedicatedNodePool()) &&
+               Objects.equals(getJvm(), that.getJvm()) &&
+               Objects.equals(getStartupProbe(), that.getStartupProbe()) &&
+               Objects.equals(getShutdown(), that.getShutdown()) &&
+               Objects.equals(getReloadStrategy(), that.getReloadStrategy()) &&
+               Objects.equals(getImmutableConfig(), that.getImmutableConfig()) &&
+               Objects.equals(getSharedConfig(), that.getSharedConfig()) &&
+               Objects.equals(getConfigData(), that.getConfigData()) &&
+               Objects.equals(getSecretData(), that.getSecretData()) &&
+               Objects.equals(getReconcilePriority(), that.getReconcilePriority()) &&
+               Objects.equals(getExclusiveCpus(), that.getExclusiveCpus());
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(getEnabled(), getLabels(), getVolMount(), getReplicas(), getImage(), getContainerPort(), 
                             getResources(), getLivenessProbe(), getReadinessProbe(), getRbacEnabled(), getSecretEnabled(), 
-                            getConfigMapEnabled(), getIngressEnabled(), getIngress(), getServices(), getEnvironment(), getInitContainerEnabled());
+                            getConfigMapEnabled(), getIngressEnabled(), getIngress(), getServices(), getEnvironment(), getInitContainerEnabled(),
+                            getDisableMode(),
+                            getImagePrePull(),
+                            getRollout(),
+                            getReleaseStrategy(),
+                            getBlueGreen(),
+                            getCanary(),
+                            getAutoscaling(),
+                            getVerticalAutoscaling(),
+                            getMetricScaling(),
+                            getScheduling(),
+                            getDisruptionBudget(),
+                            getPerformanceProfile(),
+                            getDedicatedNodePool(),
+                            getJvm(),
+                            getStartupProbe(),
+                            getShutdown(),
+                            getReloadStrategy(),
+                            getImmutableConfig(),
+                            getSharedConfig(),
+                            getConfigData(),
+                            getSecretData(),
+                            getReconcilePriority(),
+                            getExclusiveCpus());
     }
 
     // Inner classes for nested objects 
@@ -399,6 +677,10 @@ public class PaymentHubDeploymentSpec {
         private Integer periodSeconds;
         private Integer failureThreshold;
         private Integer timeoutSeconds;
+        private String type;
+        private List<String> command;
+        private String grpcService;
+        private Integer successThreshold;
 
         public Probe() {
         }
@@ -461,6 +743,38 @@ public class PaymentHubDeploymentSpec {
             this.timeoutSeconds = timeoutSeconds;
         }
 
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public List<String> getCommand() {
+            return command;
+        }
+
+        public void setCommand(List<String> command) {
+            this.command = command;
+        }
+
+        public String getGrpcService() {
+            return grpcService;
+        }
+
+        public void setGrpcService(String grpcService) {
+            this.grpcService = grpcService;
+        }
+
+        public Integer getSuccessThreshold() {
+            return successThreshold;
+        }
+
+        public void setSuccessThreshold(Integer successThreshold) {
+            this.successThreshold = successThreshold;
+        }
+
         @Override
         public String toString() {
             return "Probe{" +
@@ -470,6 +784,10 @@ public class PaymentHubDeploymentSpec {
                     ", periodSeconds=" + periodSeconds +
                     ", failureThreshold=" + failureThreshold +
                     ", timeoutSeconds=" + timeoutSeconds +
+                    ", type='" + type + '\'' +
+                    ", command=" + command +
+                    ", grpcService='" + grpcService + '\'' +
+                    ", successThreshold=" + successThreshold +
                     '}';
         }
 
@@ -483,13 +801,18 @@ public class PaymentHubDeploymentSpec {
                    Objects.equals(getInitialDelaySeconds(), that.getInitialDelaySeconds()) &&
                    Objects.equals(getPeriodSeconds(), that.getPeriodSeconds()) &&
                    Objects.equals(getFailureThreshold(), that.getFailureThreshold()) &&
-                   Objects.equals(getTimeoutSeconds(), that.getTimeoutSeconds());
+                   Objects.equals(getTimeoutSeconds(), that.getTimeoutSeconds()) &&
+                   Objects.equals(getType(), that.getType()) &&
+                   Objects.equals(getCommand(), that.getCommand()) &&
+                   Objects.equals(getGrpcService(), that.getGrpcService()) &&
+                   Objects.equals(getSuccessThreshold(), that.getSuccessThreshold());
         }
 
         @Override
         public int hashCode() {
             return Objects.hash(getPath(), getPort(), getInitialDelaySeconds(),
-                                getPeriodSeconds(), getFailureThreshold(), getTimeoutSeconds());
+                                getPeriodSeconds(), getFailureThreshold(), getTimeoutSeconds(),
+                                getType(), getCommand(), getGrpcService(), getSuccessThreshold());
         }
     }
     
@@ -1299,4 +1622,1207 @@ public class PaymentHubDeploymentSpec {
         }
     }
 
+    public static class ImagePrePull {
+        private Boolean enabled;
+        private Integer minNodePercentage;
+        private Integer timeoutSeconds;
+        private Map<String, String> nodeSelector;
+
+        public ImagePrePull() {
+        }
+
+        public ImagePrePull(Boolean enabled, Integer minNodePercentage, Integer timeoutSeconds, Map<String, String> nodeSelector) {
+            this.enabled = enabled;
+            this.minNodePercentage = minNodePercentage;
+            this.timeoutSeconds = timeoutSeconds;
+            this.nodeSelector = nodeSelector;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMinNodePercentage() {
+            return minNodePercentage;
+        }
+
+        public void setMinNodePercentage(Integer minNodePercentage) {
+            this.minNodePercentage = minNodePercentage;
+        }
+
+        public Integer getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(Integer timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+
+        public Map<String, String> getNodeSelector() {
+            return nodeSelector;
+        }
+
+        public void setNodeSelector(Map<String, String> nodeSelector) {
+            this.nodeSelector = nodeSelector;
+        }
+
+        @Override
+        public String toString() {
+            return "ImagePrePull{" +
+                    "enabled=" + enabled +
+                    ", minNodePercentage=" + minNodePercentage +
+                    ", timeoutSeconds=" + timeoutSeconds +
+                    ", nodeSelector=" + nodeSelector +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ImagePrePull)) return false;
+            ImagePrePull that = (ImagePrePull) o;
+            return Objects.equals(enabled, that.enabled) &&
+                   Objects.equals(minNodePercentage, that.minNodePercentage) &&
+                   Objects.equals(timeoutSeconds, that.timeoutSeconds) &&
+                   Objects.equals(nodeSelector, that.nodeSelector);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enabled, minNodePercentage, timeoutSeconds, nodeSelector);
+        }
+    }
+
+    public static class Rollout {
+        private Integer progressDeadlineSeconds;
+        private Boolean autoRollback;
+        private String maxSurge;
+        private String maxUnavailable;
+        private Integer minReadySeconds;
+        private Integer revisionHistoryLimit;
+
+        public Rollout() {
+        }
+
+        public Rollout(Integer progressDeadlineSeconds, Boolean autoRollback, String maxSurge, String maxUnavailable, Integer minReadySeconds, Integer revisionHistoryLimit) {
+            this.progressDeadlineSeconds = progressDeadlineSeconds;
+            this.autoRollback = autoRollback;
+            this.maxSurge = maxSurge;
+            this.maxUnavailable = maxUnavailable;
+            this.minReadySeconds = minReadySeconds;
+            this.revisionHistoryLimit = revisionHistoryLimit;
+        }
+
+        public Integer getProgressDeadlineSeconds() {
+            return progressDeadlineSeconds;
+        }
+
+        public void setProgressDeadlineSeconds(Integer progressDeadlineSeconds) {
+            this.progressDeadlineSeconds = progressDeadlineSeconds;
+        }
+
+        public Boolean getAutoRollback() {
+            return autoRollback;
+        }
+
+        public void setAutoRollback(Boolean autoRollback) {
+            this.autoRollback = autoRollback;
+        }
+
+        public String getMaxSurge() {
+            return maxSurge;
+        }
+
+        public void setMaxSurge(String maxSurge) {
+            this.maxSurge = maxSurge;
+        }
+
+        public String getMaxUnavailable() {
+            return maxUnavailable;
+        }
+
+        public void setMaxUnavailable(String maxUnavailable) {
+            this.maxUnavailable = maxUnavailable;
+        }
+
+        public Integer getMinReadySeconds() {
+            return minReadySeconds;
+        }
+
+        public void setMinReadySeconds(Integer minReadySeconds) {
+            this.minReadySeconds = minReadySeconds;
+        }
+
+        public Integer getRevisionHistoryLimit() {
+            return revisionHistoryLimit;
+        }
+
+        public void setRevisionHistoryLimit(Integer revisionHistoryLimit) {
+            this.revisionHistoryLimit = revisionHistoryLimit;
+        }
+
+        @Override
+        public String toString() {
+            return "Rollout{" +
+                    "progressDeadlineSeconds=" + progressDeadlineSeconds +
+                    ", autoRollback=" + autoRollback +
+                    ", maxSurge='" + maxSurge + '\'' +
+                    ", maxUnavailable='" + maxUnavailable + '\'' +
+                    ", minReadySeconds=" + minReadySeconds +
+                    ", revisionHistoryLimit=" + revisionHistoryLimit +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Rollout)) return false;
+            Rollout that = (Rollout) o;
+            return Objects.equals(progressDeadlineSeconds, that.progressDeadlineSeconds) &&
+                   Objects.equals(autoRollback, that.autoRollback) &&
+                   Objects.equals(maxSurge, that.maxSurge) &&
+                   Objects.equals(maxUnavailable, that.maxUnavailable) &&
+                   Objects.equals(minReadySeconds, that.minReadySeconds) &&
+                   Objects.equals(revisionHistoryLimit, that.revisionHistoryLimit);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(progressDeadlineSeconds, autoRollback, maxSurge, maxUnavailable, minReadySeconds, revisionHistoryLimit);
+        }
+    }
+
+    public static class BlueGreen {
+        private Integer warmupSeconds;
+        private String warmupPath;
+        private Integer warmupRequests;
+        private Integer scaleDownDelaySeconds;
+
+        public BlueGreen() {
+        }
+
+        public BlueGreen(Integer warmupSeconds, String warmupPath, Integer warmupRequests, Integer scaleDownDelaySeconds) {
+            this.warmupSeconds = warmupSeconds;
+            this.warmupPath = warmupPath;
+            this.warmupRequests = warmupRequests;
+            this.scaleDownDelaySeconds = scaleDownDelaySeconds;
+        }
+
+        public Integer getWarmupSeconds() {
+            return warmupSeconds;
+        }
+
+        public void setWarmupSeconds(Integer warmupSeconds) {
+            this.warmupSeconds = warmupSeconds;
+        }
+
+        public String getWarmupPath() {
+            return warmupPath;
+        }
+
+        public void setWarmupPath(String warmupPath) {
+            this.warmupPath = warmupPath;
+        }
+
+        public Integer getWarmupRequests() {
+            return warmupRequests;
+        }
+
+        public void setWarmupRequests(Integer warmupRequests) {
+            this.warmupRequests = warmupRequests;
+        }
+
+        public Integer getScaleDownDelaySeconds() {
+            return scaleDownDelaySeconds;
+        }
+
+        public void setScaleDownDelaySeconds(Integer scaleDownDelaySeconds) {
+            this.scaleDownDelaySeconds = scaleDownDelaySeconds;
+        }
+
+        @Override
+        public String toString() {
+            return "BlueGreen{" +
+                    "warmupSeconds=" + warmupSeconds +
+                    ", warmupPath='" + warmupPath + '\'' +
+                    ", warmupRequests=" + warmupRequests +
+                    ", scaleDownDelaySeconds=" + scaleDownDelaySeconds +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BlueGreen)) return false;
+            BlueGreen that = (BlueGreen) o;
+            return Objects.equals(warmupSeconds, that.warmupSeconds) &&
+                   Objects.equals(warmupPath, that.warmupPath) &&
+                   Objects.equals(warmupRequests, that.warmupRequests) &&
+                   Objects.equals(scaleDownDelaySeconds, that.scaleDownDelaySeconds);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(warmupSeconds, warmupPath, warmupRequests, scaleDownDelaySeconds);
+        }
+    }
+
+    public static class Canary {
+        private List<Integer> steps;
+        private Integer stepIntervalSeconds;
+        private Integer replicas;
+
+        public Canary() {
+        }
+
+        public Canary(List<Integer> steps, Integer stepIntervalSeconds, Integer replicas) {
+            this.steps = steps;
+            this.stepIntervalSeconds = stepIntervalSeconds;
+            this.replicas = replicas;
+        }
+
+        public List<Integer> getSteps() {
+            return steps;
+        }
+
+        public void setSteps(List<Integer> steps) {
+            this.steps = steps;
+        }
+
+        public Integer getStepIntervalSeconds() {
+            return stepIntervalSeconds;
+        }
+
+        public void setStepIntervalSeconds(Integer stepIntervalSeconds) {
+            this.stepIntervalSeconds = stepIntervalSeconds;
+        }
+
+        public Integer getReplicas() {
+            return replicas;
+        }
+
+        public void setReplicas(Integer replicas) {
+            this.replicas = replicas;
+        }
+
+        @Override
+        public String toString() {
+            return "Canary{" +
+                    "steps=" + steps +
+                    ", stepIntervalSeconds=" + stepIntervalSeconds +
+                    ", replicas=" + replicas +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Canary)) return false;
+            Canary that = (Canary) o;
+            return Objects.equals(steps, that.steps) &&
+                   Objects.equals(stepIntervalSeconds, that.stepIntervalSeconds) &&
+                   Objects.equals(replicas, that.replicas);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(steps, stepIntervalSeconds, replicas);
+        }
+    }
+
+    public static class Autoscaling {
+        private Boolean enabled;
+        private Integer minReplicas;
+        private Integer maxReplicas;
+        private Integer targetCPUUtilizationPercentage;
+        private Integer targetMemoryUtilizationPercentage;
+        private ScalingRules scaleUp;
+        private ScalingRules scaleDown;
+
+        public Autoscaling() {
+        }
+
+        public Autoscaling(Boolean enabled, Integer minReplicas, Integer maxReplicas, Integer targetCPUUtilizationPercentage, Integer targetMemoryUtilizationPercentage, ScalingRules scaleUp, ScalingRules scaleDown) {
+            this.enabled = enabled;
+            this.minReplicas = minReplicas;
+            this.maxReplicas = maxReplicas;
+            this.targetCPUUtilizationPercentage = targetCPUUtilizationPercentage;
+            this.targetMemoryUtilizationPercentage = targetMemoryUtilizationPercentage;
+            this.scaleUp = scaleUp;
+            this.scaleDown = scaleDown;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMinReplicas() {
+            return minReplicas;
+        }
+
+        public void setMinReplicas(Integer minReplicas) {
+            this.minReplicas = minReplicas;
+        }
+
+        public Integer getMaxReplicas() {
+            return maxReplicas;
+        }
+
+        public void setMaxReplicas(Integer maxReplicas) {
+            this.maxReplicas = maxReplicas;
+        }
+
+        public Integer getTargetCPUUtilizationPercentage() {
+            return targetCPUUtilizationPercentage;
+        }
+
+        public void setTargetCPUUtilizationPercentage(Integer targetCPUUtilizationPercentage) {
+            this.targetCPUUtilizationPercentage = targetCPUUtilizationPercentage;
+        }
+
+        public Integer getTargetMemoryUtilizationPercentage() {
+            return targetMemoryUtilizationPercentage;
+        }
+
+        public void setTargetMemoryUtilizationPercentage(Integer targetMemoryUtilizationPercentage) {
+            this.targetMemoryUtilizationPercentage = targetMemoryUtilizationPercentage;
+        }
+
+        public ScalingRules getScaleUp() {
+            return scaleUp;
+        }
+
+        public void setScaleUp(ScalingRules scaleUp) {
+            this.scaleUp = scaleUp;
+        }
+
+        public ScalingRules getScaleDown() {
+            return scaleDown;
+        }
+
+        public void setScaleDown(ScalingRules scaleDown) {
+            this.scaleDown = scaleDown;
+        }
+
+        @Override
+        public String toString() {
+            return "Autoscaling{" +
+                    "enabled=" + enabled +
+                    ", minReplicas=" + minReplicas +
+                    ", maxReplicas=" + maxReplicas +
+                    ", targetCPUUtilizationPercentage=" + targetCPUUtilizationPercentage +
+                    ", targetMemoryUtilizationPercentage=" + targetMemoryUtilizationPercentage +
+                    ", scaleUp=" + scaleUp +
+                    ", scaleDown=" + scaleDown +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Autoscaling)) return false;
+            Autoscaling that = (Autoscaling) o;
+            return Objects.equals(enabled, that.enabled) &&
+                   Objects.equals(minReplicas, that.minReplicas) &&
+                   Objects.equals(maxReplicas, that.maxReplicas) &&
+                   Objects.equals(targetCPUUtilizationPercentage, that.targetCPUUtilizationPercentage) &&
+                   Objects.equals(targetMemoryUtilizationPercentage, that.targetMemoryUtilizationPercentage) &&
+                   Objects.equals(scaleUp, that.scaleUp) &&
+                   Objects.equals(scaleDown, that.scaleDown);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enabled, minReplicas, maxReplicas, targetCPUUtilizationPercentage, targetMemoryUtilizationPercentage, scaleUp, scaleDown);
+        }
+    }
+
+    public static class ScalingRules {
+        private Integer stabilizationWindowSeconds;
+        private Integer maxPercent;
+        private Integer maxPods;
+        private Integer periodSeconds;
+
+        public ScalingRules() {
+        }
+
+        public ScalingRules(Integer stabilizationWindowSeconds, Integer maxPercent, Integer maxPods, Integer periodSeconds) {
+            this.stabilizationWindowSeconds = stabilizationWindowSeconds;
+            this.maxPercent = maxPercent;
+            this.maxPods = maxPods;
+            this.periodSeconds = periodSeconds;
+        }
+
+        public Integer getStabilizationWindowSeconds() {
+            return stabilizationWindowSeconds;
+        }
+
+        public void setStabilizationWindowSeconds(Integer stabilizationWindowSeconds) {
+            this.stabilizationWindowSeconds = stabilizationWindowSeconds;
+        }
+
+        public Integer getMaxPercent() {
+            return maxPercent;
+        }
+
+        public void setMaxPercent(Integer maxPercent) {
+            this.maxPercent = maxPercent;
+        }
+
+        public Integer getMaxPods() {
+            return maxPods;
+        }
+
+        public void setMaxPods(Integer maxPods) {
+            this.maxPods = maxPods;
+        }
+
+        public Integer getPeriodSeconds() {
+            return periodSeconds;
+        }
+
+        public void setPeriodSeconds(Integer periodSeconds) {
+            this.periodSeconds = periodSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return "ScalingRules{" +
+                    "stabilizationWindowSeconds=" + stabilizationWindowSeconds +
+                    ", maxPercent=" + maxPercent +
+                    ", maxPods=" + maxPods +
+                    ", periodSeconds=" + periodSeconds +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ScalingRules)) return false;
+            ScalingRules that = (ScalingRules) o;
+            return Objects.equals(stabilizationWindowSeconds, that.stabilizationWindowSeconds) &&
+                   Objects.equals(maxPercent, that.maxPercent) &&
+                   Objects.equals(maxPods, that.maxPods) &&
+                   Objects.equals(periodSeconds, that.periodSeconds);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(stabilizationWindowSeconds, maxPercent, maxPods, periodSeconds);
+        }
+    }
+
+    public static class VerticalAutoscaling {
+        private Boolean enabled;
+        private String updateMode;
+        private ResourceDetails minAllowed;
+        private ResourceDetails maxAllowed;
+
+        public VerticalAutoscaling() {
+        }
+
+        public VerticalAutoscaling(Boolean enabled, String updateMode, ResourceDetails minAllowed, ResourceDetails maxAllowed) {
+            this.enabled = enabled;
+            this.updateMode = updateMode;
+            this.minAllowed = minAllowed;
+            this.maxAllowed = maxAllowed;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getUpdateMode() {
+            return updateMode;
+        }
+
+        public void setUpdateMode(String updateMode) {
+            this.updateMode = updateMode;
+        }
+
+        public ResourceDetails getMinAllowed() {
+            return minAllowed;
+        }
+
+        public void setMinAllowed(ResourceDetails minAllowed) {
+            this.minAllowed = minAllowed;
+        }
+
+        public ResourceDetails getMaxAllowed() {
+            return maxAllowed;
+        }
+
+        public void setMaxAllowed(ResourceDetails maxAllowed) {
+            this.maxAllowed = maxAllowed;
+        }
+
+        @Override
+        public String toString() {
+            return "VerticalAutoscaling{" +
+                    "enabled=" + enabled +
+                    ", updateMode='" + updateMode + '\'' +
+                    ", minAllowed=" + minAllowed +
+                    ", maxAllowed=" + maxAllowed +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof VerticalAutoscaling)) return false;
+            VerticalAutoscaling that = (VerticalAutoscaling) o;
+            return Objects.equals(enabled, that.enabled) &&
+                   Objects.equals(updateMode, that.updateMode) &&
+                   Objects.equals(minAllowed, that.minAllowed) &&
+                   Objects.equals(maxAllowed, that.maxAllowed);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enabled, updateMode, minAllowed, maxAllowed);
+        }
+    }
+
+    public static class MetricScaling {
+        private Boolean enabled;
+        private Integer port;
+        private String path;
+        private String query;
+        private Double targetValue;
+        private Integer minReplicas;
+        private Integer maxReplicas;
+        private Integer scrapeIntervalSeconds;
+        private Integer scaleUpStabilizationSeconds;
+        private Integer scaleDownStabilizationSeconds;
+        private Integer cooldownSeconds;
+
+        public MetricScaling() {
+        }
+
+        public MetricScaling(Boolean enabled, Integer port, String path, String query, Double targetValue, Integer minReplicas, Integer maxReplicas, Integer scrapeIntervalSeconds, Integer scaleUpStabilizationSeconds, Integer scaleDownStabilizationSeconds, Integer cooldownSeconds) {
+            this.enabled = enabled;
+            this.port = port;
+            this.path = path;
+            this.query = query;
+            this.targetValue = targetValue;
+            this.minReplicas = minReplicas;
+            this.maxReplicas = maxReplicas;
+            this.scrapeIntervalSeconds = scrapeIntervalSeconds;
+            this.scaleUpStabilizationSeconds = scaleUpStabilizationSeconds;
+            this.scaleDownStabilizationSeconds = scaleDownStabilizationSeconds;
+            this.cooldownSeconds = cooldownSeconds;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getPort() {
+            return port;
+        }
+
+        public void setPort(Integer port) {
+            this.port = port;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public void setQuery(String query) {
+            this.query = query;
+        }
+
+        public Double getTargetValue() {
+            return targetValue;
+        }
+
+        public void setTargetValue(Double targetValue) {
+            this.targetValue = targetValue;
+        }
+
+        public Integer getMinReplicas() {
+            return minReplicas;
+        }
+
+        public void setMinReplicas(Integer minReplicas) {
+            this.minReplicas = minReplicas;
+        }
+
+        public Integer getMaxReplicas() {
+            return maxReplicas;
+        }
+
+        public void setMaxReplicas(Integer maxReplicas) {
+            this.maxReplicas = maxReplicas;
+        }
+
+        public Integer getScrapeIntervalSeconds() {
+            return scrapeIntervalSeconds;
+        }
+
+        public void setScrapeIntervalSeconds(Integer scrapeIntervalSeconds) {
+            this.scrapeIntervalSeconds = scrapeIntervalSeconds;
+        }
+
+        public Integer getScaleUpStabilizationSeconds() {
+            return scaleUpStabilizationSeconds;
+        }
+
+        public void setScaleUpStabilizationSeconds(Integer scaleUpStabilizationSeconds) {
+            this.scaleUpStabilizationSeconds = scaleUpStabilizationSeconds;
+        }
+
+        public Integer getScaleDownStabilizationSeconds() {
+            return scaleDownStabilizationSeconds;
+        }
+
+        public void setScaleDownStabilizationSeconds(Integer scaleDownStabilizationSeconds) {
+            this.scaleDownStabilizationSeconds = scaleDownStabilizationSeconds;
+        }
+
+        public Integer getCooldownSeconds() {
+            return cooldownSeconds;
+        }
+
+        public void setCooldownSeconds(Integer cooldownSeconds) {
+            this.cooldownSeconds = cooldownSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return "MetricScaling{" +
+                    "enabled=" + enabled +
+                    ", port=" + port +
+                    ", path='" + path + '\'' +
+                    ", query='" + query + '\'' +
+                    ", targetValue=" + targetValue +
+                    ", minReplicas=" + minReplicas +
+                    ", maxReplicas=" + maxReplicas +
+                    ", scrapeIntervalSeconds=" + scrapeIntervalSeconds +
+                    ", scaleUpStabilizationSeconds=" + scaleUpStabilizationSeconds +
+                    ", scaleDownStabilizationSeconds=" + scaleDownStabilizationSeconds +
+                    ", cooldownSeconds=" + cooldownSeconds +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MetricScaling)) return false;
+            MetricScaling that = (MetricScaling) o;
+            return Objects.equals(enabled, that.enabled) &&
+                   Objects.equals(port, that.port) &&
+                   Objects.equals(path, that.path) &&
+                   Objects.equals(query, that.query) &&
+                   Objects.equals(targetValue, that.targetValue) &&
+                   Objects.equals(minReplicas, that.minReplicas) &&
+                   Objects.equals(maxReplicas, that.maxReplicas) &&
+                   Objects.equals(scrapeIntervalSeconds, that.scrapeIntervalSeconds) &&
+                   Objects.equals(scaleUpStabilizationSeconds, that.scaleUpStabilizationSeconds) &&
+                   Objects.equals(scaleDownStabilizationSeconds, that.scaleDownStabilizationSeconds) &&
+                   Objects.equals(cooldownSeconds, that.cooldownSeconds);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enabled, port, path, query, targetValue, minReplicas, maxReplicas, scrapeIntervalSeconds, scaleUpStabilizationSeconds, scaleDownStabilizationSeconds, cooldownSeconds);
+        }
+    }
+
+    public static class Scheduling {
+        private Map<String, String> nodeSelector;
+        private Affinity affinity;
+        private List<TopologySpreadConstraint> topologySpreadConstraints;
+        private String podAntiAffinity;
+        private String antiAffinityTopologyKey;
+
+        public Scheduling() {
+        }
+
+        public Scheduling(Map<String, String> nodeSelector, Affinity affinity, List<TopologySpreadConstraint> topologySpreadConstraints, String podAntiAffinity, String antiAffinityTopologyKey) {
+            this.nodeSelector = nodeSelector;
+            this.affinity = affinity;
+            this.topologySpreadConstraints = topologySpreadConstraints;
+            this.podAntiAffinity = podAntiAffinity;
+            this.antiAffinityTopologyKey = antiAffinityTopologyKey;
+        }
+
+        public Map<String, String> getNodeSelector() {
+            return nodeSelector;
+        }
+
+        public void setNodeSelector(Map<String, String> nodeSelector) {
+            this.nodeSelector = nodeSelector;
+        }
+
+        public Affinity getAffinity() {
+            return affinity;
+        }
+
+        public void setAffinity(Affinity affinity) {
+            this.affinity = affinity;
+        }
+
+        public List<TopologySpreadConstraint> getTopologySpreadConstraints() {
+            return topologySpreadConstraints;
+        }
+
+        public void setTopologySpreadConstraints(List<TopologySpreadConstraint> topologySpreadConstraints) {
+            this.topologySpreadConstraints = topologySpreadConstraints;
+        }
+
+        public String getPodAntiAffinity() {
+            return podAntiAffinity;
+        }
+
+        public void setPodAntiAffinity(String podAntiAffinity) {
+            this.podAntiAffinity = podAntiAffinity;
+        }
+
+        public String getAntiAffinityTopologyKey() {
+            return antiAffinityTopologyKey;
+        }
+
+        public void setAntiAffinityTopologyKey(String antiAffinityTopologyKey) {
+            this.antiAffinityTopologyKey = antiAffinityTopologyKey;
+        }
+
+        @Override
+        public String toString() {
+            return "Scheduling{" +
+                    "nodeSelector=" + nodeSelector +
+                    ", affinity=" + affinity +
+                    ", topologySpreadConstraints=" + topologySpreadConstraints +
+                    ", podAntiAffinity='" + podAntiAffinity + '\'' +
+                    ", antiAffinityTopologyKey='" + antiAffinityTopologyKey + '\'' +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Scheduling)) return false;
+            Scheduling that = (Scheduling) o;
+            return Objects.equals(nodeSelector, that.nodeSelector) &&
+                   Objects.equals(affinity, that.affinity) &&
+                   Objects.equals(topologySpreadConstraints, that.topologySpreadConstraints) &&
+                   Objects.equals(podAntiAffinity, that.podAntiAffinity) &&
+                   Objects.equals(antiAffinityTopologyKey, that.antiAffinityTopologyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(nodeSelector, affinity, topologySpreadConstraints, podAntiAffinity, antiAffinityTopologyKey);
+        }
+    }
+
+    public static class DisruptionBudget {
+        private Boolean enabled;
+        private String minAvailable;
+        private String maxUnavailable;
+
+        public DisruptionBudget() {
+        }
+
+        public DisruptionBudget(Boolean enabled, String minAvailable, String maxUnavailable) {
+            this.enabled = enabled;
+            this.minAvailable = minAvailable;
+            this.maxUnavailable = maxUnavailable;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getMinAvailable() {
+            return minAvailable;
+        }
+
+        public void setMinAvailable(String minAvailable) {
+            this.minAvailable = minAvailable;
+        }
+
+        public String getMaxUnavailable() {
+            return maxUnavailable;
+        }
+
+        public void setMaxUnavailable(String maxUnavailable) {
+            this.maxUnavailable = maxUnavailable;
+        }
+
+        @Override
+        public String toString() {
+            return "DisruptionBudget{" +
+                    "enabled=" + enabled +
+                    ", minAvailable='" + minAvailable + '\'' +
+                    ", maxUnavailable='" + maxUnavailable + '\'' +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DisruptionBudget)) return false;
+            DisruptionBudget that = (DisruptionBudget) o;
+            return Objects.equals(enabled, that.enabled) &&
+                   Objects.equals(minAvailable, that.minAvailable) &&
+                   Objects.equals(maxUnavailable, that.maxUnavailable);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enabled, minAvailable, maxUnavailable);
+        }
+    }
+
+    public static class Jvm {
+        private Boolean enabled;
+        private Integer maxRamPercentage;
+        private String maxHeapSize;
+        private String gc;
+        private String cdsArchive;
+        private Boolean gcLogging;
+        private String extraOptions;
+
+        public Jvm() {
+        }
+
+        public Jvm(Boolean enabled, Integer maxRamPercentage, String maxHeapSize, String gc, String cdsArchive, Boolean gcLogging, String extraOptions) {
+            this.enabled = enabled;
+            this.maxRamPercentage = maxRamPercentage;
+            this.maxHeapSize = maxHeapSize;
+            this.gc = gc;
+            this.cdsArchive = cdsArchive;
+            this.gcLogging = gcLogging;
+            this.extraOptions = extraOptions;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMaxRamPercentage() {
+            return maxRamPercentage;
+        }
+
+        public void setMaxRamPercentage(Integer maxRamPercentage) {
+            this.maxRamPercentage = maxRamPercentage;
+        }
+
+        public String getMaxHeapSize() {
+            return maxHeapSize;
+        }
+
+        public void setMaxHeapSize(String maxHeapSize) {
+            this.maxHeapSize = maxHeapSize;
+        }
+
+        public String getGc() {
+            return gc;
+        }
+
+        public void setGc(String gc) {
+            this.gc = gc;
+        }
+
+        public String getCdsArchive() {
+            return cdsArchive;
+        }
+
+        public void setCdsArchive(String cdsArchive) {
+            this.cdsArchive = cdsArchive;
+        }
+
+        public Boolean getGcLogging() {
+            return gcLogging;
+        }
+
+        public void setGcLogging(Boolean gcLogging) {
+            this.gcLogging = gcLogging;
+        }
+
+        public String getExtraOptions() {
+            return extraOptions;
+        }
+
+        public void setExtraOptions(String extraOptions) {
+            this.extraOptions = extraOptions;
+        }
+
+        @Override
+        public String toString() {
+            return "Jvm{" +
+                    "enabled=" + enabled +
+                    ", maxRamPercentage=" + maxRamPercentage +
+                    ", maxHeapSize='" + maxHeapSize + '\'' +
+                    ", gc='" + gc + '\'' +
+                    ", cdsArchive='" + cdsArchive + '\'' +
+                    ", gcLogging=" + gcLogging +
+                    ", extraOptions='" + extraOptions + '\'' +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Jvm)) return false;
+            Jvm that = (Jvm) o;
+            return Objects.equals(enabled, that.enabled) &&
+                   Objects.equals(maxRamPercentage, that.maxRamPercentage) &&
+                   Objects.equals(maxHeapSize, that.maxHeapSize) &&
+                   Objects.equals(gc, that.gc) &&
+                   Objects.equals(cdsArchive, that.cdsArchive) &&
+                   Objects.equals(gcLogging, that.gcLogging) &&
+                   Objects.equals(extraOptions, that.extraOptions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enabled, maxRamPercentage, maxHeapSize, gc, cdsArchive, gcLogging, extraOptions);
+        }
+    }
+
+    public static class Shutdown {
+        private Boolean enabled;
+        private Integer preStopDelaySeconds;
+        private Boolean nativeSleep;
+        private List<String> preStopCommand;
+        private Integer terminationGracePeriodSeconds;
+        private Boolean gracefulApplicationShutdown;
+        private List<String> readinessGates;
+
+        public Shutdown() {
+        }
+
+        public Shutdown(Boolean enabled, Integer preStopDelaySeconds, Boolean nativeSleep, List<String> preStopCommand, Integer terminationGracePeriodSeconds, Boolean gracefulApplicationShutdown, List<String> readinessGates) {
+            this.enabled = enabled;
+            this.preStopDelaySeconds = preStopDelaySeconds;
+            this.nativeSleep = nativeSleep;
+            this.preStopCommand = preStopCommand;
+            this.terminationGracePeriodSeconds = terminationGracePeriodSeconds;
+            this.gracefulApplicationShutdown = gracefulApplicationShutdown;
+            this.readinessGates = readinessGates;
+        }
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getPreStopDelaySeconds() {
+            return preStopDelaySeconds;
+        }
+
+        public void setPreStopDelaySeconds(Integer preStopDelaySeconds) {
+            this.preStopDelaySeconds = preStopDelaySeconds;
+        }
+
+        public Boolean getNativeSleep() {
+            return nativeSleep;
+        }
+
+        public void setNativeSleep(Boolean nativeSleep) {
+            this.nativeSleep = nativeSleep;
+        }
+
+        public List<String> getPreStopCommand() {
+            return preStopCommand;
+        }
+
+        public void setPreStopCommand(List<String> preStopCommand) {
+            this.preStopCommand = preStopCommand;
+        }
+
+        public Integer getTerminationGracePeriodSeconds() {
+            return terminationGracePeriodSeconds;
+        }
+
+        public void setTerminationGracePeriodSeconds(Integer terminationGracePeriodSeconds) {
+            this.terminationGracePeriodSeconds = terminationGracePeriodSeconds;
+        }
+
+        public Boolean getGracefulApplicationShutdown() {
+            return gracefulApplicationShutdown;
+        }
+
+        public void setGracefulApplicationShutdown(Boolean gracefulApplicationShutdown) {
+            this.gracefulApplicationShutdown = gracefulApplicationShutdown;
+        }
+
+        public List<String> getReadinessGates() {
+            return readinessGates;
+        }
+
+        public void setReadinessGates(List<String> readinessGates) {
+            this.readinessGates = readinessGates;
+        }
+
+        @Override
+        public String toString() {
+            return "Shutdown{" +
+                    "enabled=" + enabled +
+                    ", preStopDelaySeconds=" + preStopDelaySeconds +
+                    ", nativeSleep=" + nativeSleep +
+                    ", preStopCommand=" + preStopCommand +
+                    ", terminationGracePeriodSeconds=" + terminationGracePeriodSeconds +
+                    ", gracefulApplicationShutdown=" + gracefulApplicationShutdown +
+                    ", readinessGates=" + readinessGates +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Shutdown)) return false;
+            Shutdown that = (Shutdown) o;
+            return Objects.equals(enabled, that.enabled) &&
+                   Objects.equals(preStopDelaySeconds, that.preStopDelaySeconds) &&
+                   Objects.equals(nativeSleep, that.nativeSleep) &&
+                   Objects.equals(preStopCommand, that.preStopCommand) &&
+                   Objects.equals(terminationGracePeriodSeconds, that.terminationGracePeriodSeconds) &&
+                   Objects.equals(gracefulApplicationShutdown, that.gracefulApplicationShutdown) &&
+                   Objects.equals(readinessGates, that.readinessGates);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enabled, preStopDelaySeconds, nativeSleep, preStopCommand, terminationGracePeriodSeconds, gracefulApplicationShutdown, readinessGates);
+        }
+    }
+
+    public static class ReloadStrategy {
+        private String type;
+        private Integer port;
+        private String path;
+        private String signal;
+        private String mountPath;
+        private Integer propagationDelaySeconds;
+
+        public ReloadStrategy() {
+        }
+
+        public ReloadStrategy(String type, Integer port, String path, String signal, String mountPath, Integer propagationDelaySeconds) {
+            this.type = type;
+            this.port = port;
+            this.path = path;
+            this.signal = signal;
+            this.mountPath = mountPath;
+            this.propagationDelaySeconds = propagationDelaySeconds;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public Integer getPort() {
+            return port;
+        }
+
+        public void setPort(Integer port) {
+            this.port = port;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getSignal() {
+            return signal;
+        }
+
+        public void setSignal(String signal) {
+            this.signal = signal;
+        }
+
+        public String getMountPath() {
+            return mountPath;
+        }
+
+        public void setMountPath(String mountPath) {
+            this.mountPath = mountPath;
+        }
+
+        public Integer getPropagationDelaySeconds() {
+            return propagationDelaySeconds;
+        }
+
+        public void setPropagationDelaySeconds(Integer propagationDelaySeconds) {
+            this.propagationDelaySeconds = propagationDelaySeconds;
+        }
+
+        @Override
+        public String toString() {
+            return "ReloadStrategy{" +
+                    "type='" + type + '\'' +
+                    ", port=" + port +
+                    ", path='" + path + '\'' +
+                    ", signal='" + signal + '\'' +
+                    ", mountPath='" + mountPath + '\'' +
+                    ", propagationDelaySeconds=" + propagationDelaySeconds +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ReloadStrategy)) return false;
+            ReloadStrategy that = (ReloadStrategy) o;
+            return Objects.equals(type, that.type) &&
+                   Objects.equals(port, that.port) &&
+                   Objects.equals(path, that.path) &&
+                   Objects.equals(signal, that.signal) &&
+                   Objects.equals(mountPath, that.mountPath) &&
+                   Objects.equals(propagationDelaySeconds, that.propagationDelaySeconds);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, port, path, signal, mountPath, propagationDelaySeconds);
+        }
+    }
+
 }
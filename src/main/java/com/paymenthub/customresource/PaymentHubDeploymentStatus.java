@@ -15,6 +15,25 @@ public class PaymentHubDeploymentStatus {
     private String errorMessage;
     private String lastAppliedImage;
     private boolean ready;
+    private String phase;
+    private String message;
+    private String failedImage;
+    private String activeColor;
+    private String activeSince;
+    private String previewReadySince;
+    private Integer canaryWeight;
+    private String canaryStepStartedAt;
+    private String recommendedCpu;
+    private String recommendedMemory;
+    private String recommendationSource;
+    private String configHash;
+    private String configHashObservedAt;
+    private Integer configAcknowledgedPods;
+    private Boolean configReloaded;
+    private Long lastReconcileLagMillis;
+    private String failedCanaryHash;
+    private String configReloadError;
+    private Boolean previewWarmedUp;
 
     public PaymentHubDeploymentStatus() {
     }
@@ -58,6 +77,158 @@ public class PaymentHubDeploymentStatus {
         this.ready = ready;
     }
 
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getFailedImage() {
+        return failedImage;
+    }
+
+    public void setFailedImage(String failedImage) {
+        this.failedImage = failedImage;
+    }
+
+    public String getActiveColor() {
+        return activeColor;
+    }
+
+    public void setActiveColor(String activeColor) {
+        this.activeColor = activeColor;
+    }
+
+    public String getActiveSince() {
+        return activeSince;
+    }
+
+    public void setActiveSince(String activeSince) {
+        this.activeSince = activeSince;
+    }
+
+    public String getPreviewReadySince() {
+        return previewReadySince;
+    }
+
+    public void setPreviewReadySince(String previewReadySince) {
+        this.previewReadySince = previewReadySince;
+    }
+
+    public Integer getCanaryWeight() {
+        return canaryWeight;
+    }
+
+    public void setCanaryWeight(Integer canaryWeight) {
+        this.canaryWeight = canaryWeight;
+    }
+
+    public String getCanaryStepStartedAt() {
+        return canaryStepStartedAt;
+    }
+
+    public void setCanaryStepStartedAt(String canaryStepStartedAt) {
+        this.canaryStepStartedAt = canaryStepStartedAt;
+    }
+
+    public String getRecommendedCpu() {
+        return recommendedCpu;
+    }
+
+    public void setRecommendedCpu(String recommendedCpu) {
+        this.recommendedCpu = recommendedCpu;
+    }
+
+    public String getRecommendedMemory() {
+        return recommendedMemory;
+    }
+
+    public void setRecommendedMemory(String recommendedMemory) {
+        this.recommendedMemory = recommendedMemory;
+    }
+
+    public String getRecommendationSource() {
+        return recommendationSource;
+    }
+
+    public void setRecommendationSource(String recommendationSource) {
+        this.recommendationSource = recommendationSource;
+    }
+
+    public String getConfigHash() {
+        return configHash;
+    }
+
+    public void setConfigHash(String configHash) {
+        this.configHash = configHash;
+    }
+
+    public String getConfigHashObservedAt() {
+        return configHashObservedAt;
+    }
+
+    public void setConfigHashObservedAt(String configHashObservedAt) {
+        this.configHashObservedAt = configHashObservedAt;
+    }
+
+    public Integer getConfigAcknowledgedPods() {
+        return configAcknowledgedPods;
+    }
+
+    public void setConfigAcknowledgedPods(Integer configAcknowledgedPods) {
+        this.configAcknowledgedPods = configAcknowledgedPods;
+    }
+
+    public Boolean getConfigReloaded() {
+        return configReloaded;
+    }
+
+    public void setConfigReloaded(Boolean configReloaded) {
+        this.configReloaded = configReloaded;
+    }
+
+    public Long getLastReconcileLagMillis() {
+        return lastReconcileLagMillis;
+    }
+
+    public void setLastReconcileLagMillis(Long lastReconcileLagMillis) {
+        this.lastReconcileLagMillis = lastReconcileLagMillis;
+    }
+
+    public String getFailedCanaryHash() {
+        return failedCanaryHash;
+    }
+
+    public void setFailedCanaryHash(String failedCanaryHash) {
+        this.failedCanaryHash = failedCanaryHash;
+    }
+
+    public String getConfigReloadError() {
+        return configReloadError;
+    }
+
+    public void setConfigReloadError(String configReloadError) {
+        this.configReloadError = configReloadError;
+    }
+
+    public Boolean getPreviewWarmedUp() {
+        return previewWarmedUp;
+    }
+
+    public void setPreviewWarmedUp(Boolean previewWarmedUp) {
+        this.previewWarmedUp = previewWarmedUp;
+    }
+
     @Override
     public String toString() {
         return "PaymentHubDeploymentStatus{" +
@@ -65,6 +236,25 @@ public class PaymentHubDeploymentStatus {
                 ", errorMessage='" + errorMessage + '\'' +
                 ", lastAppliedImage='" + lastAppliedImage + '\'' +
                 ", ready=" + ready +
+                ", phase='" + phase + '\'' +
+                ", message='" + message + '\'' +
+                ", failedImage='" + failedImage + '\'' +
+                ", activeColor='" + activeColor + '\'' +
+                ", activeSince='" + activeSince + '\'' +
+                ", previewReadySince='" + previewReadySince + '\'' +
+                ", canaryWeight=" + canaryWeight +
+                ", canaryStepStartedAt='" + canaryStepStartedAt + '\'' +
+                ", recommendedCpu='" + recommendedCpu + '\'' +
+                ", recommendedMemory='" + recommendedMemory + '\'' +
+                ", recommendationSource='" + recommendationSource + '\'' +
+                ", configHash='" + configHash + '\'' +
+                ", configHashObservedAt='" + configHashObservedAt + '\'' +
+                ", configAcknowledgedPods=" + configAcknowledgedPods +
+                ", configReloaded=" + configReloaded +
+                ", lastReconcileLagMillis=" + lastReconcileLagMillis +
+                ", failedCanaryHash='" + failedCanaryHash + '\'' +
+                ", configReloadError='" + configReloadError + '\'' +
+                ", previewWarmedUp=" + previewWarmedUp +
                 '}';
     }
 
@@ -76,11 +266,30 @@ public class PaymentHubDeploymentStatus {
         return ready == that.ready &&
                Objects.equals(availableReplicas, that.availableReplicas) &&
                Objects.equals(errorMessage, that.errorMessage) &&
-               Objects.equals(lastAppliedImage, that.lastAppliedImage);
+               Objects.equals(lastAppliedImage, that.lastAppliedImage) &&
+               Objects.equals(phase, that.phase) &&
+               Objects.equals(message, that.message) &&
+               Objects.equals(failedImage, that.failedImage) &&
+               Objects.equals(activeColor, that.activeColor) &&
+               Objects.equals(activeSince, that.activeSince) &&
+               Objects.equals(previewReadySince, that.previewReadySince) &&
+               Objects.equals(canaryWeight, that.canaryWeight) &&
+               Objects.equals(canaryStepStartedAt, that.canaryStepStartedAt) &&
+               Objects.equals(recommendedCpu, that.recommendedCpu) &&
+               Objects.equals(recommendedMemory, that.recommendedMemory) &&
+               Objects.equals(recommendationSource, that.recommendationSource) &&
+               Objects.equals(configHash, that.configHash) &&
+               Objects.equals(configHashObservedAt, that.configHashObservedAt) &&
+               Objects.equals(configAcknowledgedPods, that.configAcknowledgedPods) &&
+               Objects.equals(configReloaded, that.configReloaded) &&
+               Objects.equals(lastReconcileLagMillis, that.lastReconcileLagMillis) &&
+               Objects.equals(failedCanaryHash, that.failedCanaryHash) &&
+               Objects.equals(configReloadError, that.configReloadError) &&
+               Objects.equals(previewWarmedUp, that.previewWarmedUp);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(availableReplicas, errorMessage, lastAppliedImage, ready);
+        return Objects.hash(availableReplicas, errorMessage, lastAppliedImage, ready, phase, message, failedImage, activeColor, activeSince, previewReadySince, canaryWeight, canaryStepStartedAt, recommendedCpu, recommendedMemory, recommendationSource, configHash, configHashObservedAt, configAcknowledgedPods, configReloaded, lastReconcileLagMillis, failedCanaryHash, configReloadError, previewWarmedUp);
     }
 }
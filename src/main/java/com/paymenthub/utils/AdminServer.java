@@ -0,0 +1,117 @@
+package com.paymenthub.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Small HTTP server exposing the operator's administrative endpoints.
+ *
+ * - {@code /metrics} serves the metrics collected by {@link MetricsUtil} in Prometheus text format.
+ * - {@code /healthz} answers 200 as long as the operator process is alive.
+ *
+ * Further endpoints can be registered with {@link #addHandler(String, HttpHandler)} before or after start. Requests
+ * are served one at a time, so an endpoint that streams large responses is registered with its own executor through
+ * {@link #addHandler(String, HttpHandler, Executor)} to keep {@code /metrics} and {@code /healthz} responsive.
+ */
+public class AdminServer {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminServer.class);
+    private final HttpServer server;
+
+    /**
+     * Creates the admin server bound to the given port on all interfaces.
+     *
+     * @param port The port to listen on.
+     * @throws IOException If the port cannot be bound.
+     */
+    public AdminServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admin-server");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        addHandler("/metrics", exchange -> respond(exchange, 200, "text/plain; version=0.0.4", MetricsUtil.scrape()));
+        addHandler("/healthz", exchange -> respond(exchange, 200, "text/plain", "ok"));
+    }
+
+    /**
+     * Registers a handler for the given path.
+     *
+     * @param path The context path, e.g. {@code /metrics}.
+     * @param handler The handler serving requests on that path.
+     */
+    public void addHandler(String path, HttpHandler handler) {
+        server.createContext(path, exchange -> serve(path, handler, exchange));
+    }
+
+    /**
+     * Registers a handler for the given path that runs on its own executor rather than the server's.
+     *
+     * @param path The context path, e.g. {@code /jfr/dump}.
+     * @param handler The handler serving requests on that path.
+     * @param executor The executor running the handler.
+     */
+    public void addHandler(String path, HttpHandler handler, Executor executor) {
+        server.createContext(path, exchange -> executor.execute(() -> serve(path, handler, exchange)));
+    }
+
+    private static void serve(String path, HttpHandler handler, HttpExchange exchange) {
+        try {
+            handler.handle(exchange);
+        } catch (Exception e) {
+            log.error("Admin endpoint {} failed.", path, e);
+            try {
+                respond(exchange, 500, "text/plain", "Internal error: " + e.getMessage());
+            } catch (IOException ignored) {
+                // Headers were already sent; nothing more can be reported to the caller.
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Starts serving requests.
+     */
+    public void start() {
+        server.start();
+        log.info("Admin server listening on port {}.", server.getAddress().getPort());
+    }
+
+    /**
+     * Stops the server, giving in-flight requests one second to complete.
+     */
+    public void stop() {
+        server.stop(1);
+    }
+
+    /**
+     * Writes a complete text response.
+     *
+     * @param exchange The exchange to respond to.
+     * @param status The HTTP status code.
+     * @param contentType The content type header value.
+     * @param body The response body.
+     * @throws IOException If writing the response fails.
+     */
+    public static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.autoscaling.v2.*;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Resource;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Utility class managing the HorizontalPodAutoscaler of a PaymentHubDeployment.
+ *
+ * When {@code spec.autoscaling.enabled} is set, the operator owns an {@code autoscaling/v2}
+ * HorizontalPodAutoscaler named {@code <name>-hpa} targeting the Deployment that serves traffic, and stops
+ * managing the replica count of that Deployment, see {@link DeploymentUtils#isReplicaCountManaged}.
+ */
+public class AutoscalingUtils {
+
+    private static final int DEFAULT_MIN_REPLICAS = 1;
+    private static final int DEFAULT_TARGET_CPU_UTILIZATION = 80;
+    // Scaling behavior the API server fills in for a direction without rules, see the HorizontalPodAutoscaler docs
+    private static final int DEFAULT_SCALE_UP_STABILIZATION_SECONDS = 0;
+    private static final int DEFAULT_SCALE_DOWN_STABILIZATION_SECONDS = 300;
+
+    private final KubernetesClient kubernetesClient;
+    private static final Logger log = LoggerFactory.getLogger(AutoscalingUtils.class);
+
+    public AutoscalingUtils(KubernetesClient kubernetesClient) {
+        this.kubernetesClient = kubernetesClient;
+    }
+
+    /**
+     * Returns the name of the HorizontalPodAutoscaler of the given custom resource.
+     *
+     * @param resource The custom resource.
+     * @return The HorizontalPodAutoscaler name.
+     */
+    public static String getHorizontalPodAutoscalerName(PaymentHubDeployment resource) {
+        return resource.getMetadata().getName() + "-hpa";
+    }
+
+    /**
+     * Tells whether horizontal autoscaling is enabled for the custom resource.
+     *
+     * @param resource The custom resource.
+     * @return true if {@code spec.autoscaling.enabled} is set.
+     */
+    public static boolean isHorizontalAutoscalingEnabled(PaymentHubDeployment resource) {
+        return resource.getSpec().getAutoscaling() != null && Boolean.TRUE.equals(resource.getSpec().getAutoscaling().getEnabled());
+    }
+
+    /**
+     * Returns the replica count a new Deployment starts with when its replicas are managed by an autoscaler.
+     *
+     * @param resource The custom resource.
+     * @return The minimum replica count of the autoscaler, or {@code spec.replicas} if that is higher.
+     */
+    public static Integer getInitialReplicas(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.Autoscaling autoscaling = resource.getSpec().getAutoscaling();
+        int minReplicas = autoscaling != null && autoscaling.getMinReplicas() != null ? autoscaling.getMinReplicas() : DEFAULT_MIN_REPLICAS;
+        Integer replicas = resource.getSpec().getReplicas();
+        return replicas != null && replicas > minReplicas ? replicas : minReplicas;
+    }
+
+    /**
+     * Reconciles the HorizontalPodAutoscaler for the given custom resource.
+     *
+     * @param resource The custom resource specifying the autoscaling configuration.
+     */
+    public void reconcileHorizontalPodAutoscaler(PaymentHubDeployment resource) {
+        String hpaName = getHorizontalPodAutoscalerName(resource);
+        HorizontalPodAutoscaler desired = createHorizontalPodAutoscaler(resource, hpaName);
+        log.debug("Desired HorizontalPodAutoscaler spec: {}", desired);
+
+        Resource<HorizontalPodAutoscaler> hpaResource = kubernetesClient.autoscaling().v2().horizontalPodAutoscalers()
+                .inNamespace(resource.getMetadata().getNamespace())
+                .withName(hpaName);
+
+        HorizontalPodAutoscaler existing = hpaResource.get();
+        if (existing == null) {
+            hpaResource.create(desired);
+            log.info("Created new HorizontalPodAutoscaler: {}", hpaName);
+        } else if (!isSameSpec(existing.getSpec(), desired.getSpec())) {
+            hpaResource.patch(desired);
+            log.info("Updated existing HorizontalPodAutoscaler: {}", hpaName);
+        } else {
+            log.debug("HorizontalPodAutoscaler is up-to-date: {}", hpaName);
+        }
+    }
+
+    /**
+     * Compares the fields of a HorizontalPodAutoscaler spec the operator sets, so that fields added by the API
+     * server or by newer API versions do not cause an update on every reconciliation. The desired behavior spells
+     * out the server defaults, so it is compared as a whole.
+     */
+    private static boolean isSameSpec(HorizontalPodAutoscalerSpec existing, HorizontalPodAutoscalerSpec desired) {
+        if (existing == null) {
+            return false;
+        }
+        CrossVersionObjectReference existingTarget = existing.getScaleTargetRef();
+        CrossVersionObjectReference desiredTarget = desired.getScaleTargetRef();
+        return existingTarget != null
+                && Objects.equals(existingTarget.getApiVersion(), desiredTarget.getApiVersion())
+                && Objects.equals(existingTarget.getKind(), desiredTarget.getKind())
+                && Objects.equals(existingTarget.getName(), desiredTarget.getName())
+                && Objects.equals(existing.getMinReplicas(), desired.getMinReplicas())
+                && Objects.equals(existing.getMaxReplicas(), desired.getMaxReplicas())
+                && Objects.equals(existing.getMetrics(), desired.getMetrics())
+                && Objects.equals(existing.getBehavior(), desired.getBehavior());
+    }
+
+    /**
+     * Deletes the HorizontalPodAutoscaler of the given custom resource, if it exists.
+     *
+     * @param resource The custom resource.
+     */
+    public void deleteHorizontalPodAutoscaler(PaymentHubDeployment resource) {
+        String hpaName = getHorizontalPodAutoscalerName(resource);
+        Resource<HorizontalPodAutoscaler> hpaResource = kubernetesClient.autoscaling().v2().horizontalPodAutoscalers()
+                .inNamespace(resource.getMetadata().getNamespace())
+                .withName(hpaName);
+        if (hpaResource.get() != null) {
+            hpaResource.delete();
+            log.info("Deleted HorizontalPodAutoscaler: {}", hpaName);
+        }
+    }
+
+    /**
+     * Creates the HorizontalPodAutoscaler object based on the custom resource specifications.
+     *
+     * @param resource The custom resource specifying the autoscaling configuration.
+     * @param hpaName The name of the HorizontalPodAutoscaler.
+     * @return The HorizontalPodAutoscaler object.
+     */
+    private HorizontalPodAutoscaler createHorizontalPodAutoscaler(PaymentHubDeployment resource, String hpaName) {
+        PaymentHubDeploymentSpec.Autoscaling autoscaling = resource.getSpec().getAutoscaling();
+        int minReplicas = autoscaling.getMinReplicas() != null ? autoscaling.getMinReplicas() : DEFAULT_MIN_REPLICAS;
+        int maxReplicas = autoscaling.getMaxReplicas() != null ? autoscaling.getMaxReplicas() : Math.max(minReplicas, getInitialReplicas(resource));
+
+        List<MetricSpec> metrics = new ArrayList<>();
+        if (autoscaling.getTargetCPUUtilizationPercentage() != null || autoscaling.getTargetMemoryUtilizationPercentage() == null) {
+            metrics.add(createResourceMetric("cpu", autoscaling.getTargetCPUUtilizationPercentage() != null
+                    ? autoscaling.getTargetCPUUtilizationPercentage() : DEFAULT_TARGET_CPU_UTILIZATION));
+        }
+        if (autoscaling.getTargetMemoryUtilizationPercentage() != null) {
+            metrics.add(createResourceMetric("memory", autoscaling.getTargetMemoryUtilizationPercentage()));
+        }
+
+        Map<String, String> labels = new HashMap<>();
+        labels.put("app", resource.getMetadata().getName());
+        labels.put("app.kubernetes.io/managed-by", "ph-ee-operator");
+
+        HorizontalPodAutoscalerBehavior behavior = new HorizontalPodAutoscalerBehaviorBuilder()
+                .withScaleUp(createScalingRules(autoscaling.getScaleUp(), true))
+                .withScaleDown(createScalingRules(autoscaling.getScaleDown(), false))
+                .build();
+
+        return new HorizontalPodAutoscalerBuilder()
+                .withNewMetadata()
+                    .withName(hpaName)
+                    .withNamespace(resource.getMetadata().getNamespace())
+                    .withLabels(labels)
+                    .withOwnerReferences(OwnerReferenceUtils.createOwnerReferences(resource))
+                .endMetadata()
+                .withNewSpec()
+                    .withNewScaleTargetRef()
+                        .withApiVersion("apps/v1")
+                        .withKind("Deployment")
+                        .withName(BlueGreenUtils.getActiveDeploymentName(resource))
+                    .endScaleTargetRef()
+                    .withMinReplicas(minReplicas)
+                    .withMaxReplicas(maxReplicas)
+                    .withMetrics(metrics)
+                    .withBehavior(behavior)
+                .endSpec()
+                .build();
+    }
+
+    private static MetricSpec createResourceMetric(String name, int averageUtilization) {
+        return new MetricSpecBuilder()
+                .withType("Resource")
+                .withNewResource()
+                    .withName(name)
+                    .withNewTarget()
+                        .withType("Utilization")
+                        .withAverageUtilization(averageUtilization)
+                    .endTarget()
+                .endResource()
+                .build();
+    }
+
+    /**
+     * Translates the scaling rules of the spec into HPA scaling rules. Limits given both in pods and in percent
+     * are combined with the "Max" select policy, i.e. the larger change is allowed. What the spec leaves out is
+     * filled with the defaults of the API server, so that the rules compare equal to the stored ones.
+     */
+    private static HPAScalingRules createScalingRules(PaymentHubDeploymentSpec.ScalingRules rules, boolean scaleUp) {
+        Integer stabilizationWindowSeconds = rules != null ? rules.getStabilizationWindowSeconds() : null;
+        List<HPAScalingPolicy> policies = new ArrayList<>();
+        if (rules != null) {
+            int periodSeconds = rules.getPeriodSeconds() != null ? rules.getPeriodSeconds() : 60;
+            if (rules.getMaxPercent() != null) {
+                policies.add(new HPAScalingPolicy(periodSeconds, "Percent", rules.getMaxPercent()));
+            }
+            if (rules.getMaxPods() != null) {
+                policies.add(new HPAScalingPolicy(periodSeconds, "Pods", rules.getMaxPods()));
+            }
+        }
+        if (policies.isEmpty()) {
+            // Scale up by 100% or 4 pods, scale down by 100%, every 15 seconds
+            policies.add(new HPAScalingPolicy(15, "Percent", 100));
+            if (scaleUp) {
+                policies.add(new HPAScalingPolicy(15, "Pods", 4));
+            }
+        }
+        return new HPAScalingRulesBuilder()
+                .withStabilizationWindowSeconds(stabilizationWindowSeconds != null ? stabilizationWindowSeconds
+                        : scaleUp ? DEFAULT_SCALE_UP_STABILIZATION_SECONDS : DEFAULT_SCALE_DOWN_STABILIZATION_SECONDS)
+                .withPolicies(policies)
+                .withSelectPolicy("Max")
+                .build();
+    }
+}
@@ -0,0 +1,453 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentList;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.RollableScalableResource;
+
+import io.javaoperatorsdk.operator.api.reconciler.UpdateControl;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+import com.paymenthub.customresource.PaymentHubDeploymentStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Utility class running blue/green releases for a PaymentHubDeployment.
+ *
+ * With {@code spec.releaseStrategy: blueGreen} the operator keeps two Deployments, {@code <name>-blue} and
+ * {@code <name>-green}, whose pods carry the {@link #COLOR_LABEL} label. The Services select the active color
+ * only. A spec change is rolled out to the idle color at full replica count while the active color keeps
+ * serving; once the idle color is completely available (and optionally warmed up) the Service selectors are
+ * switched to it and the previous color is scaled down after a grace period. The active color is kept in
+ * {@code status.activeColor}.
+ *
+ * Before the first release the pods of the existing single Deployment are labelled with the {@value #LEGACY}
+ * color, which rolls them once, and the Services are pinned to that color. The blue pods, which carry the app
+ * label as well, therefore only receive traffic once the selectors are switched to blue.
+ */
+public class BlueGreenUtils {
+
+    public static final String COLOR_LABEL = "gazelle.mifos.io/color";
+    public static final String BLUE = "blue";
+    public static final String GREEN = "green";
+    // The color of the single Deployment of a rolling release while the first blue/green release is prepared
+    public static final String LEGACY = "legacy";
+    public static final List<String> COLORS = Arrays.asList(BLUE, GREEN);
+
+    private static final int DEFAULT_WARMUP_REQUESTS = 10;
+    private static final int DEFAULT_SCALE_DOWN_DELAY_SECONDS = 300;
+    private static final int WARMUP_TIMEOUT_MILLIS = 2000;
+    private static final int WARMUP_THREADS = 2;
+
+    private static final ExecutorService warmupExecutor = Executors.newFixedThreadPool(WARMUP_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "blue-green-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final KubernetesClient kubernetesClient;
+    private final NetworkingUtils networkingUtils;
+    // Warm-up requests sent in the background, by namespace, name and color
+    private final Map<String, Warmup> warmups = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(BlueGreenUtils.class);
+
+    public BlueGreenUtils(KubernetesClient kubernetesClient) {
+        this.kubernetesClient = kubernetesClient;
+        this.networkingUtils = new NetworkingUtils(kubernetesClient);
+    }
+
+    /**
+     * Tells whether the custom resource is released with the blue/green strategy.
+     *
+     * @param resource The custom resource.
+     * @return true for {@code spec.releaseStrategy: blueGreen}.
+     */
+    public static boolean isBlueGreen(PaymentHubDeployment resource) {
+        return "blueGreen".equals(resource.getSpec().getReleaseStrategy());
+    }
+
+    /**
+     * Returns the name of the Deployment of the given color.
+     *
+     * @param resource The custom resource.
+     * @param color The color.
+     * @return The Deployment name.
+     */
+    public static String getDeploymentName(PaymentHubDeployment resource, String color) {
+        return resource.getMetadata().getName() + "-" + color;
+    }
+
+    /**
+     * Returns the name of the Deployment currently serving traffic: the active color's Deployment, or the
+     * single Deployment named after the resource if no color is active.
+     *
+     * @param resource The custom resource.
+     * @return The Deployment name.
+     */
+    public static String getActiveDeploymentName(PaymentHubDeployment resource) {
+        String activeColor = resource.getStatus() != null ? resource.getStatus().getActiveColor() : null;
+        return activeColor != null && !LEGACY.equals(activeColor) ? getDeploymentName(resource, activeColor) : resource.getMetadata().getName();
+    }
+
+    /**
+     * Reconciles the blue/green Deployments of the given custom resource.
+     *
+     * @param resource The custom resource.
+     * @param image The container image to deploy.
+     * @param recheckAfter The delay after which the resource is checked again while a release is in progress.
+     * @return The status update for the current release state.
+     */
+    public UpdateControl<PaymentHubDeployment> reconcileBlueGreen(PaymentHubDeployment resource, String image, Duration recheckAfter) {
+        PaymentHubDeploymentStatus status = resource.getStatus();
+        if (status == null) {
+            status = new PaymentHubDeploymentStatus();
+            resource.setStatus(status);
+        }
+
+        String activeColor = status.getActiveColor();
+        if (activeColor == null) {
+            // First blue/green release: keep the traffic on whatever serves today before blue comes up
+            UpdateControl<PaymentHubDeployment> pinning = pinLegacyTraffic(resource, recheckAfter);
+            if (pinning != null) {
+                return pinning;
+            }
+            activeColor = LEGACY;
+        }
+        if (LEGACY.equals(activeColor)) {
+            return releaseColor(resource, BLUE, image, recheckAfter);
+        }
+
+        Deployment desired = createColorDeployment(resource, activeColor, image);
+        Resource<Deployment> activeResource = deployments(resource).withName(getDeploymentName(resource, activeColor));
+        Deployment active = activeResource.get();
+        if (active == null || !DeploymentUtils.isSameTemplate(active, desired)) {
+            return releaseColor(resource, other(activeColor), image, recheckAfter);
+        }
+
+        // The active color already runs the desired pods; keep it in sync and tidy up the idle one
+        DeploymentUtils.preserveReplicas(resource, desired, active);
+        Deployment applied = activeResource.replace(desired);
+        status.setPreviewReadySince(null);
+        status.setPreviewWarmedUp(null);
+        Duration scaleDownIn = scaleDownIdle(resource, other(activeColor));
+
+        UpdateControl<PaymentHubDeployment> control = StatusUpdateUtil.updateStatus(kubernetesClient, resource,
+                RolloutUtils.getAvailableReplicas(applied), image, true, RolloutUtils.describeCompletedRollout(resource, image));
+        return scaleDownIn != null ? control.rescheduleAfter(scaleDownIn) : control;
+    }
+
+    /**
+     * Moves traffic back to the single Deployment of a rolling release and deletes the blue/green Deployments.
+     * Called once the single Deployment is available after the strategy was changed away from blue/green.
+     *
+     * @param resource The custom resource.
+     */
+    public void retireColors(PaymentHubDeployment resource) {
+        networkingUtils.switchServiceSelectors(resource, null);
+        for (String color : COLORS) {
+            Resource<Deployment> colorResource = deployments(resource).withName(getDeploymentName(resource, color));
+            if (colorResource.get() != null) {
+                colorResource.delete();
+                log.info("Deleted blue/green Deployment {}.", getDeploymentName(resource, color));
+            }
+        }
+        resource.getStatus().setActiveColor(null);
+        resource.getStatus().setActiveSince(null);
+        resource.getStatus().setPreviewReadySince(null);
+        resource.getStatus().setPreviewWarmedUp(null);
+        for (String color : COLORS) {
+            warmups.remove(getWarmupKey(resource, color));
+        }
+    }
+
+    /**
+     * Labels the pods of the single Deployment of a rolling release with the {@value #LEGACY} color and, once
+     * they all carry it, pins the Services to that color and records it as the active one.
+     *
+     * @param resource The custom resource.
+     * @param recheckAfter The delay after which the resource is checked again while the pods are relabelled.
+     * @return The status update while the pods are relabelled, or null once the Services are pinned.
+     */
+    private UpdateControl<PaymentHubDeployment> pinLegacyTraffic(PaymentHubDeployment resource, Duration recheckAfter) {
+        Resource<Deployment> legacyResource = deployments(resource).withName(resource.getMetadata().getName());
+        Deployment legacy = legacyResource.get();
+        if (legacy != null) {
+            Map<String, String> labels = legacy.getSpec().getTemplate().getMetadata().getLabels();
+            if (labels == null || !LEGACY.equals(labels.get(COLOR_LABEL))) {
+                legacy = legacyResource.edit(current -> new DeploymentBuilder(current)
+                        .editSpec()
+                            .editTemplate()
+                                .editMetadata()
+                                    .addToLabels(COLOR_LABEL, LEGACY)
+                                .endMetadata()
+                            .endTemplate()
+                        .endSpec()
+                        .build());
+                log.info("Labelled the pods of Deployment {} with color {} ahead of the first blue/green release.",
+                        resource.getMetadata().getName(), LEGACY);
+            }
+            if (RolloutUtils.getRolloutState(legacy) != RolloutUtils.RolloutState.COMPLETE) {
+                return StatusUpdateUtil.updatePendingStatus(kubernetesClient, resource, "Progressing",
+                        "Labelling the existing pods before the first blue/green release: " + RolloutUtils.describeProgress(legacy),
+                        recheckAfter);
+            }
+        }
+        networkingUtils.switchServiceSelectors(resource, LEGACY);
+        resource.getStatus().setActiveColor(LEGACY);
+        return null;
+    }
+
+    /**
+     * Rolls the desired spec out to the given color and switches traffic to it once it is available and warmed up.
+     *
+     * @param resource The custom resource.
+     * @param color The color to release to.
+     * @param image The container image to deploy.
+     * @param recheckAfter The delay after which the resource is checked again while the release is in progress.
+     * @return The status update for the current release state.
+     */
+    private UpdateControl<PaymentHubDeployment> releaseColor(PaymentHubDeployment resource, String color, String image, Duration recheckAfter) {
+        PaymentHubDeploymentStatus status = resource.getStatus();
+        String name = getDeploymentName(resource, color);
+        Deployment desired = createColorDeployment(resource, color, image);
+
+        Resource<Deployment> colorResource = deployments(resource).withName(name);
+        // The new color starts at the size the serving Deployment was scaled to
+        DeploymentUtils.preserveReplicas(resource, desired, deployments(resource).withName(getActiveDeploymentName(resource)).get());
+        Deployment applied;
+        if (colorResource.get() == null) {
+            applied = colorResource.create(desired);
+            log.info("Created blue/green Deployment {}.", name);
+        } else {
+            applied = colorResource.replace(desired);
+            log.info("Updated blue/green Deployment {}.", name);
+        }
+
+        String serving = status.getActiveColor() != null && !LEGACY.equals(status.getActiveColor())
+                ? "the " + status.getActiveColor() + " Deployment" : "the existing Deployment";
+        switch (RolloutUtils.getRolloutState(applied)) {
+            case STALLED:
+                // Traffic never reached the new color, so dropping it is the rollback
+                colorResource.scale(0);
+                status.setPreviewReadySince(null);
+                status.setPreviewWarmedUp(null);
+                return StatusUpdateUtil.updateRolloutFailedStatus(kubernetesClient, resource,
+                        RolloutUtils.getFailedImageToRecord(resource, image), true,
+                        "Rollout of image " + image + " to " + name + " stalled (" + RolloutUtils.describeStall(applied)
+                                + "), traffic stays on " + serving + ".", recheckAfter);
+            case PROGRESSING:
+                status.setPreviewReadySince(null);
+                status.setPreviewWarmedUp(null);
+                return StatusUpdateUtil.updatePendingStatus(kubernetesClient, resource, "Progressing",
+                        "Preparing " + color + ": " + RolloutUtils.describeProgress(applied), recheckAfter);
+            default:
+                break;
+        }
+
+        // Let the new pods warm up before they receive traffic
+        int warmupSeconds = getWarmupSeconds(resource);
+        if (warmupSeconds > 0) {
+            Instant readySince = parseTime(status.getPreviewReadySince());
+            if (readySince == null) {
+                readySince = Instant.now();
+                status.setPreviewReadySince(readySince.toString());
+            }
+            if (!Boolean.TRUE.equals(status.getPreviewWarmedUp()) && isWarmupDone(resource, color, status.getPreviewReadySince())) {
+                status.setPreviewWarmedUp(true);
+            }
+            Duration remaining = Duration.between(Instant.now(), readySince.plusSeconds(warmupSeconds));
+            if (!remaining.isNegative()) {
+                return StatusUpdateUtil.updatePendingStatus(kubernetesClient, resource, "WarmingUp",
+                        color + " is available, warming up for " + remaining.getSeconds() + " more seconds before switching traffic.",
+                        recheckAfter);
+            }
+            if (!Boolean.TRUE.equals(status.getPreviewWarmedUp())) {
+                return StatusUpdateUtil.updatePendingStatus(kubernetesClient, resource, "WarmingUp",
+                        color + " is available, waiting for its warm-up requests to complete before switching traffic.",
+                        recheckAfter);
+            }
+        }
+        warmups.remove(getWarmupKey(resource, color));
+
+        networkingUtils.switchServiceSelectors(resource, color);
+        log.info("Switched traffic of {} from {} to {}.", resource.getMetadata().getName(), serving, color);
+        status.setActiveColor(color);
+        status.setActiveSince(Instant.now().toString());
+        status.setPreviewReadySince(null);
+        status.setPreviewWarmedUp(null);
+
+        return StatusUpdateUtil.updateStatus(kubernetesClient, resource, RolloutUtils.getAvailableReplicas(applied), image, true,
+                RolloutUtils.describeCompletedRollout(resource, image))
+                .rescheduleAfter(Duration.ofSeconds(getScaleDownDelaySeconds(resource)));
+    }
+
+    /**
+     * Scales down the idle color, and deletes the single Deployment of an earlier rolling release, once the
+     * scale-down delay since the last traffic switch has passed.
+     *
+     * @param resource The custom resource.
+     * @param idleColor The color not receiving traffic.
+     * @return The time left until the scale-down if idle pods are still running, otherwise null.
+     */
+    private Duration scaleDownIdle(PaymentHubDeployment resource, String idleColor) {
+        Instant activeSince = parseTime(resource.getStatus().getActiveSince());
+        Duration remaining = activeSince == null ? Duration.ZERO
+                : Duration.between(Instant.now(), activeSince.plusSeconds(getScaleDownDelaySeconds(resource)));
+        boolean waiting = !remaining.isNegative() && !remaining.isZero();
+
+        Resource<Deployment> idleResource = deployments(resource).withName(getDeploymentName(resource, idleColor));
+        Deployment idle = idleResource.get();
+        boolean idleRunning = idle != null && (idle.getSpec().getReplicas() == null || idle.getSpec().getReplicas() > 0);
+
+        Resource<Deployment> legacyResource = deployments(resource).withName(resource.getMetadata().getName());
+        boolean legacyPresent = legacyResource.get() != null;
+
+        if (!idleRunning && !legacyPresent) {
+            return null;
+        }
+        if (waiting) {
+            return remaining;
+        }
+        if (idleRunning) {
+            idleResource.scale(0);
+            log.info("Scaled idle blue/green Deployment {} to zero replicas.", getDeploymentName(resource, idleColor));
+        }
+        if (legacyPresent) {
+            legacyResource.delete();
+            log.info("Deleted Deployment {} replaced by the blue/green Deployments.", resource.getMetadata().getName());
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether the warm-up requests of the preview that became ready at the given time have been sent,
+     * starting them in the background the first time the preview is seen, so that each preview is warmed up once
+     * and without holding up the reconciliation.
+     *
+     * @param resource The custom resource.
+     * @param color The color being warmed up.
+     * @param readySince The time the color became available, identifying the preview.
+     * @return true once all warm-up requests completed.
+     */
+    private boolean isWarmupDone(PaymentHubDeployment resource, String color, String readySince) {
+        String key = getWarmupKey(resource, color);
+        Warmup warmup = warmups.get(key);
+        if (warmup == null || !readySince.equals(warmup.readySince)) {
+            warmups.put(key, new Warmup(readySince, CompletableFuture.runAsync(() -> sendWarmupRequests(resource, color), warmupExecutor)));
+            return false;
+        }
+        return warmup.done.isDone();
+    }
+
+    private static String getWarmupKey(PaymentHubDeployment resource, String color) {
+        return resource.getMetadata().getNamespace() + "/" + resource.getMetadata().getName() + "/" + color;
+    }
+
+    /**
+     * Sends warm-up requests to every ready pod of the given color, so that the JVMs have loaded and compiled
+     * the request path before real traffic arrives. Failures are only logged.
+     *
+     * @param resource The custom resource.
+     * @param color The color being warmed up.
+     */
+    private void sendWarmupRequests(PaymentHubDeployment resource, String color) {
+        PaymentHubDeploymentSpec.BlueGreen blueGreen = resource.getSpec().getBlueGreen();
+        Integer port = resource.getSpec().getContainerPort();
+        if (blueGreen == null || blueGreen.getWarmupPath() == null || port == null) {
+            return;
+        }
+        int requests = blueGreen.getWarmupRequests() != null ? blueGreen.getWarmupRequests() : DEFAULT_WARMUP_REQUESTS;
+
+        List<Pod> pods = kubernetesClient.pods()
+                .inNamespace(resource.getMetadata().getNamespace())
+                .withLabel("app", resource.getMetadata().getName())
+                .withLabel(COLOR_LABEL, color)
+                .list()
+                .getItems();
+        for (Pod pod : pods) {
+            String podIp = pod.getStatus() != null ? pod.getStatus().getPodIP() : null;
+            if (podIp == null) {
+                continue;
+            }
+            int succeeded = 0;
+            for (int i = 0; i < requests; i++) {
+                try {
+                    HttpURLConnection connection = (HttpURLConnection) new URL("http", podIp, port, blueGreen.getWarmupPath()).openConnection();
+                    connection.setConnectTimeout(WARMUP_TIMEOUT_MILLIS);
+                    connection.setReadTimeout(WARMUP_TIMEOUT_MILLIS);
+                    if (connection.getResponseCode() < 500) {
+                        succeeded++;
+                    }
+                    connection.disconnect();
+                } catch (Exception e) {
+                    log.debug("Warm-up request to pod {} failed: {}", pod.getMetadata().getName(), e.getMessage());
+                }
+            }
+            log.debug("Sent {} warm-up requests to pod {}, {} succeeded.", requests, pod.getMetadata().getName(), succeeded);
+        }
+    }
+
+    private Deployment createColorDeployment(PaymentHubDeployment resource, String color, String image) {
+        return DeploymentUtils.createDeployment(resource, getDeploymentName(resource, color), image,
+                Collections.singletonMap(COLOR_LABEL, color), ConfigHashUtils.computeConfigHash(kubernetesClient, resource));
+    }
+
+    private static String other(String color) {
+        return BLUE.equals(color) ? GREEN : BLUE;
+    }
+
+    private static int getWarmupSeconds(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.BlueGreen blueGreen = resource.getSpec().getBlueGreen();
+        return blueGreen != null && blueGreen.getWarmupSeconds() != null ? blueGreen.getWarmupSeconds() : 0;
+    }
+
+    private static int getScaleDownDelaySeconds(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.BlueGreen blueGreen = resource.getSpec().getBlueGreen();
+        return blueGreen != null && blueGreen.getScaleDownDelaySeconds() != null
+                ? blueGreen.getScaleDownDelaySeconds() : DEFAULT_SCALE_DOWN_DELAY_SECONDS;
+    }
+
+    private static Instant parseTime(String value) {
+        try {
+            return value != null ? Instant.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private NonNamespaceOperation<Deployment, DeploymentList, RollableScalableResource<Deployment>> deployments(PaymentHubDeployment resource) {
+        return kubernetesClient.apps().deployments().inNamespace(resource.getMetadata().getNamespace());
+    }
+
+    /**
+     * The warm-up requests sent to one preview of a color.
+     */
+    private static class Warmup {
+        private final String readySince;
+        private final CompletableFuture<Void> done;
+
+        Warmup(String readySince, CompletableFuture<Void> done) {
+            this.readySince = readySince;
+            this.done = done;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentList;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.RollableScalableResource;
+
+import io.javaoperatorsdk.operator.api.reconciler.UpdateControl;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+import com.paymenthub.customresource.PaymentHubDeploymentStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Utility class running weighted canary releases for a PaymentHubDeployment.
+ *
+ * With {@code spec.releaseStrategy: canary} a change to the pod template is not applied to the stable Deployment
+ * right away. Instead a {@code <name>-canary} Deployment with the new template runs next to it, together with
+ * {@code <service>-canary} Services and a {@code <name>-ingress-canary} Ingress carrying the nginx canary
+ * annotations. The canary weight is stepped through {@code spec.canary.steps}, one step per
+ * {@code stepIntervalSeconds}. After the last step the change is promoted to the stable Deployment; if the canary
+ * pods stall or lose readiness on the way, the canary is aborted. The aborted release is recorded by its template
+ * hash in {@code status.failedCanaryHash} and not tried again until the spec changes; its image is recorded as
+ * failed only if the release changed the image.
+ */
+public class CanaryUtils {
+
+    // Marks the canary Deployment with the template hash of the stable Deployment it is a candidate for
+    public static final String CANARY_FOR_ANNOTATION = "gazelle.mifos.io/canary-for";
+
+    private static final List<Integer> DEFAULT_STEPS = Arrays.asList(5, 25, 50);
+    private static final int DEFAULT_STEP_INTERVAL_SECONDS = 120;
+    private static final int DEFAULT_REPLICAS = 1;
+
+    private final KubernetesClient kubernetesClient;
+    private final NetworkingUtils networkingUtils;
+    private static final Logger log = LoggerFactory.getLogger(CanaryUtils.class);
+
+    public CanaryUtils(KubernetesClient kubernetesClient) {
+        this.kubernetesClient = kubernetesClient;
+        this.networkingUtils = new NetworkingUtils(kubernetesClient);
+    }
+
+    /**
+     * Tells whether the custom resource is released with the canary strategy.
+     *
+     * @param resource The custom resource.
+     * @return true for {@code spec.releaseStrategy: canary}.
+     */
+    public static boolean isCanary(PaymentHubDeployment resource) {
+        return "canary".equals(resource.getSpec().getReleaseStrategy());
+    }
+
+    /**
+     * Returns the name of the canary Deployment, which is also the {@code app} label of the canary pods.
+     *
+     * @param resource The custom resource.
+     * @return The canary Deployment name.
+     */
+    public static String getDeploymentName(PaymentHubDeployment resource) {
+        return resource.getMetadata().getName() + "-canary";
+    }
+
+    /**
+     * Reconciles the canary release of the given custom resource.
+     *
+     * Returns null when no canary is needed: either the stable Deployment does not exist yet or already runs
+     * the desired template, or the canary has just been promoted. The caller then reconciles the stable
+     * Deployment as in a rolling release.
+     *
+     * @param resource The custom resource.
+     * @param image The container image to deploy.
+     * @param recheckAfter The delay after which the resource is checked again while the canary runs.
+     * @return The status update for a canary in progress or aborted, or null to continue with the stable Deployment.
+     */
+    public UpdateControl<PaymentHubDeployment> reconcileCanary(PaymentHubDeployment resource, String image, Duration recheckAfter) {
+        String name = resource.getMetadata().getName();
+        String configHash = ConfigHashUtils.computeConfigHash(kubernetesClient, resource);
+        Deployment desiredStable = DeploymentUtils.createDeployment(resource, name, image, Collections.emptyMap(), configHash);
+        Deployment stable = deployments(resource).withName(name).get();
+        Resource<Deployment> canaryResource = deployments(resource).withName(getDeploymentName(resource));
+
+        // Deployments created before template hashes were recorded are taken as up to date
+        boolean changed = stable != null && DeploymentUtils.getTemplateHash(stable) != null
+                && !DeploymentUtils.isSameTemplate(stable, desiredStable);
+        if (!changed) {
+            if (canaryResource.get() != null) {
+                removeCanary(resource);
+            }
+            if (resource.getStatus() != null) {
+                resource.getStatus().setFailedCanaryHash(null);
+            }
+            return null;
+        }
+
+        PaymentHubDeploymentStatus status = resource.getStatus();
+        if (status == null) {
+            status = new PaymentHubDeploymentStatus();
+            resource.setStatus(status);
+        }
+
+        String releaseHash = DeploymentUtils.getTemplateHash(desiredStable);
+        if (releaseHash.equals(status.getFailedCanaryHash())) {
+            // This release was aborted before; the stable Deployment keeps running until the spec changes. The
+            // status is still patched, as other reconcilers may have changed it, and the failure reason is kept
+            String reason = status.getErrorMessage() != null && !status.getErrorMessage().isEmpty()
+                    ? status.getErrorMessage()
+                    : "Canary of image " + image + " was aborted before. The stable Deployment was not changed.";
+            return StatusUpdateUtil.updateRolloutFailedStatus(kubernetesClient, resource, status.getFailedImage(), true,
+                    reason, recheckAfter);
+        }
+        status.setFailedCanaryHash(null);
+        String stableImage = stable.getSpec().getTemplate().getSpec().getContainers().get(0).getImage();
+        Deployment existingCanary = canaryResource.get();
+        boolean newCanary = existingCanary == null || existingCanary.getMetadata().getAnnotations() == null
+                || !releaseHash.equals(existingCanary.getMetadata().getAnnotations().get(CANARY_FOR_ANNOTATION));
+        if (newCanary) {
+            // A new candidate starts from the first step without traffic
+            status.setCanaryWeight(null);
+            status.setCanaryStepStartedAt(null);
+        }
+
+        Deployment desiredCanary = createCanaryDeployment(resource, image, releaseHash, configHash);
+        Deployment canary = existingCanary == null ? canaryResource.create(desiredCanary) : canaryResource.replace(desiredCanary);
+        Integer weight = status.getCanaryWeight();
+
+        switch (RolloutUtils.getRolloutState(canary)) {
+            case STALLED:
+                return abort(resource, image, stableImage, releaseHash, "canary rollout stalled (" + RolloutUtils.describeStall(canary) + ")", recheckAfter);
+            case PROGRESSING:
+                if (weight != null && weight > 0 && !newCanary) {
+                    return abort(resource, image, stableImage, releaseHash, "canary pods lost readiness at " + weight + "% of traffic", recheckAfter);
+                }
+                return StatusUpdateUtil.updatePendingStatus(kubernetesClient, resource, "Canary",
+                        "Starting canary: " + RolloutUtils.describeProgress(canary), recheckAfter);
+            default:
+                break;
+        }
+
+        List<Integer> steps = getSteps(resource);
+        Instant stepStartedAt = parseTime(status.getCanaryStepStartedAt());
+        int stepInterval = getStepIntervalSeconds(resource);
+        if (weight != null && stepStartedAt != null && Instant.now().isBefore(stepStartedAt.plusSeconds(stepInterval))) {
+            // Current step still running; keep the networking in place
+            applyWeight(resource, weight);
+            long remaining = Duration.between(Instant.now(), stepStartedAt.plusSeconds(stepInterval)).getSeconds();
+            return StatusUpdateUtil.updatePendingStatus(kubernetesClient, resource, "Canary",
+                    "Canary of image " + image + " receives " + weight + "% of traffic, next step in " + remaining + " seconds.", recheckAfter);
+        }
+
+        Integer nextWeight = nextStep(steps, weight);
+        if (nextWeight == null) {
+            log.info("Canary of {} passed all steps, promoting image {}.", name, image);
+            removeCanary(resource);
+            return null;
+        }
+
+        applyWeight(resource, nextWeight);
+        status.setCanaryWeight(nextWeight);
+        status.setCanaryStepStartedAt(Instant.now().toString());
+        log.info("Canary of {} moved to {}% of traffic.", name, nextWeight);
+        return StatusUpdateUtil.updatePendingStatus(kubernetesClient, resource, "Canary",
+                "Canary of image " + image + " receives " + nextWeight + "% of traffic.", recheckAfter);
+    }
+
+    /**
+     * Deletes the canary Deployment, Services and Ingress and clears the canary state from the status.
+     *
+     * @param resource The custom resource.
+     */
+    public void removeCanary(PaymentHubDeployment resource) {
+        networkingUtils.deleteCanaryNetworking(resource);
+        Resource<Deployment> canaryResource = deployments(resource).withName(getDeploymentName(resource));
+        if (canaryResource.get() != null) {
+            canaryResource.delete();
+            log.info("Deleted canary Deployment {}.", getDeploymentName(resource));
+        }
+        if (resource.getStatus() != null) {
+            resource.getStatus().setCanaryWeight(null);
+            resource.getStatus().setCanaryStepStartedAt(null);
+        }
+    }
+
+    private UpdateControl<PaymentHubDeployment> abort(PaymentHubDeployment resource, String image, String stableImage,
+                                                      String releaseHash, String reason, Duration recheckAfter) {
+        log.warn("Aborting canary of image {} for {}: {}.", image, resource.getMetadata().getName(), reason);
+        removeCanary(resource);
+        resource.getStatus().setFailedCanaryHash(releaseHash);
+        // Blame the image only if the release changed it; a failed env or config change leaves the image usable
+        String failedImage = image.equals(stableImage)
+                ? resource.getStatus().getFailedImage() : RolloutUtils.getFailedImageToRecord(resource, image);
+        return StatusUpdateUtil.updateRolloutFailedStatus(kubernetesClient, resource, failedImage, true,
+                "Canary of image " + image + " aborted: " + reason + ". The stable Deployment was not changed.", recheckAfter);
+    }
+
+    /**
+     * Sends the given share of traffic to the canary. Without an Ingress the canary is only validated on
+     * readiness, as there is no way to split traffic.
+     */
+    private void applyWeight(PaymentHubDeployment resource, int weight) {
+        networkingUtils.reconcileCanaryServices(resource);
+        if (Boolean.TRUE.equals(resource.getSpec().getIngressEnabled()) && resource.getSpec().getIngress() != null) {
+            networkingUtils.reconcileCanaryIngress(resource, weight);
+        } else {
+            log.info("Ingress is disabled for {}, the canary is validated on readiness only.", resource.getMetadata().getName());
+        }
+    }
+
+    private Deployment createCanaryDeployment(PaymentHubDeployment resource, String image, String releaseHash, String configHash) {
+        Deployment canary = DeploymentUtils.createDeployment(resource, getDeploymentName(resource), image,
+                Collections.singletonMap("app", getDeploymentName(resource)), configHash);
+        PaymentHubDeploymentSpec.Canary spec = resource.getSpec().getCanary();
+        canary.getSpec().setReplicas(spec != null && spec.getReplicas() != null ? spec.getReplicas() : DEFAULT_REPLICAS);
+        canary.getMetadata().getAnnotations().put(CANARY_FOR_ANNOTATION, releaseHash);
+        return canary;
+    }
+
+    private static Integer nextStep(List<Integer> steps, Integer current) {
+        for (Integer step : steps) {
+            if (current == null || step > current) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    private static List<Integer> getSteps(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.Canary canary = resource.getSpec().getCanary();
+        if (canary == null || canary.getSteps() == null || canary.getSteps().isEmpty()) {
+            return DEFAULT_STEPS;
+        }
+        List<Integer> steps = new ArrayList<>(canary.getSteps());
+        Collections.sort(steps);
+        return steps;
+    }
+
+    private static int getStepIntervalSeconds(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.Canary canary = resource.getSpec().getCanary();
+        return canary != null && canary.getStepIntervalSeconds() != null ? canary.getStepIntervalSeconds() : DEFAULT_STEP_INTERVAL_SECONDS;
+    }
+
+    private static Instant parseTime(String value) {
+        try {
+            return value != null ? Instant.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private NonNamespaceOperation<Deployment, DeploymentList, RollableScalableResource<Deployment>> deployments(PaymentHubDeployment resource) {
+        return kubernetesClient.apps().deployments().inNamespace(resource.getMetadata().getNamespace());
+    }
+}
@@ -0,0 +1,234 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Secret;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.javaoperatorsdk.operator.processing.event.source.informer.InformerEventSource;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Utility class hashing the content of the ConfigMaps and Secrets a PaymentHubDeployment consumes.
+ *
+ * The hash is written into the {@value #CONFIG_HASH_ANNOTATION} annotation of the pod template, so that a change
+ * to the mounted ConfigMap or to a Secret referenced by {@code spec.environment} changes the pod template and rolls
+ * the Deployment, while components whose inputs did not change keep running. With a hot reload strategy the
+ * mounted ConfigMap is left out of that hash and reloaded in place instead, see {@link ConfigReloadUtils}.
+ *
+ * The content is read from the caches of the ConfigMap and Secret informers of the controller, which only hold
+ * the objects matching {@code CONFIG_WATCH_LABEL_SELECTOR}, by default those created by the operator. A consumed
+ * object outside the selector counts as absent, and changes to it neither reconcile nor roll the pods; label
+ * externally managed configuration to have it watched. Writes of the operator are put into the caches right
+ * away, so that the hash computed in the same reconciliation sees them.
+ */
+public class ConfigHashUtils {
+
+    public static final String CONFIG_HASH_ANNOTATION = "gazelle.mifos.io/config-hash";
+    public static final String DEFAULT_WATCH_LABEL_SELECTOR = "app.kubernetes.io/managed-by=ph-ee-operator";
+
+    private static volatile InformerEventSource<ConfigMap, PaymentHubDeployment> configMapCache;
+    private static volatile InformerEventSource<Secret, PaymentHubDeployment> secretCache;
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigHashUtils.class);
+
+    /**
+     * Returns the label selector of the ConfigMaps and Secrets watched for changes.
+     *
+     * @return The {@code CONFIG_WATCH_LABEL_SELECTOR} environment variable, or
+     *         {@value #DEFAULT_WATCH_LABEL_SELECTOR}.
+     */
+    public static String getWatchLabelSelector() {
+        return EnvUtil.getString("CONFIG_WATCH_LABEL_SELECTOR", DEFAULT_WATCH_LABEL_SELECTOR);
+    }
+
+    /**
+     * Makes the hashes read the content from the given informers instead of the API server.
+     *
+     * @param configMaps The ConfigMap informer of the controller.
+     * @param secrets The Secret informer of the controller.
+     */
+    public static void useCaches(InformerEventSource<ConfigMap, PaymentHubDeployment> configMaps,
+                                 InformerEventSource<Secret, PaymentHubDeployment> secrets) {
+        configMapCache = configMaps;
+        secretCache = secrets;
+    }
+
+    /**
+     * Puts a ConfigMap or Secret the operator just wrote into the informer cache, so that it is hashed before
+     * the informer receives it, and its own watch event does not reconcile the resource again.
+     *
+     * @param resource The custom resource the object was written for.
+     * @param written The object as returned by the API server.
+     * @param previous The object before the write, or null if it was created.
+     */
+    public static void recordWrite(PaymentHubDeployment resource, HasMetadata written, HasMetadata previous) {
+        ResourceID primary = ResourceID.fromResource(resource);
+        if (written instanceof ConfigMap && configMapCache != null) {
+            if (previous == null) {
+                configMapCache.handleRecentResourceCreate(primary, (ConfigMap) written);
+            } else {
+                configMapCache.handleRecentResourceUpdate(primary, (ConfigMap) written, (ConfigMap) previous);
+            }
+        } else if (written instanceof Secret && secretCache != null) {
+            if (previous == null) {
+                secretCache.handleRecentResourceCreate(primary, (Secret) written);
+            } else {
+                secretCache.handleRecentResourceUpdate(primary, (Secret) written, (Secret) previous);
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the ConfigMaps consumed by the pods of the given custom resource.
+     *
+     * @param resource The custom resource.
+     * @return The ConfigMap names, sorted.
+     */
+    public static SortedSet<String> getConfigMapNames(PaymentHubDeployment resource) {
+        SortedSet<String> names = new TreeSet<>();
+        PaymentHubDeploymentSpec.VolMount volMount = resource.getSpec().getVolMount();
+        if (volMount != null && Boolean.TRUE.equals(volMount.getEnabled()) && volMount.getName() != null) {
+            names.add(ResourceUtils.resolveName(resource, volMount.getName()));
+        }
+        return names;
+    }
+
+    /**
+     * Returns the names of the Secrets referenced by {@code valueFrom.secretKeyRef} in {@code spec.environment}.
+     *
+     * @param resource The custom resource.
+     * @return The Secret names, sorted.
+     */
+    public static SortedSet<String> getSecretNames(PaymentHubDeployment resource) {
+        SortedSet<String> names = new TreeSet<>();
+        if (resource.getSpec().getEnvironment() == null) {
+            return names;
+        }
+        for (PaymentHubDeploymentSpec.EnvironmentVariable env : resource.getSpec().getEnvironment()) {
+            if (env.getValueFrom() != null && env.getValueFrom().getSecretKeyRef() != null
+                    && env.getValueFrom().getSecretKeyRef().getName() != null) {
+                names.add(ResourceUtils.resolveName(resource, env.getValueFrom().getSecretKeyRef().getName()));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Computes the hash of the content of the ConfigMaps and Secrets whose change requires new pods: all of them,
+     * except the ConfigMaps that are reloaded in place. A missing ConfigMap or Secret contributes a marker of its
+     * own, so that creating it later rolls the pods too.
+     *
+     * @param kubernetesClient The Kubernetes client.
+     * @param resource The custom resource.
+     * @return The hash, or null if the pods depend on no ConfigMap or Secret.
+     */
+    public static String computeConfigHash(KubernetesClient kubernetesClient, PaymentHubDeployment resource) {
+        SortedSet<String> configMapNames = ConfigReloadUtils.isHotReload(resource) ? new TreeSet<>() : getConfigMapNames(resource);
+        return hash(kubernetesClient, resource, configMapNames, getSecretNames(resource));
+    }
+
+    /**
+     * Computes the hash of the content of the ConfigMaps mounted into the pods.
+     *
+     * @param kubernetesClient The Kubernetes client.
+     * @param resource The custom resource.
+     * @return The hash, or null if no ConfigMap is mounted.
+     */
+    public static String computeConfigMapHash(KubernetesClient kubernetesClient, PaymentHubDeployment resource) {
+        return hash(kubernetesClient, resource, getConfigMapNames(resource), new TreeSet<>());
+    }
+
+    /**
+     * Hashes the given data, as used for the names of content-addressed ConfigMaps and Secrets.
+     *
+     * @param data The data.
+     * @return The first ten hex digits of the hash.
+     */
+    public static String hashContent(Map<String, String> data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, data);
+            return hex(digest.digest()).substring(0, 10);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hash(KubernetesClient kubernetesClient, PaymentHubDeployment resource,
+                               SortedSet<String> configMapNames, SortedSet<String> secretNames) {
+        if (configMapNames.isEmpty() && secretNames.isEmpty()) {
+            return null;
+        }
+        String namespace = resource.getMetadata().getNamespace();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String name : configMapNames) {
+                ConfigMap configMap = configMapCache != null
+                        ? configMapCache.get(new ResourceID(name, namespace)).orElse(null)
+                        : kubernetesClient.configMaps().inNamespace(namespace).withName(name).get();
+                update(digest, "configmap/" + name);
+                if (configMap == null) {
+                    log.debug("ConfigMap {} consumed by {} does not exist or is not watched.", name, resource.getMetadata().getName());
+                    update(digest, "absent");
+                } else {
+                    update(digest, configMap.getData());
+                    update(digest, configMap.getBinaryData());
+                }
+            }
+            for (String name : secretNames) {
+                Secret secret = secretCache != null
+                        ? secretCache.get(new ResourceID(name, namespace)).orElse(null)
+                        : kubernetesClient.secrets().inNamespace(namespace).withName(name).get();
+                update(digest, "secret/" + name);
+                if (secret == null) {
+                    log.debug("Secret {} referenced by {} does not exist or is not watched.", name, resource.getMetadata().getName());
+                    update(digest, "absent");
+                } else {
+                    update(digest, secret.getData());
+                    update(digest, secret.getStringData());
+                }
+            }
+            return hex(digest.digest()).substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] hash) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static void update(MessageDigest digest, Map<String, String> data) {
+        if (data == null) {
+            update(digest, "{}");
+            return;
+        }
+        for (Map.Entry<String, String> entry : new TreeMap<>(data).entrySet()) {
+            update(digest, entry.getKey());
+            update(digest, entry.getValue() != null ? entry.getValue() : "");
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // Separator, so that adjacent values cannot run into each other
+        digest.update((byte) 0);
+    }
+}
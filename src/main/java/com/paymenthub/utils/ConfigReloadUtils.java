@@ -0,0 +1,320 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.ExecWatch;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+import com.paymenthub.customresource.PaymentHubDeploymentStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility class reloading the mounted configuration of running pods instead of restarting them.
+ *
+ * With {@code spec.reloadStrategy.type} set to {@code http} or {@code signal}, the ConfigMap is mounted without
+ * {@code subPath}, so that the kubelet updates the files in running pods, and its content is left out of the pod
+ * template hash. Once a new content hash has had time to reach the pods, every ready pod is notified, by an HTTP
+ * POST carrying the hash in the {@value #CONFIG_HASH_HEADER} header or by a signal to the main process, and
+ * records the hash it acknowledged in the {@value #ACKNOWLEDGED_HASH_ANNOTATION} annotation.
+ * {@code status.configReloaded} turns true when all ready pods acknowledged the current hash.
+ *
+ * Notifications run on a small pool of their own, so that slow or unreachable pods never hold up a reconciliation
+ * thread; each reconciliation starts the missing notifications and collects the finished ones. The signal strategy
+ * runs {@code kill} in the main container, so its image must ship it; if it cannot be run, the reload is reported as
+ * unsupported in {@code status.configReloadError} and not retried until the configuration changes.
+ */
+public class ConfigReloadUtils {
+
+    public static final String ACKNOWLEDGED_HASH_ANNOTATION = "gazelle.mifos.io/config-hash-acknowledged";
+    public static final String CONFIG_HASH_HEADER = "X-Config-Hash";
+
+    private static final String DEFAULT_PATH = "/reload";
+    private static final String DEFAULT_SIGNAL = "HUP";
+    private static final String DEFAULT_MOUNT_PATH = "/config";
+    // The kubelet sync period plus its ConfigMap cache TTL, after which a mounted ConfigMap is up to date
+    private static final int DEFAULT_PROPAGATION_DELAY_SECONDS = 90;
+    private static final int NOTIFY_TIMEOUT_MILLIS = 5000;
+    private static final int NOTIFY_THREADS = 4;
+    // Finished notifications of pods that are gone are dropped after this time
+    private static final long NOTIFICATION_RETENTION_MILLIS = 10 * 60 * 1000L;
+    // Exit codes of a shell for a command that is not executable or not found
+    private static final Set<Integer> UNSUPPORTED_EXIT_CODES = new HashSet<>(Arrays.asList(126, 127));
+
+    private static final ExecutorService notifier = Executors.newFixedThreadPool(NOTIFY_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "config-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Notifications started or finished, by pod UID
+    private final Map<String, Notification> notifications = new ConcurrentHashMap<>();
+
+    private final KubernetesClient kubernetesClient;
+    private static final Logger log = LoggerFactory.getLogger(ConfigReloadUtils.class);
+
+    public ConfigReloadUtils(KubernetesClient kubernetesClient) {
+        this.kubernetesClient = kubernetesClient;
+    }
+
+    /**
+     * Tells whether the mounted configuration is reloaded in place rather than by restarting the pods.
+     *
+     * @param resource The custom resource.
+     * @return true if {@code spec.reloadStrategy.type} is {@code http} or {@code signal}.
+     */
+    public static boolean isHotReload(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.ReloadStrategy strategy = resource.getSpec().getReloadStrategy();
+        return strategy != null && ("http".equals(strategy.getType()) || "signal".equals(strategy.getType()));
+    }
+
+    /**
+     * Returns the directory the ConfigMap is mounted at with a hot reload strategy.
+     *
+     * @param resource The custom resource.
+     * @return The mount path, {@code /config} unless configured.
+     */
+    public static String getMountPath(PaymentHubDeployment resource) {
+        String mountPath = resource.getSpec().getReloadStrategy().getMountPath();
+        return mountPath != null ? mountPath : DEFAULT_MOUNT_PATH;
+    }
+
+    /**
+     * Notifies the ready pods that have not acknowledged the current configuration yet and records the progress
+     * in the status of the custom resource. Pods created after the configuration changed started with it and
+     * are taken as acknowledged.
+     *
+     * @param resource The custom resource; its status is updated in place.
+     * @return true while ready pods have not acknowledged the current configuration.
+     */
+    public boolean reconcileReload(PaymentHubDeployment resource) {
+        PaymentHubDeploymentStatus status = resource.getStatus();
+        if (status == null) {
+            status = new PaymentHubDeploymentStatus();
+            resource.setStatus(status);
+        }
+        String hash = ConfigHashUtils.computeConfigMapHash(kubernetesClient, resource);
+        if (hash == null) {
+            status.setConfigHash(null);
+            status.setConfigHashObservedAt(null);
+            status.setConfigAcknowledgedPods(null);
+            status.setConfigReloaded(null);
+            status.setConfigReloadError(null);
+            return false;
+        }
+        Instant now = Instant.now();
+        if (!hash.equals(status.getConfigHash())) {
+            log.info("Configuration of {} changed to {}, reloading it once it reached the pods.", resource.getMetadata().getName(), hash);
+            status.setConfigHash(hash);
+            status.setConfigHashObservedAt(now.toString());
+            status.setConfigReloaded(false);
+            status.setConfigReloadError(null);
+        }
+        Instant observedAt = parse(status.getConfigHashObservedAt(), now);
+        boolean propagated = !now.isBefore(observedAt.plusSeconds(getPropagationDelaySeconds(resource)));
+
+        List<Pod> pods = kubernetesClient.pods()
+                .inNamespace(resource.getMetadata().getNamespace())
+                .withLabel("app", resource.getMetadata().getName())
+                .list().getItems();
+        long nowMillis = now.toEpochMilli();
+        notifications.values().removeIf(notification -> notification.isStale(nowMillis));
+        int ready = 0;
+        int acknowledged = 0;
+        for (Pod pod : pods) {
+            if (!isReady(pod)) {
+                continue;
+            }
+            ready++;
+            Map<String, String> annotations = pod.getMetadata().getAnnotations();
+            if (annotations != null && hash.equals(annotations.get(ACKNOWLEDGED_HASH_ANNOTATION))) {
+                acknowledged++;
+            } else if (parse(pod.getMetadata().getCreationTimestamp(), now).isAfter(observedAt)) {
+                // Created after the change, so it mounted the current content at startup
+                acknowledge(pod, hash);
+                acknowledged++;
+            } else if (propagated && status.getConfigReloadError() == null) {
+                Outcome outcome = pollNotification(resource, pod, hash, nowMillis);
+                if (outcome == Outcome.RELOADED) {
+                    acknowledge(pod, hash);
+                    acknowledged++;
+                } else if (outcome == Outcome.UNSUPPORTED) {
+                    status.setConfigReloadError("Pod " + pod.getMetadata().getName() + " cannot run kill in container "
+                            + resource.getMetadata().getName() + "; the signal reload strategy requires it in the image.");
+                }
+            }
+        }
+        status.setConfigAcknowledgedPods(acknowledged);
+        status.setConfigReloaded(acknowledged == ready);
+        if (status.getConfigReloadError() != null) {
+            // Retrying cannot help until the configuration, and with it the hash, changes
+            log.warn("Configuration {} of {} cannot be reloaded: {}", hash, resource.getMetadata().getName(), status.getConfigReloadError());
+            return false;
+        }
+        if (acknowledged < ready) {
+            log.debug("{} of {} ready pods of {} acknowledged configuration {}.", acknowledged, ready, resource.getMetadata().getName(), hash);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the outcome of the notification of a pod of the given configuration, starting it if needed.
+     *
+     * @return The outcome, or null while the notification runs. A failed notification is started again next time.
+     */
+    private Outcome pollNotification(PaymentHubDeployment resource, Pod pod, String hash, long nowMillis) {
+        String uid = pod.getMetadata().getUid();
+        Notification notification = notifications.get(uid);
+        if (notification == null || !hash.equals(notification.hash)) {
+            notifications.put(uid, new Notification(hash, nowMillis,
+                    CompletableFuture.supplyAsync(() -> notifyPod(resource, pod, hash), notifier)));
+            return null;
+        }
+        if (!notification.outcome.isDone()) {
+            return null;
+        }
+        Outcome outcome = notification.outcome.join();
+        if (outcome == Outcome.FAILED) {
+            notifications.remove(uid);
+        }
+        return outcome;
+    }
+
+    private Outcome notifyPod(PaymentHubDeployment resource, Pod pod, String hash) {
+        PaymentHubDeploymentSpec.ReloadStrategy strategy = resource.getSpec().getReloadStrategy();
+        String podName = pod.getMetadata().getName();
+        try {
+            if ("signal".equals(strategy.getType())) {
+                String signal = strategy.getSignal() != null ? strategy.getSignal() : DEFAULT_SIGNAL;
+                ExecWatch exec = kubernetesClient.pods()
+                        .inNamespace(pod.getMetadata().getNamespace())
+                        .withName(podName)
+                        .inContainer(resource.getMetadata().getName())
+                        .writingOutput(new ByteArrayOutputStream())
+                        .writingError(new ByteArrayOutputStream())
+                        .exec("kill", "-s", signal, "1");
+                try {
+                    Integer exitCode = exec.exitCode().get(NOTIFY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (exitCode == null || exitCode < 0 || UNSUPPORTED_EXIT_CODES.contains(exitCode)) {
+                        // The exec itself failed, e.g. as kill is missing from a distroless image
+                        log.warn("Cannot run kill in pod {}, exit code {}.", podName, exitCode);
+                        return Outcome.UNSUPPORTED;
+                    }
+                    if (exitCode != 0) {
+                        log.warn("Sending SIG{} to pod {} failed with exit code {}.", signal, podName, exitCode);
+                        return Outcome.FAILED;
+                    }
+                } catch (ExecutionException e) {
+                    log.warn("Cannot run kill in pod {}: {}", podName, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                    return Outcome.UNSUPPORTED;
+                } finally {
+                    exec.close();
+                }
+            } else {
+                Integer port = strategy.getPort() != null ? strategy.getPort() : resource.getSpec().getContainerPort();
+                String path = strategy.getPath() != null ? strategy.getPath() : DEFAULT_PATH;
+                if (port == null || pod.getStatus().getPodIP() == null) {
+                    log.warn("No port or pod IP to send the reload request to pod {}.", podName);
+                    return Outcome.FAILED;
+                }
+                HttpURLConnection connection = (HttpURLConnection) new URL("http", pod.getStatus().getPodIP(), port, path).openConnection();
+                connection.setConnectTimeout(NOTIFY_TIMEOUT_MILLIS);
+                connection.setReadTimeout(NOTIFY_TIMEOUT_MILLIS);
+                connection.setRequestMethod("POST");
+                connection.setRequestProperty(CONFIG_HASH_HEADER, hash);
+                int responseCode = connection.getResponseCode();
+                connection.disconnect();
+                if (responseCode < 200 || responseCode >= 300) {
+                    log.warn("Reload request to pod {} returned HTTP {}.", podName, responseCode);
+                    return Outcome.FAILED;
+                }
+            }
+            log.info("Pod {} reloaded configuration {}.", podName, hash);
+            return Outcome.RELOADED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.FAILED;
+        } catch (Exception e) {
+            log.warn("Notifying pod {} of configuration {} failed: {}", podName, hash, e.getMessage());
+            return Outcome.FAILED;
+        }
+    }
+
+    private void acknowledge(Pod pod, String hash) {
+        kubernetesClient.pods()
+                .inNamespace(pod.getMetadata().getNamespace())
+                .withName(pod.getMetadata().getName())
+                .edit(current -> new PodBuilder(current)
+                        .editMetadata()
+                            .addToAnnotations(ACKNOWLEDGED_HASH_ANNOTATION, hash)
+                        .endMetadata()
+                        .build());
+    }
+
+    private static int getPropagationDelaySeconds(PaymentHubDeployment resource) {
+        Integer delay = resource.getSpec().getReloadStrategy().getPropagationDelaySeconds();
+        return delay != null ? delay : DEFAULT_PROPAGATION_DELAY_SECONDS;
+    }
+
+    private static boolean isReady(Pod pod) {
+        return pod.getMetadata().getDeletionTimestamp() == null && pod.getStatus() != null
+                && pod.getStatus().getConditions() != null
+                && pod.getStatus().getConditions().stream()
+                        .anyMatch(condition -> "Ready".equals(condition.getType()) && "True".equals(condition.getStatus()));
+    }
+
+    private static Instant parse(String timestamp, Instant fallback) {
+        try {
+            return timestamp != null ? Instant.parse(timestamp) : fallback;
+        } catch (DateTimeParseException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Result of notifying a pod.
+     */
+    private enum Outcome {
+        RELOADED,
+        FAILED,
+        // The pod cannot be notified at all, e.g. as its image lacks kill
+        UNSUPPORTED
+    }
+
+    /**
+     * A notification of a pod of one configuration hash, running or finished.
+     */
+    private static class Notification {
+        private final String hash;
+        private final long startedAt;
+        private final CompletableFuture<Outcome> outcome;
+
+        Notification(String hash, long startedAt, CompletableFuture<Outcome> outcome) {
+            this.hash = hash;
+            this.startedAt = startedAt;
+            this.outcome = outcome;
+        }
+
+        boolean isStale(long nowMillis) {
+            return outcome.isDone() && nowMillis - startedAt > NOTIFICATION_RETENTION_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.paymenthub.utils;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class rendering the {@code spec.configData} and {@code spec.secretData} templates of a
+ * PaymentHubDeployment.
+ *
+ * Templates refer to variables as {@code {{name}}}, so that the {@code ${...}} placeholders of Spring property
+ * files pass through unchanged. The variables are {@code name}, {@code namespace}, {@code image},
+ * {@code containerPort} and {@code replicas} of the custom resource, {@code labels.<key>} for its labels and
+ * {@code env.<NAME>} for the plain values in {@code spec.environment}. An unknown variable fails the rendering.
+ *
+ * The spec only changes with the generation of the custom resource, so the rendered data, with the Secret
+ * values already Base64 encoded, is cached per resource and generation, and only rendered again after a spec or
+ * label change.
+ */
+public class ConfigTemplateUtils {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{\\s*([A-Za-z0-9_.\\-/]+)\\s*}}");
+    private static final int MAX_CACHED_RESOURCES = 1024;
+
+    // Rendered data by resource UID, least recently used first
+    private static final Map<String, Rendered> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, Rendered>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Rendered> eldest) {
+                    return size() > MAX_CACHED_RESOURCES;
+                }
+            });
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigTemplateUtils.class);
+
+    /**
+     * Returns the rendered {@code spec.configData}.
+     *
+     * @param resource The custom resource.
+     * @return The ConfigMap data, or null if the custom resource has no {@code configData}.
+     * @throws IllegalArgumentException If a template refers to an unknown variable.
+     */
+    public static Map<String, String> getConfigData(PaymentHubDeployment resource) {
+        return resource.getSpec().getConfigData() != null ? render(resource).configData : null;
+    }
+
+    /**
+     * Returns the rendered and Base64 encoded {@code spec.secretData}.
+     *
+     * @param resource The custom resource.
+     * @return The Secret data, or null if the custom resource has no {@code secretData}.
+     * @throws IllegalArgumentException If a template refers to an unknown variable.
+     */
+    public static Map<String, String> getSecretData(PaymentHubDeployment resource) {
+        return resource.getSpec().getSecretData() != null ? render(resource).secretData : null;
+    }
+
+    private static Rendered render(PaymentHubDeployment resource) {
+        String uid = resource.getMetadata().getUid();
+        Long generation = resource.getMetadata().getGeneration();
+        Rendered rendered = uid != null ? cache.get(uid) : null;
+        if (rendered != null && generation != null && generation.equals(rendered.generation)
+                && Objects.equals(resource.getMetadata().getLabels(), rendered.labels)) {
+            return rendered;
+        }
+
+        Map<String, String> variables = createVariables(resource);
+        Map<String, String> configData = new TreeMap<>();
+        if (resource.getSpec().getConfigData() != null) {
+            for (Map.Entry<String, String> entry : resource.getSpec().getConfigData().entrySet()) {
+                configData.put(entry.getKey(), render(entry.getValue(), variables, "configData." + entry.getKey()));
+            }
+        }
+        Map<String, String> secretData = new TreeMap<>();
+        if (resource.getSpec().getSecretData() != null) {
+            for (Map.Entry<String, String> entry : resource.getSpec().getSecretData().entrySet()) {
+                String value = render(entry.getValue(), variables, "secretData." + entry.getKey());
+                secretData.put(entry.getKey(), Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+        Map<String, String> labels = resource.getMetadata().getLabels() != null ? new HashMap<>(resource.getMetadata().getLabels()) : null;
+        rendered = new Rendered(generation, labels, Collections.unmodifiableMap(configData), Collections.unmodifiableMap(secretData));
+        if (uid != null && generation != null) {
+            cache.put(uid, rendered);
+        }
+        log.debug("Rendered configuration templates of {} for generation {}.", resource.getMetadata().getName(), generation);
+        return rendered;
+    }
+
+    private static String render(String template, Map<String, String> variables, String field) {
+        if (template == null) {
+            return "";
+        }
+        Matcher matcher = VARIABLE.matcher(template);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String value = variables.get(matcher.group(1));
+            if (value == null) {
+                throw new IllegalArgumentException("Unknown variable {{" + matcher.group(1) + "}} in " + field);
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static Map<String, String> createVariables(PaymentHubDeployment resource) {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("name", resource.getMetadata().getName());
+        variables.put("namespace", resource.getMetadata().getNamespace());
+        if (resource.getSpec().getImage() != null) {
+            variables.put("image", resource.getSpec().getImage());
+        }
+        if (resource.getSpec().getContainerPort() != null) {
+            variables.put("containerPort", String.valueOf(resource.getSpec().getContainerPort()));
+        }
+        if (resource.getSpec().getReplicas() != null) {
+            variables.put("replicas", String.valueOf(resource.getSpec().getReplicas()));
+        }
+        if (resource.getMetadata().getLabels() != null) {
+            for (Map.Entry<String, String> label : resource.getMetadata().getLabels().entrySet()) {
+                variables.put("labels." + label.getKey(), label.getValue());
+            }
+        }
+        if (resource.getSpec().getEnvironment() != null) {
+            for (PaymentHubDeploymentSpec.EnvironmentVariable env : resource.getSpec().getEnvironment()) {
+                if (env.getValue() != null) {
+                    variables.put("env." + env.getName(), env.getValue());
+                }
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * The data rendered for one generation of a custom resource.
+     */
+    private static class Rendered {
+        private final Long generation;
+        private final Map<String, String> labels;
+        private final Map<String, String> configData;
+        private final Map<String, String> secretData;
+
+        Rendered(Long generation, Map<String, String> labels, Map<String, String> configData, Map<String, String> secretData) {
+            this.generation = generation;
+            this.labels = labels;
+            this.configData = configData;
+            this.secretData = secretData;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.paymenthub.utils;
 
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.api.model.Service; 
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.Secret;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.paymenthub.customresource.PaymentHubDeployment;
@@ -33,6 +35,34 @@ public class DeletionUtil {
             log.warn("Deployment {} not found, skipping deletion.", name);
         }
 
+        // Delete the blue/green Deployments
+        for (String color : BlueGreenUtils.COLORS) {
+            String colorName = BlueGreenUtils.getDeploymentName(resource, color);
+            if (kubernetesClient.apps().deployments().inNamespace(namespace).withName(colorName).get() != null) {
+                kubernetesClient.apps().deployments().inNamespace(namespace).withName(colorName).delete();
+                log.info("Deleted Deployment: {}", colorName);
+            }
+        }
+
+        // Delete the canary Deployment, Services and Ingress, if a canary was in progress
+        new CanaryUtils(kubernetesClient).removeCanary(resource);
+
+        // Delete the HorizontalPodAutoscaler
+        new AutoscalingUtils(kubernetesClient).deleteHorizontalPodAutoscaler(resource);
+
+        // Delete the VerticalPodAutoscaler and the collected usage
+        new VerticalAutoscalingUtils(kubernetesClient).deleteVerticalAutoscaling(resource);
+
+        // Delete the PodDisruptionBudget
+        new SchedulingUtils(kubernetesClient).deletePodDisruptionBudget(resource);
+
+        // Delete the image pre-pull DaemonSet, if a pre-pull was in progress
+        String prePullName = PrePullUtils.getDaemonSetName(resource);
+        if (kubernetesClient.apps().daemonSets().inNamespace(namespace).withName(prePullName).get() != null) {
+            kubernetesClient.apps().daemonSets().inNamespace(namespace).withName(prePullName).delete();
+            log.info("Deleted pre-pull DaemonSet: {}", prePullName);
+        }
+
         // Delete all RBAC-related resources
         deleteRbacResources(kubernetesClient, resource);
 
@@ -123,6 +153,12 @@ public class DeletionUtil {
         } else {
             log.warn("Secret {} not found, skipping deletion.", secretName);
         }
+
+        // Delete the content-addressed versions created with spec.immutableConfig
+        for (Secret secret : kubernetesClient.secrets().inNamespace(namespace).withLabel(ResourceUtils.CONFIG_OF_LABEL, name).list().getItems()) {
+            kubernetesClient.secrets().inNamespace(namespace).withName(secret.getMetadata().getName()).delete();
+            log.info("Deleted Secret: {}", secret.getMetadata().getName());
+        }
     }
 
     /**
@@ -143,6 +179,15 @@ public class DeletionUtil {
         } else {
             log.warn("ConfigMap {} not found, skipping deletion.", configMapName);
         }
+
+        // Release the shared ConfigMaps used with spec.sharedConfig
+        new ResourceUtils(kubernetesClient).releaseSharedConfigMaps(resource, null);
+
+        // Delete the content-addressed versions created with spec.immutableConfig
+        for (ConfigMap configMap : kubernetesClient.configMaps().inNamespace(namespace).withLabel(ResourceUtils.CONFIG_OF_LABEL, name).list().getItems()) {
+            kubernetesClient.configMaps().inNamespace(namespace).withName(configMap.getMetadata().getName()).delete();
+            log.info("Deleted ConfigMap: {}", configMap.getMetadata().getName());
+        }
     }
 
     /**
@@ -2,6 +2,8 @@ package com.paymenthub.utils;
 
 // Kubernetes API model imports
 import io.fabric8.kubernetes.api.model.*;  
+import io.fabric8.kubernetes.api.model.apps.*;  
+import io.fabric8.kubernetes.client.utils.Serialization;  
 
 // Custom resource imports
 import com.paymenthub.customresource.PaymentHubDeployment;  
@@ -12,6 +14,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory; 
 
 // Java utility imports
+import java.nio.charset.StandardCharsets;  
+import java.security.MessageDigest;  
+import java.security.NoSuchAlgorithmException;  
 import java.util.*;  
 import java.util.stream.Collectors;  
 
@@ -20,6 +25,9 @@ public class DeploymentUtils {
 
     private static final Logger log = LoggerFactory.getLogger(DeploymentUtils.class);
 
+    // Hash of the pod template, used to detect spec changes without comparing the full template
+    public static final String TEMPLATE_HASH_ANNOTATION = "gazelle.mifos.io/template-hash";
+
     /**
      * Creates a list of environment variables for the deployment based on the custom resource specifications.
      *
@@ -39,7 +47,7 @@ public class DeploymentUtils {
                 else if (env.getValueFrom() != null && env.getValueFrom().getSecretKeyRef() != null) {
                     envVarBuilder.withValueFrom(new EnvVarSourceBuilder()
                         .withSecretKeyRef(new SecretKeySelectorBuilder()
-                            .withName(env.getValueFrom().getSecretKeyRef().getName())
+                            .withName(ResourceUtils.resolveName(resource, env.getValueFrom().getSecretKeyRef().getName()))
                             .withKey(env.getValueFrom().getSecretKeyRef().getKey())
                             .build())
                         .build());
@@ -55,29 +63,51 @@ public class DeploymentUtils {
     }
 
     /**
-     * Creates the resource requirements for the deployment based on the custom resource specifications.
+     * Creates the resource requirements for the deployment based on the custom resource specifications. When the
+     * operator's own vertical autoscaling recommendation is applied, it replaces the requests, and limits below
+     * the recommendation are raised to it. The performance profile may then adjust both, see
+     * {@link PerformanceProfileUtils#applyQualityOfService}.
      *
      * @param resource The custom resource containing CPU and memory specifications.
      * @return ResourceRequirements object to be added to the deployment container.
      */
     public static ResourceRequirements createResourceRequirements(PaymentHubDeployment resource) {
+        Map<String, Quantity> limits = new HashMap<>();
+        limits.put("cpu", new Quantity(resource.getSpec().getResources().getLimits().getCpu()));
+        limits.put("memory", new Quantity(resource.getSpec().getResources().getLimits().getMemory()));
+
+        Map<String, Quantity> requests = new HashMap<>();
+        requests.put("cpu", new Quantity(resource.getSpec().getResources().getRequests().getCpu()));
+        requests.put("memory", new Quantity(resource.getSpec().getResources().getRequests().getMemory()));
+
+        if (VerticalAutoscalingUtils.isRecommendationApplied(resource)) {
+            requests.put("cpu", new Quantity(resource.getStatus().getRecommendedCpu()));
+            requests.put("memory", new Quantity(resource.getStatus().getRecommendedMemory()));
+            for (String name : Arrays.asList("cpu", "memory")) {
+                if (limits.get(name).getNumericalAmount().compareTo(requests.get(name).getNumericalAmount()) < 0) {
+                    limits.put(name, requests.get(name));
+                }
+            }
+        }
+
+        // latencyCritical components run with Guaranteed QoS
+        PerformanceProfileUtils.applyQualityOfService(resource, requests, limits);
+
         return new ResourceRequirementsBuilder()
-            .withLimits(new HashMap<String, Quantity>() {{
-                put("cpu", new Quantity(resource.getSpec().getResources().getLimits().getCpu()));
-                put("memory", new Quantity(resource.getSpec().getResources().getLimits().getMemory()));
-            }})
-            .withRequests(new HashMap<String, Quantity>() {{
-                put("cpu", new Quantity(resource.getSpec().getResources().getRequests().getCpu()));
-                put("memory", new Quantity(resource.getSpec().getResources().getRequests().getMemory()));
-            }})
+            .withLimits(limits)
+            .withRequests(requests)
             .build();
     }
 
     /**
      * Creates a Probe for the deployment based on the custom resource specifications.
      *
+     * The probe {@code type} selects the check: {@code httpGet} (the default) on {@code path} and {@code port},
+     * {@code tcpSocket} on {@code port}, {@code grpc} on {@code port} with the optional {@code grpcService}, or
+     * {@code exec} running {@code command} in the container.
+     *
      * @param resource The custom resource containing probe specifications.
-     * @param probeType The type of probe to create ("liveness" or "readiness").
+     * @param probeType The type of probe to create ("liveness", "readiness" or "startup").
      * @return The created Probe object, or null if the probe type is not specified in the custom resource.
      */
     public static Probe createProbe(PaymentHubDeployment resource, String probeType) {
@@ -87,22 +117,316 @@ public class DeploymentUtils {
             probeSpec = resource.getSpec().getLivenessProbe();
         } else if ("readiness".equals(probeType)) {
             probeSpec = resource.getSpec().getReadinessProbe();
+        } else if ("startup".equals(probeType)) {
+            probeSpec = resource.getSpec().getStartupProbe();
         }
 
         if (probeSpec == null) {
             return null;
         }
-        
-        return new ProbeBuilder()
-            .withHttpGet(new HTTPGetActionBuilder()
-                .withPath(probeSpec.getPath())
-                .withPort(new IntOrString(probeSpec.getPort()))
-                .build())
+
+        ProbeBuilder probeBuilder = new ProbeBuilder()
             .withInitialDelaySeconds(probeSpec.getInitialDelaySeconds())
             .withPeriodSeconds(probeSpec.getPeriodSeconds())
             .withFailureThreshold(probeSpec.getFailureThreshold())
-            .withTimeoutSeconds(probeSpec.getTimeoutSeconds())
+            .withSuccessThreshold(probeSpec.getSuccessThreshold())
+            .withTimeoutSeconds(probeSpec.getTimeoutSeconds());
+
+        String type = probeSpec.getType() != null ? probeSpec.getType() : "httpGet";
+        switch (type) {
+            case "tcpSocket":
+                probeBuilder.withTcpSocket(new TCPSocketActionBuilder()
+                    .withPort(new IntOrString(probeSpec.getPort()))
+                    .build());
+                break;
+            case "grpc":
+                probeBuilder.withGrpc(new GRPCActionBuilder()
+                    .withPort(probeSpec.getPort())
+                    .withService(probeSpec.getGrpcService())
+                    .build());
+                break;
+            case "exec":
+                probeBuilder.withExec(new ExecActionBuilder()
+                    .withCommand(probeSpec.getCommand())
+                    .build());
+                break;
+            default:
+                if (!"httpGet".equals(type)) {
+                    log.warn("Unknown {} probe type {}, using httpGet.", probeType, type);
+                }
+                probeBuilder.withHttpGet(new HTTPGetActionBuilder()
+                    .withPath(probeSpec.getPath())
+                    .withPort(new IntOrString(probeSpec.getPort()))
+                    .build());
+        }
+        return probeBuilder.build();
+    }
+
+    /**
+     * Creates a Kubernetes Deployment object based on the custom resource specifications.
+     * 
+     * The same specification is used for the single Deployment of a rolling release and for the additional
+     * Deployments of blue/green and canary releases, which differ only in name, image and extra labels.
+     * 
+     * @param resource The custom resource specifying the deployment configuration.
+     * @param name The name of the Deployment.
+     * @param image The container image to deploy.
+     * @param extraLabels Labels added to the Deployment, its selector and its pods, e.g. the blue/green color.
+     * @param configHash The hash of the consumed ConfigMaps and Secrets, see {@link ConfigHashUtils}, or null.
+     * @return The created Deployment object, or null if critical fields are missing.
+     */
+    public static Deployment createDeployment(PaymentHubDeployment resource, String name, String image, Map<String, String> extraLabels,
+                                              String configHash) {
+        log.info("Creating Deployment spec {} for resource: {}", name, resource.getMetadata().getName());
+
+        // Define labels for the Deployment and Pod templates
+        Map<String, String> labels = resource.getSpec().getLabels() != null
+            ? new HashMap<>(resource.getSpec().getLabels())
+            : new HashMap<>();
+
+        labels.putIfAbsent("app", resource.getMetadata().getName());
+        labels.putIfAbsent("app.kubernetes.io/managed-by", "ph-ee-operator");
+        labels.putAll(extraLabels);
+
+        // Derive the JVM options from the resources the container actually gets
+        ResourceRequirements resourceRequirements = createResourceRequirements(resource);
+        List<EnvVar> env = createEnvironmentVariables(resource);
+        JvmUtils.addJavaToolOptions(resource, resourceRequirements, env);
+        ShutdownUtils.addGracefulShutdownEnvironment(resource, env);
+
+        // Build the main container with environment variables, resources, and volume mounts
+        ContainerBuilder containerBuilder = new ContainerBuilder()
+            .withName(resource.getMetadata().getName())
+            .withImage(image)
+            .withEnv(env)
+            .withResources(resourceRequirements)
+            .withLivenessProbe(createProbe(resource, "liveness"))
+            .withReadinessProbe(createProbe(resource, "readiness"))
+            .withStartupProbe(createProbe(resource, "startup"))
+            .withLifecycle(ShutdownUtils.createLifecycle(resource));
+
+        // Conditionally add the container port if it's provided in the CR
+        Integer containerPort = resource.getSpec().getContainerPort();
+        if (containerPort != null) {
+            containerBuilder.withPorts(new ContainerPortBuilder()
+                .withContainerPort(containerPort)
+                .build());
+        } else {
+            log.info("Container port not provided, skipping port configuration.");
+        }
+
+        // Logging for volume mount configuration
+        log.debug("Volume mount configuration: {}", resource.getSpec().getVolMount());
+
+        // Add volume mount conditionally
+        if (resource.getSpec().getVolMount() != null && Boolean.TRUE.equals(resource.getSpec().getVolMount().getEnabled())) {
+            String volMountName = resource.getSpec().getVolMount().getName();
+            String deploymentName = resource.getMetadata().getName();
+
+            if (volMountName != null) {
+                VolumeMountBuilder volumeMountBuilder = new VolumeMountBuilder().withName(volMountName);
+
+                // Check the deployment name and set the appropriate path
+                if (ConfigReloadUtils.isHotReload(resource)) {
+                    // A subPath mount is never updated by the kubelet, so mount the whole ConfigMap as a directory
+                    volumeMountBuilder.withMountPath(ConfigReloadUtils.getMountPath(resource));
+                } else if ("ph-ee-operations-web".equals(deploymentName)) {
+                    // For ph-ee-operations-web, use the specific path and subPath
+                    volumeMountBuilder
+                        .withMountPath("/usr/share/nginx/html/assets/configuration.properties")
+                        .withSubPath("configuration.properties");
+                } else {
+                    // For other deployments, use the generic /config  
+                    volumeMountBuilder.withMountPath("/config");
+                }
+
+                containerBuilder.withVolumeMounts(volumeMountBuilder.build());
+            } else {
+                log.warn("Volume mount name is null, skipping volume mount.");
+            }
+        }
+
+
+        Container container = containerBuilder.build();
+
+        // Create PodSpec with the defined container and volumes
+        PodSpecBuilder podSpecBuilder = new PodSpecBuilder()
+            .withContainers(container);
+
+        // Check the flag to determine whether to add the init container 
+        if (Boolean.TRUE.equals(resource.getSpec().getInitContainerEnabled())) {
+            log.info("Init container enabled, adding to the PodSpec.");
+            Container initContainer = new ContainerBuilder()
+                .withName("wait-db")
+                .withImage("jwilder/dockerize")
+                .withArgs("-timeout=120s", "-wait", "tcp://operationsmysql:3306") 
+                .build();
+            podSpecBuilder.withInitContainers(initContainer);
+        } else {
+            log.info("Init container not enabled, skipping init container.");
+        }
+
+        // Add volumes conditionally
+        if (resource.getSpec().getVolMount() != null && Boolean.TRUE.equals(resource.getSpec().getVolMount().getEnabled())) {
+            String volMountName = resource.getSpec().getVolMount().getName();
+            if (volMountName != null) {
+                podSpecBuilder.withVolumes(new VolumeBuilder()
+                    .withName(volMountName)
+                    .withConfigMap(new ConfigMapVolumeSourceBuilder()
+                        .withName(ResourceUtils.resolveName(resource, volMountName))
+                        .build())
+                    .build());
+            } else {
+                log.warn("Volume mount name is null, skipping volume creation.");
+            }
+        }
+
+        // Place the pods according to spec.scheduling and the performance profile
+        SchedulingUtils.applyScheduling(resource, podSpecBuilder, labels);
+        PerformanceProfileUtils.applyProfile(resource, podSpecBuilder);
+
+        // Drain the pods before they stop, according to spec.shutdown
+        ShutdownUtils.applyShutdown(resource, podSpecBuilder);
+
+        PodSpec podSpec = podSpecBuilder.build();
+
+        // Roll the pods when the content of a consumed ConfigMap or Secret changes
+        Map<String, String> podAnnotations = new HashMap<>();
+        if (configHash != null) {
+            podAnnotations.put(ConfigHashUtils.CONFIG_HASH_ANNOTATION, configHash);
+        }
+
+        // Build the PodTemplateSpec with metadata and spec
+        PodTemplateSpec podTemplateSpec = new PodTemplateSpecBuilder()
+            .withNewMetadata()
+                .withLabels(labels)
+                .withAnnotations(podAnnotations)
+            .endMetadata()
+            .withSpec(podSpec)
             .build();
+
+        // Define the DeploymentSpec with replicas, selector, and template
+        DeploymentSpec deploymentSpec = new DeploymentSpecBuilder()
+            .withReplicas(resource.getSpec().getReplicas())
+            .withProgressDeadlineSeconds(RolloutUtils.getProgressDeadlineSeconds(resource))
+            .withStrategy(RolloutUtils.createStrategy(resource))
+            .withMinReadySeconds(RolloutUtils.getMinReadySeconds(resource))
+            .withRevisionHistoryLimit(RolloutUtils.getRevisionHistoryLimit(resource))
+            .withSelector(new LabelSelectorBuilder()
+                .withMatchLabels(labels)
+                .build())
+            .withTemplate(podTemplateSpec)
+            .build();
+
+        // Handle the case where metadata fields might be null
+        String namespace = resource.getMetadata().getNamespace();
+
+        if (name == null || namespace == null) {
+            log.error("Name or namespace is null, cannot create deployment metadata.");
+            return null;  // Or handle it appropriately
+        }
+
+        // Create Deployment metadata with owner references
+        ObjectMeta metadata = new ObjectMetaBuilder()
+            .withName(name)
+            .withNamespace(namespace)
+            .withLabels(labels)
+            .withOwnerReferences(OwnerReferenceUtils.createOwnerReferences(resource))
+            .build();
+
+        // Log the final deployment object for debugging purposes
+        log.debug("Final Deployment object: {}", metadata);
+
+        Map<String, String> annotations = new HashMap<>();
+        annotations.put(TEMPLATE_HASH_ANNOTATION, hashTemplate(podTemplateSpec));
+        metadata.setAnnotations(annotations);
+
+        // Build the final Deployment object
+        return new DeploymentBuilder()
+            .withMetadata(metadata)
+            .withSpec(deploymentSpec)
+            .build();
+    }
+
+    /**
+     * Tells whether an existing Deployment runs the pod template of a desired Deployment, by comparing the
+     * template hashes set by {@link #createDeployment}.
+     *
+     * @param existing The Deployment as returned by the API server.
+     * @param desired The desired Deployment.
+     * @return true if both carry the same template hash.
+     */
+    public static boolean isSameTemplate(Deployment existing, Deployment desired) {
+        return Objects.equals(getTemplateHash(existing), getTemplateHash(desired));
+    }
+
+    /**
+     * Returns the pod template hash of a Deployment.
+     *
+     * @param deployment The Deployment.
+     * @return The template hash, or null for Deployments not created by this operator version.
+     */
+    public static String getTemplateHash(Deployment deployment) {
+        Map<String, String> annotations = deployment.getMetadata().getAnnotations();
+        return annotations != null ? annotations.get(TEMPLATE_HASH_ANNOTATION) : null;
+    }
+
+    /**
+     * Tells whether the operator manages the replica count of the Deployments, which is the case unless the
+     * HorizontalPodAutoscaler or the metric scaler owns it.
+     *
+     * @param resource The custom resource.
+     * @return true if {@code spec.replicas} is applied to the Deployments.
+     */
+    public static boolean isReplicaCountManaged(PaymentHubDeployment resource) {
+        return !AutoscalingUtils.isHorizontalAutoscalingEnabled(resource) && !MetricScaler.isMetricScalingEnabled(resource);
+    }
+
+    /**
+     * Keeps the replica count chosen by an autoscaler when the desired Deployment is applied. Without an
+     * autoscaler the desired Deployment keeps {@code spec.replicas}. With one, the replica count of the running
+     * Deployment is carried over, and a Deployment that is new or scaled to zero starts at the minimum replica
+     * count of the autoscaler.
+     *
+     * @param resource The custom resource.
+     * @param desired The desired Deployment, updated in place.
+     * @param current The Deployment currently serving traffic, or null if there is none.
+     */
+    public static void preserveReplicas(PaymentHubDeployment resource, Deployment desired, Deployment current) {
+        if (isReplicaCountManaged(resource)) {
+            return;
+        }
+        Integer replicas = current != null ? current.getSpec().getReplicas() : null;
+        Integer initialReplicas = AutoscalingUtils.isHorizontalAutoscalingEnabled(resource)
+            ? AutoscalingUtils.getInitialReplicas(resource) : MetricScaler.getInitialReplicas(resource);
+        desired.getSpec().setReplicas(replicas != null && replicas > 0 ? replicas : initialReplicas);
+    }
+
+    /**
+     * Parses a number or percentage, as used by rollout and disruption budget settings.
+     *
+     * @param value The value, e.g. "1" or "25%".
+     * @return The value as an IntOrString, or null for a null value.
+     */
+    public static IntOrString toIntOrString(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.matches("\\d+") ? new IntOrString(Integer.parseInt(value)) : new IntOrString(value);
+    }
+
+    private static String hashTemplate(PodTemplateSpec template) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(Serialization.asJson(template).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
 }
@@ -0,0 +1,105 @@
+package com.paymenthub.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility class for reading operator settings from environment variables.
+ * Invalid values are logged and replaced by the supplied default so that a typo in the
+ * operator manifest never prevents the operator from starting.
+ */
+public class EnvUtil {
+
+    private static final Logger log = LoggerFactory.getLogger(EnvUtil.class);
+
+    /**
+     * Reads a string setting.
+     *
+     * @param name The environment variable name.
+     * @param defaultValue The value to use when the variable is not set or blank.
+     * @return The configured value or the default.
+     */
+    public static String getString(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Reads an integer setting.
+     *
+     * @param name The environment variable name.
+     * @param defaultValue The value to use when the variable is not set or invalid.
+     * @return The configured value or the default.
+     */
+    public static int getInt(String name, int defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid integer value '{}' for {}, using default {}.", value, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a long setting.
+     *
+     * @param name The environment variable name.
+     * @param defaultValue The value to use when the variable is not set or invalid.
+     * @return The configured value or the default.
+     */
+    public static long getLong(String name, long defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid long value '{}' for {}, using default {}.", value, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a decimal setting.
+     *
+     * @param name The environment variable name.
+     * @param defaultValue The value to use when the variable is not set or invalid.
+     * @return The configured value or the default.
+     */
+    public static double getDouble(String name, double defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid decimal value '{}' for {}, using default {}.", value, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a boolean setting. Only "true" and "false" (case-insensitive) are accepted.
+     *
+     * @param name The environment variable name.
+     * @param defaultValue The value to use when the variable is not set or invalid.
+     * @return The configured value or the default.
+     */
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return Boolean.parseBoolean(value);
+        }
+        log.warn("Invalid boolean value '{}' for {}, using default {}.", value, name, defaultValue);
+        return defaultValue;
+    }
+}
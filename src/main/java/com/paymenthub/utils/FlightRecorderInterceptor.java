@@ -0,0 +1,116 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.client.http.AsyncBody;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.http.Interceptor;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * HTTP interceptor installed on the operator's Kubernetes client to emit a {@code paymenthub.ApiCall} flight
+ * recorder event for every request, with its verb, resource type, response status, payload sizes and latency up to
+ * the complete response. Watches are long-lived and pass through untouched, as do all requests while no recording is running.
+ */
+public class FlightRecorderInterceptor implements Interceptor {
+
+    @Override
+    public AsyncBody.Consumer<List<ByteBuffer>> consumer(AsyncBody.Consumer<List<ByteBuffer>> consumer, HttpRequest request) {
+        URI uri = request.uri();
+        if (uri.getRawQuery() != null && uri.getRawQuery().contains("watch=true")) {
+            return consumer;
+        }
+        FlightRecorderUtil.ApiCallEvent event = new FlightRecorderUtil.ApiCallEvent();
+        if (!event.isEnabled()) {
+            return consumer;
+        }
+        event.begin();
+        event.verb = request.method();
+        WriteAuditInterceptor.ApiPath path = WriteAuditInterceptor.ApiPath.parse(uri.getPath());
+        if (path != null) {
+            event.kind = path.getPlural();
+            event.namespace = path.getNamespace();
+            event.name = path.getName();
+            event.subresource = path.getSubresource();
+        }
+        event.owner = WriteAuditUtil.getCurrentResource();
+        String body = request.bodyString();
+        event.requestBytes = body == null ? 0 : body.getBytes(StandardCharsets.UTF_8).length;
+        return new RecordingConsumer(consumer, event);
+    }
+
+    @Override
+    public void after(HttpRequest request, HttpResponse<?> response, AsyncBody.Consumer<List<ByteBuffer>> consumer) {
+        RecordingConsumer recording = consumer != null ? consumer.unwrap(RecordingConsumer.class) : null;
+        if (recording != null) {
+            recording.responded(response);
+        }
+    }
+
+    /**
+     * Body consumer that counts the response bytes and commits the event once the body has been fully received,
+     * including an empty one.
+     */
+    private static class RecordingConsumer implements AsyncBody.Consumer<List<ByteBuffer>> {
+        private final AsyncBody.Consumer<List<ByteBuffer>> delegate;
+        private final FlightRecorderUtil.ApiCallEvent event;
+        private boolean responded;
+        private boolean committed;
+
+        private RecordingConsumer(AsyncBody.Consumer<List<ByteBuffer>> delegate, FlightRecorderUtil.ApiCallEvent event) {
+            this.delegate = delegate;
+            this.event = event;
+        }
+
+        @Override
+        public void consume(List<ByteBuffer> value, AsyncBody asyncBody) throws Exception {
+            synchronized (event) {
+                for (ByteBuffer buffer : value) {
+                    event.responseBytes += buffer.remaining();
+                }
+            }
+            delegate.consume(value, asyncBody);
+        }
+
+        @Override
+        public <U> U unwrap(Class<U> target) {
+            U self = AsyncBody.Consumer.super.unwrap(target);
+            return self != null ? self : delegate.unwrap(target);
+        }
+
+        /**
+         * Records the status of the response and commits the event once its body completes.
+         *
+         * @param response The response, whose body is the {@link AsyncBody} this consumer is fed by.
+         */
+        private void responded(HttpResponse<?> response) {
+            synchronized (event) {
+                if (responded) {
+                    return;
+                }
+                responded = true;
+                event.statusCode = response.code();
+            }
+            Object body = response.body();
+            if (body instanceof AsyncBody) {
+                ((AsyncBody) body).done().whenComplete((ignored, error) -> complete(error == null));
+            } else {
+                complete(true);
+            }
+        }
+
+        private void complete(boolean bodyCompleted) {
+            synchronized (event) {
+                if (committed) {
+                    return;
+                }
+                committed = true;
+                event.succeeded = bodyCompleted && event.statusCode < 400;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.paymenthub.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+
+/**
+ * Utility class emitting JDK Flight Recorder events for the work of the operator, so that GC, allocation and lock
+ * contention in a recording can be attributed to the custom resource being reconciled.
+ *
+ * Three events are defined: {@code paymenthub.Reconcile} for a reconciliation past the reconcile queue, with its
+ * outcome, {@code paymenthub.ReconcileStep} for each sub-resource step within it and {@code paymenthub.ApiCall}
+ * for each Kubernetes API request, see {@link FlightRecorderInterceptor}. They are recorded by any recording,
+ * including one started with {@code -XX:StartFlightRecording}, and carry no stack traces to keep their cost low.
+ *
+ * With {@code JFR_RECORDING_ENABLED}, the operator keeps a continuous recording of the last
+ * {@code JFR_MAX_AGE_MINUTES} up to {@code JFR_MAX_SIZE_MB} with the low-overhead {@code default} settings, which
+ * the admin server dumps on {@code /jfr/dump}. A recording holds resource names and request paths, so the dump
+ * requires {@code JFR_DUMP_TOKEN} as a bearer token and is refused while no token is configured.
+ */
+public class FlightRecorderUtil {
+
+    public static final String DUMP_PATH = "/jfr/dump";
+
+    // The step running on the current reconciliation thread, ended when the next one begins
+    private static final ThreadLocal<ReconcileStepEvent> currentStep = new ThreadLocal<>();
+    private static volatile Recording recording;
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderUtil.class);
+
+    /**
+     * Starts the continuous recording if {@code JFR_RECORDING_ENABLED} is set.
+     *
+     * @return true if the recording runs.
+     */
+    public static boolean startRecording() {
+        if (!EnvUtil.getBoolean("JFR_RECORDING_ENABLED", false)) {
+            return false;
+        }
+        try {
+            Recording continuous = new Recording(Configuration.getConfiguration("default"));
+            continuous.setName("ph-ee-operator");
+            continuous.setToDisk(true);
+            continuous.setMaxAge(Duration.ofMinutes(EnvUtil.getLong("JFR_MAX_AGE_MINUTES", 30)));
+            continuous.setMaxSize(EnvUtil.getLong("JFR_MAX_SIZE_MB", 100) * 1024 * 1024);
+            continuous.start();
+            recording = continuous;
+            log.info("Continuous flight recording started, dump it from {} on the admin server.", DUMP_PATH);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to start the continuous flight recording: ", e);
+            return false;
+        }
+    }
+
+    /**
+     * Serves a dump of the continuous recording as a JFR file, to callers presenting {@code JFR_DUMP_TOKEN} as
+     * {@code Authorization: Bearer} token. Without a configured token every request is refused with 403.
+     *
+     * @param exchange The admin server exchange.
+     * @throws IOException If the dump cannot be written or sent.
+     */
+    public static void dump(HttpExchange exchange) throws IOException {
+        Recording continuous = recording;
+        if (continuous == null) {
+            AdminServer.respond(exchange, 404, "text/plain", "No flight recording is running.");
+            return;
+        }
+        String token = EnvUtil.getString("JFR_DUMP_TOKEN", "");
+        if (token.isEmpty()) {
+            AdminServer.respond(exchange, 403, "text/plain", "Dumps are disabled until JFR_DUMP_TOKEN is set.");
+            return;
+        }
+        if (!isAuthorized(exchange, token)) {
+            AdminServer.respond(exchange, 401, "text/plain", "A valid bearer token is required.");
+            return;
+        }
+        Path file = Files.createTempFile("ph-ee-operator-", ".jfr");
+        try {
+            continuous.dump(file);
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"ph-ee-operator.jfr\"");
+            exchange.sendResponseHeaders(200, Files.size(file));
+            try (OutputStream out = exchange.getResponseBody()) {
+                Files.copy(file, out);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static boolean isAuthorized(HttpExchange exchange, String token) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        String expected = "Bearer " + token;
+        // Constant-time comparison, so that the token cannot be guessed from response times
+        return authorization != null && MessageDigest.isEqual(
+                authorization.getBytes(StandardCharsets.UTF_8), expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Begins the event of a reconciliation.
+     *
+     * @param resource The custom resource.
+     * @param lagMillis The time since the watch event that triggered it, or null.
+     * @return The event, to pass to {@link #endReconcile}.
+     */
+    public static ReconcileEvent beginReconcile(PaymentHubDeployment resource, Long lagMillis) {
+        ReconcileEvent event = new ReconcileEvent();
+        if (event.isEnabled()) {
+            event.namespace = resource.getMetadata().getNamespace();
+            event.resource = resource.getMetadata().getName();
+            event.generation = resource.getMetadata().getGeneration() != null ? resource.getMetadata().getGeneration() : 0;
+            event.lag = lagMillis != null ? lagMillis : 0;
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Ends the event of a reconciliation, and the last step it ran.
+     *
+     * @param event The event returned by {@link #beginReconcile}.
+     * @param outcome The outcome, e.g. the phase the resource ended up in.
+     */
+    public static void endReconcile(ReconcileEvent event, String outcome) {
+        endStep();
+        if (event.isEnabled()) {
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    /**
+     * Ends the current step of the reconciliation running on this thread and begins the next one.
+     *
+     * @param resource The custom resource.
+     * @param step The name of the step, e.g. {@code rbac} or {@code deployment}.
+     */
+    public static void step(PaymentHubDeployment resource, String step) {
+        endStep();
+        ReconcileStepEvent event = new ReconcileStepEvent();
+        if (event.isEnabled()) {
+            event.namespace = resource.getMetadata().getNamespace();
+            event.resource = resource.getMetadata().getName();
+            event.step = step;
+            event.begin();
+            currentStep.set(event);
+        }
+    }
+
+    private static void endStep() {
+        ReconcileStepEvent event = currentStep.get();
+        if (event != null) {
+            currentStep.remove();
+            event.commit();
+        }
+    }
+
+    /**
+     * A reconciliation of a PaymentHubDeployment, from its admission by the reconcile queue to its return.
+     */
+    @Name("paymenthub.Reconcile")
+    @Label("Reconcile")
+    @Category({"Payment Hub Operator", "Reconcile"})
+    @StackTrace(false)
+    public static class ReconcileEvent extends Event {
+        @Label("Namespace")
+        String namespace;
+
+        @Label("Resource")
+        String resource;
+
+        @Label("Generation")
+        long generation;
+
+        @Label("Lag")
+        @Description("Time from the watch event that triggered the reconciliation to its start")
+        @Timespan(Timespan.MILLISECONDS)
+        long lag;
+
+        @Label("Outcome")
+        String outcome;
+    }
+
+    /**
+     * A sub-resource step of a reconciliation.
+     */
+    @Name("paymenthub.ReconcileStep")
+    @Label("Reconcile Step")
+    @Category({"Payment Hub Operator", "Reconcile"})
+    @StackTrace(false)
+    static class ReconcileStepEvent extends Event {
+        @Label("Namespace")
+        String namespace;
+
+        @Label("Resource")
+        String resource;
+
+        @Label("Step")
+        String step;
+    }
+
+    /**
+     * A request to the Kubernetes API server, from sending it to receiving the complete response.
+     */
+    @Name("paymenthub.ApiCall")
+    @Label("Kubernetes API Call")
+    @Category({"Payment Hub Operator", "Kubernetes API"})
+    @StackTrace(false)
+    static class ApiCallEvent extends Event {
+        @Label("Verb")
+        String verb;
+
+        @Label("Kind")
+        @Description("Resource type of the request path, e.g. deployments")
+        String kind;
+
+        @Label("Namespace")
+        String namespace;
+
+        @Label("Name")
+        String name;
+
+        @Label("Subresource")
+        String subresource;
+
+        @Label("Reconciled Resource")
+        @Description("The custom resource whose reconciliation made the request")
+        String owner;
+
+        @Label("Request Bytes")
+        @DataAmount
+        long requestBytes;
+
+        @Label("Response Bytes")
+        @DataAmount
+        long responseBytes;
+
+        @Label("Status Code")
+        int statusCode;
+
+        @Label("Succeeded")
+        @Description("Whether the response had a status below 400 and its body was received completely")
+        boolean succeeded;
+    }
+}
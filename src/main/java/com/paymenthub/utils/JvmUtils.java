@@ -0,0 +1,175 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.EnvVarBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.ResourceRequirements;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * Utility class deriving JVM options from {@code spec.jvm} and the resources of the main container.
+ *
+ * The options are passed in {@code JAVA_TOOL_OPTIONS}, which every HotSpot JVM picks up without changes to the
+ * image entrypoint. A {@code JAVA_TOOL_OPTIONS} set in {@code spec.environment} is appended to the generated
+ * options, so that it still takes precedence; one taken from a ConfigMap or Secret through {@code valueFrom} is
+ * moved to {@value #USER_JAVA_TOOL_OPTIONS} and referenced as {@code $(}{@value #USER_JAVA_TOOL_OPTIONS}{@code )},
+ * which the kubelet expands.
+ */
+public class JvmUtils {
+
+    public static final String JAVA_TOOL_OPTIONS = "JAVA_TOOL_OPTIONS";
+    public static final String USER_JAVA_TOOL_OPTIONS = "PHEE_USER_JAVA_TOOL_OPTIONS";
+
+    private static final int DEFAULT_MAX_RAM_PERCENTAGE = 75;
+    // Heap sizes deciding the collector in "auto" mode
+    private static final long SERIAL_GC_MAX_HEAP_BYTES = 512L * 1024 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(JvmUtils.class);
+
+    /**
+     * Adds the generated {@code JAVA_TOOL_OPTIONS} to the environment of the main container, if {@code spec.jvm}
+     * is enabled.
+     *
+     * @param resource The custom resource.
+     * @param resources The resource requirements of the main container.
+     * @param env The environment variables of the main container, updated in place.
+     */
+    public static void addJavaToolOptions(PaymentHubDeployment resource, ResourceRequirements resources, List<EnvVar> env) {
+        PaymentHubDeploymentSpec.Jvm jvm = resource.getSpec().getJvm();
+        if (jvm == null || !Boolean.TRUE.equals(jvm.getEnabled())) {
+            return;
+        }
+        String options = createJavaToolOptions(jvm, resources);
+
+        Optional<EnvVar> userOptions = env.stream().filter(var -> JAVA_TOOL_OPTIONS.equals(var.getName())).findFirst();
+        env.removeIf(var -> JAVA_TOOL_OPTIONS.equals(var.getName()));
+        if (userOptions.isPresent() && userOptions.get().getValueFrom() != null) {
+            // Only the kubelet knows the value; it expands a reference to a variable defined before
+            env.add(new EnvVarBuilder().withName(USER_JAVA_TOOL_OPTIONS).withValueFrom(userOptions.get().getValueFrom()).build());
+            options = options + " $(" + USER_JAVA_TOOL_OPTIONS + ")";
+        } else if (userOptions.isPresent() && userOptions.get().getValue() != null) {
+            options = options + " " + userOptions.get().getValue();
+        }
+        env.add(new EnvVarBuilder().withName(JAVA_TOOL_OPTIONS).withValue(options).build());
+        log.debug("{} for {}: {}", JAVA_TOOL_OPTIONS, resource.getMetadata().getName(), options);
+    }
+
+    /**
+     * Builds the JVM options for the given settings and container resources.
+     *
+     * @param jvm The JVM settings.
+     * @param resources The resource requirements of the main container.
+     * @return The options, separated by spaces.
+     */
+    public static String createJavaToolOptions(PaymentHubDeploymentSpec.Jvm jvm, ResourceRequirements resources) {
+        List<String> options = new ArrayList<>();
+        BigDecimal memoryLimit = amount(resources, "memory");
+        BigDecimal cpuLimit = amount(resources, "cpu");
+
+        // Heap: an explicit size wins, otherwise a share of the container memory limit
+        long heapBytes = 0;
+        if (jvm.getMaxHeapSize() != null) {
+            options.add("-Xmx" + jvm.getMaxHeapSize());
+            heapBytes = new Quantity(toQuantity(jvm.getMaxHeapSize())).getNumericalAmount().longValue();
+        } else {
+            int percentage = jvm.getMaxRamPercentage() != null ? jvm.getMaxRamPercentage() : DEFAULT_MAX_RAM_PERCENTAGE;
+            options.add("-XX:MaxRAMPercentage=" + percentage + ".0");
+            if (memoryLimit != null) {
+                heapBytes = memoryLimit.multiply(BigDecimal.valueOf(percentage)).divide(BigDecimal.valueOf(100), 0, RoundingMode.DOWN).longValue();
+            }
+        }
+
+        // The JVM sizes thread pools on the processors it sees; without this a fractional CPU limit rounds oddly
+        if (cpuLimit != null) {
+            int processors = Math.max(1, cpuLimit.setScale(0, RoundingMode.CEILING).intValue());
+            options.add("-XX:ActiveProcessorCount=" + processors);
+        }
+
+        String gc = jvm.getGc() != null ? jvm.getGc() : "auto";
+        if ("auto".equals(gc)) {
+            gc = selectCollector(heapBytes, cpuLimit);
+        }
+        switch (gc) {
+            case "Serial":
+                options.add("-XX:+UseSerialGC");
+                break;
+            case "Parallel":
+                options.add("-XX:+UseParallelGC");
+                break;
+            case "ZGC":
+                // ZGC is experimental before JDK 15; the unlock flag is accepted and ignored by later versions
+                options.add("-XX:+UnlockExperimentalVMOptions");
+                options.add("-XX:+UseZGC");
+                break;
+            case "G1":
+                options.add("-XX:+UseG1GC");
+                break;
+            default:
+                // Unknown collector name: leave the choice to the JVM
+                log.warn("Unknown garbage collector {}, leaving the choice to the JVM.", gc);
+        }
+
+        if (jvm.getCdsArchive() != null) {
+            options.add("-XX:SharedArchiveFile=" + jvm.getCdsArchive());
+            options.add("-Xshare:auto");
+        }
+        if (Boolean.TRUE.equals(jvm.getGcLogging())) {
+            options.add("-Xlog:gc*:stdout:time,uptime,level,tags");
+        }
+        if (jvm.getExtraOptions() != null && !jvm.getExtraOptions().trim().isEmpty()) {
+            options.add(jvm.getExtraOptions().trim());
+        }
+        return String.join(" ", options);
+    }
+
+    /**
+     * Picks a collector by heap size: Serial for small heaps or less than one core, where the other collectors
+     * mostly add overhead, G1 otherwise. ZGC is never picked automatically, as it is experimental on JDK 11 to 14
+     * and the JDK version of the image is not known; set it explicitly for very large heaps.
+     */
+    private static String selectCollector(long heapBytes, BigDecimal cpuLimit) {
+        if ((heapBytes > 0 && heapBytes <= SERIAL_GC_MAX_HEAP_BYTES) || (cpuLimit != null && cpuLimit.compareTo(BigDecimal.ONE) < 0)) {
+            return "Serial";
+        }
+        return "G1";
+    }
+
+    /**
+     * Converts a JVM size such as {@code 512m} or {@code 2g} into a Kubernetes quantity.
+     */
+    private static String toQuantity(String jvmSize) {
+        String size = jvmSize.trim();
+        char unit = Character.toLowerCase(size.charAt(size.length() - 1));
+        String number = size.substring(0, size.length() - 1);
+        switch (unit) {
+            case 'k':
+                return number + "Ki";
+            case 'm':
+                return number + "Mi";
+            case 'g':
+                return number + "Gi";
+            default:
+                return size;
+        }
+    }
+
+    private static BigDecimal amount(ResourceRequirements resources, String name) {
+        if (resources == null) {
+            return null;
+        }
+        Quantity quantity = resources.getLimits() != null ? resources.getLimits().get(name) : null;
+        if (quantity == null && resources.getRequests() != null) {
+            quantity = resources.getRequests().get(name);
+        }
+        return quantity != null && quantity.getAmount() != null ? quantity.getNumericalAmount() : null;
+    }
+}
@@ -0,0 +1,285 @@
+package com.paymenthub.utils;
+
+import java.util.*;
+
+/**
+ * A scaling expression evaluated over the metrics scraped from the pods of a PaymentHubDeployment.
+ *
+ * The expression language is a small subset of PromQL: numbers, the operators {@code + - * /}, parentheses,
+ * and the aggregations {@code sum}, {@code avg}, {@code min}, {@code max} and {@code count} over a metric
+ * selector with optional exact label matchers, e.g.
+ * {@code sum(zeebe_exporter_queue_size{partition="1"}) / max(pods_ready)}. A bare selector is summed. The
+ * aggregations run over the matching series of all scraped pods together.
+ */
+public class MetricExpression {
+
+    private static final List<String> AGGREGATIONS = Arrays.asList("sum", "avg", "min", "max", "count");
+
+    private final String expression;
+    private final Node root;
+
+    private MetricExpression(String expression, Node root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    /**
+     * Parses the given expression.
+     *
+     * @param expression The expression text.
+     * @return The parsed expression.
+     * @throws IllegalArgumentException If the expression is not valid.
+     */
+    public static MetricExpression parse(String expression) {
+        Parser parser = new Parser(expression);
+        Node root = parser.parseExpression();
+        parser.skipWhitespace();
+        if (parser.position < expression.length()) {
+            throw new IllegalArgumentException("Unexpected '" + expression.charAt(parser.position) + "' at position "
+                    + parser.position + " of expression: " + expression);
+        }
+        return new MetricExpression(expression, root);
+    }
+
+    /**
+     * Evaluates the expression over the given samples.
+     *
+     * @param samples The samples scraped from all pods.
+     * @return The value of the expression; aggregations without matching series count as 0.
+     */
+    public double evaluate(List<Sample> samples) {
+        return root.evaluate(samples);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * Parses metrics in the Prometheus text exposition format. Comments, malformed lines and samples whose
+     * value is not a finite number are skipped.
+     *
+     * @param text The scraped metrics.
+     * @return The samples.
+     */
+    public static List<Sample> parseSamples(String text) {
+        List<Sample> samples = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                Parser parser = new Parser(line);
+                String name = parser.parseIdentifier();
+                Map<String, String> labels = parser.parseLabels();
+                parser.skipWhitespace();
+                String rest = line.substring(parser.position).trim();
+                int end = rest.indexOf(' ');
+                double value = Double.parseDouble(end < 0 ? rest : rest.substring(0, end));
+                if (!Double.isNaN(value)) {
+                    samples.add(new Sample(name, labels, value));
+                }
+            } catch (IllegalArgumentException e) {
+                // Malformed line or a value such as +Inf; skip it
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * A single scraped sample: metric name, labels and value.
+     */
+    public static class Sample {
+        private final String name;
+        private final Map<String, String> labels;
+        private final double value;
+
+        public Sample(String name, Map<String, String> labels, double value) {
+            this.name = name;
+            this.labels = labels;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Map<String, String> getLabels() {
+            return labels;
+        }
+
+        public double getValue() {
+            return value;
+        }
+    }
+
+    private interface Node {
+        double evaluate(List<Sample> samples);
+    }
+
+    /**
+     * Recursive descent parser for expressions and for the name and labels of sample lines.
+     */
+    private static class Parser {
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node parseExpression() {
+            Node left = parseTerm();
+            while (true) {
+                char operator = peek();
+                if (operator != '+' && operator != '-') {
+                    return left;
+                }
+                position++;
+                Node l = left;
+                Node r = parseTerm();
+                left = operator == '+' ? samples -> l.evaluate(samples) + r.evaluate(samples)
+                        : samples -> l.evaluate(samples) - r.evaluate(samples);
+            }
+        }
+
+        Node parseTerm() {
+            Node left = parseFactor();
+            while (true) {
+                char operator = peek();
+                if (operator != '*' && operator != '/') {
+                    return left;
+                }
+                position++;
+                Node l = left;
+                Node r = parseFactor();
+                left = operator == '*' ? samples -> l.evaluate(samples) * r.evaluate(samples)
+                        : samples -> {
+                            double divisor = r.evaluate(samples);
+                            return divisor == 0 ? 0 : l.evaluate(samples) / divisor;
+                        };
+            }
+        }
+
+        Node parseFactor() {
+            char c = peek();
+            if (c == '-') {
+                position++;
+                Node operand = parseFactor();
+                return samples -> -operand.evaluate(samples);
+            }
+            if (c == '(') {
+                position++;
+                Node inner = parseExpression();
+                expect(')');
+                return inner;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                int start = position;
+                while (position < text.length() && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                    position++;
+                }
+                double value = Double.parseDouble(text.substring(start, position));
+                return samples -> value;
+            }
+            String identifier = parseIdentifier();
+            if (AGGREGATIONS.contains(identifier) && peek() == '(') {
+                position++;
+                Node selector = parseSelector(parseIdentifier(), identifier);
+                expect(')');
+                return selector;
+            }
+            return parseSelector(identifier, "sum");
+        }
+
+        Node parseSelector(String name, String aggregation) {
+            Map<String, String> matchers = parseLabels();
+            return samples -> aggregate(aggregation, samples.stream()
+                    .filter(sample -> sample.getName().equals(name))
+                    .filter(sample -> sample.getLabels().entrySet().containsAll(matchers.entrySet()))
+                    .mapToDouble(Sample::getValue)
+                    .toArray());
+        }
+
+        String parseIdentifier() {
+            skipWhitespace();
+            int start = position;
+            while (position < text.length()
+                    && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_' || text.charAt(position) == ':')) {
+                position++;
+            }
+            if (start == position) {
+                throw new IllegalArgumentException("Expected a metric name at position " + start + " of: " + text);
+            }
+            return text.substring(start, position);
+        }
+
+        Map<String, String> parseLabels() {
+            Map<String, String> labels = new HashMap<>();
+            if (position >= text.length() || text.charAt(position) != '{') {
+                return labels;
+            }
+            position++;
+            while (peek() != '}') {
+                String label = parseIdentifier();
+                expect('=');
+                expect('"');
+                StringBuilder value = new StringBuilder();
+                while (position < text.length() && text.charAt(position) != '"') {
+                    char c = text.charAt(position++);
+                    if (c == '\\' && position < text.length()) {
+                        char escaped = text.charAt(position++);
+                        value.append(escaped == 'n' ? '\n' : escaped);
+                    } else {
+                        value.append(c);
+                    }
+                }
+                expect('"');
+                labels.put(label, value.toString());
+                if (peek() == ',') {
+                    position++;
+                }
+            }
+            position++;
+            return labels;
+        }
+
+        char peek() {
+            skipWhitespace();
+            return position < text.length() ? text.charAt(position) : '\0';
+        }
+
+        void expect(char expected) {
+            if (peek() != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' at position " + position + " of: " + text);
+            }
+            position++;
+        }
+
+        void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private static double aggregate(String aggregation, double[] values) {
+            if (values.length == 0) {
+                return 0;
+            }
+            switch (aggregation) {
+                case "avg":
+                    return Arrays.stream(values).average().orElse(0);
+                case "min":
+                    return Arrays.stream(values).min().orElse(0);
+                case "max":
+                    return Arrays.stream(values).max().orElse(0);
+                case "count":
+                    return values.length;
+                default:
+                    return Arrays.stream(values).sum();
+            }
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Resource;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Operator-native autoscaler driven by the metrics the workload exposes itself.
+ *
+ * For every custom resource with {@code spec.metricScaling.enabled}, a task scrapes the Prometheus endpoint of
+ * each ready pod of the serving Deployment every {@code scrapeIntervalSeconds}, evaluates the
+ * {@link MetricExpression} in {@code query} over the samples of all pods, and scales the Deployment to
+ * {@code ceil(value / targetValue)} replicas within {@code minReplicas} and {@code maxReplicas}. As in the
+ * HorizontalPodAutoscaler, a scale-up uses the lowest and a scale-down the highest desired replica count seen
+ * within the respective stabilization window, and no further change is made during {@code cooldownSeconds}
+ * after a scaling action. The reconciliation only registers and unregisters the tasks; the scaling itself runs
+ * on a small pool of {@code metric-scaler} threads, and the pods of a resource are scraped in parallel on the
+ * {@code metric-scraper} threads, each within {@value #SCRAPE_TIMEOUT_MILLIS} milliseconds, so that slow pods
+ * delay neither the other pods nor the other resources.
+ */
+public class MetricScaler {
+
+    private static final String DEFAULT_PATH = "/actuator/prometheus";
+    private static final int DEFAULT_SCRAPE_INTERVAL_SECONDS = 30;
+    private static final int DEFAULT_SCALE_UP_STABILIZATION_SECONDS = 0;
+    private static final int DEFAULT_SCALE_DOWN_STABILIZATION_SECONDS = 300;
+    private static final int DEFAULT_COOLDOWN_SECONDS = 60;
+    private static final int DEFAULT_MIN_REPLICAS = 1;
+    private static final int SCRAPE_TIMEOUT_MILLIS = 5000;
+    private static final int SCALER_THREADS = 2;
+    private static final int SCRAPER_THREADS = 8;
+
+    /**
+     * Resolves the metrics endpoints to scrape for a custom resource. The default resolves the ready pods of the
+     * serving Deployment; tests can point the scaler at a local HTTP stand-in instead.
+     */
+    public interface EndpointResolver {
+        /**
+         * Returns the URLs to scrape.
+         *
+         * @param resource The custom resource.
+         * @return One URL per pod.
+         */
+        List<String> resolve(PaymentHubDeployment resource);
+    }
+
+    private final KubernetesClient kubernetesClient;
+    private final EndpointResolver endpointResolver;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService scraper;
+    private final Map<String, ScalingTask> tasks = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(MetricScaler.class);
+
+    public MetricScaler(KubernetesClient kubernetesClient) {
+        this(kubernetesClient, null);
+    }
+
+    public MetricScaler(KubernetesClient kubernetesClient, EndpointResolver endpointResolver) {
+        this.kubernetesClient = kubernetesClient;
+        this.endpointResolver = endpointResolver != null ? endpointResolver : this::resolvePodEndpoints;
+        this.scheduler = Executors.newScheduledThreadPool(SCALER_THREADS, daemonThreads("metric-scaler"));
+        this.scraper = Executors.newFixedThreadPool(SCRAPER_THREADS, daemonThreads("metric-scraper"));
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Tells whether the metric scaler is enabled for the custom resource.
+     *
+     * @param resource The custom resource.
+     * @return true if {@code spec.metricScaling.enabled} is set.
+     */
+    public static boolean isMetricScalingEnabled(PaymentHubDeployment resource) {
+        return resource.getSpec().getMetricScaling() != null && Boolean.TRUE.equals(resource.getSpec().getMetricScaling().getEnabled());
+    }
+
+    /**
+     * Returns the replica count a new Deployment starts with when its replicas are managed by the metric scaler.
+     *
+     * @param resource The custom resource.
+     * @return The minimum replica count of the scaler, or {@code spec.replicas} if that is higher.
+     */
+    public static Integer getInitialReplicas(PaymentHubDeployment resource) {
+        int minReplicas = getMinReplicas(resource.getSpec().getMetricScaling());
+        Integer replicas = resource.getSpec().getReplicas();
+        return replicas != null && replicas > minReplicas ? replicas : minReplicas;
+    }
+
+    /**
+     * Starts scaling the given custom resource, or updates its settings if it is already being scaled. The
+     * scaling history is kept as long as the scrape interval does not change.
+     *
+     * @param resource The custom resource.
+     * @throws IllegalArgumentException If the query or target value is not valid.
+     */
+    public void register(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.MetricScaling spec = resource.getSpec().getMetricScaling();
+        if (spec.getQuery() == null || spec.getTargetValue() == null || spec.getTargetValue() <= 0) {
+            throw new IllegalArgumentException("spec.metricScaling needs a query and a positive targetValue");
+        }
+        MetricExpression query = MetricExpression.parse(spec.getQuery());
+        String key = key(resource);
+        int interval = spec.getScrapeIntervalSeconds() != null ? spec.getScrapeIntervalSeconds() : DEFAULT_SCRAPE_INTERVAL_SECONDS;
+
+        ScalingTask existing = tasks.get(key);
+        if (existing != null && existing.interval == interval) {
+            existing.update(resource, query);
+            return;
+        }
+        if (existing != null) {
+            existing.future.cancel(false);
+        }
+        ScalingTask task = new ScalingTask(resource, query, interval);
+        task.future = scheduler.scheduleWithFixedDelay(task::run, interval, interval, TimeUnit.SECONDS);
+        tasks.put(key, task);
+        log.info("Metric scaling of {} started, scraping every {} seconds.", key, interval);
+    }
+
+    /**
+     * Stops scaling the given custom resource, if it is being scaled.
+     *
+     * @param resource The custom resource.
+     */
+    public void unregister(PaymentHubDeployment resource) {
+        ScalingTask task = tasks.remove(key(resource));
+        if (task != null) {
+            task.future.cancel(false);
+            Map<String, String> labels = gaugeLabels(resource);
+            MetricsUtil.removeSeries("phee_operator_metric_scaler_value", labels);
+            MetricsUtil.removeSeries("phee_operator_metric_scaler_desired_replicas", labels);
+            log.info("Metric scaling of {} stopped.", key(resource));
+        }
+    }
+
+    /**
+     * Scrapes the metrics endpoints of the resource in parallel and returns the samples of all pods together.
+     * Pods that cannot be scraped within the scrape timeout are skipped.
+     *
+     * @param resource The custom resource.
+     * @return The samples.
+     */
+    public List<MetricExpression.Sample> scrape(PaymentHubDeployment resource) {
+        List<String> endpoints = endpointResolver.resolve(resource);
+        List<CompletableFuture<List<MetricExpression.Sample>>> scrapes = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            scrapes.add(CompletableFuture.supplyAsync(() -> scrapeEndpoint(endpoint), scraper));
+        }
+        // The timeouts of a connection bound each read, not the whole response, so the wait has a deadline too
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SCRAPE_TIMEOUT_MILLIS);
+        List<MetricExpression.Sample> samples = new ArrayList<>();
+        for (int i = 0; i < scrapes.size(); i++) {
+            try {
+                samples.addAll(scrapes.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                scrapes.get(i).cancel(true);
+                log.debug("Scraping {} timed out.", endpoints.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.debug("Scraping {} failed: {}", endpoints.get(i), e.getMessage());
+            }
+        }
+        return samples;
+    }
+
+    private static List<MetricExpression.Sample> scrapeEndpoint(String endpoint) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+            connection.setConnectTimeout(SCRAPE_TIMEOUT_MILLIS);
+            connection.setReadTimeout(SCRAPE_TIMEOUT_MILLIS);
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                }
+                return MetricExpression.parseSamples(new String(body.toByteArray(), StandardCharsets.UTF_8));
+            } finally {
+                connection.disconnect();
+            }
+        } catch (Exception e) {
+            log.debug("Scraping {} failed: {}", endpoint, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private List<String> resolvePodEndpoints(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.MetricScaling spec = resource.getSpec().getMetricScaling();
+        Integer port = spec.getPort() != null ? spec.getPort() : resource.getSpec().getContainerPort();
+        String path = spec.getPath() != null ? spec.getPath() : DEFAULT_PATH;
+
+        List<String> endpoints = new ArrayList<>();
+        List<Pod> pods = kubernetesClient.pods()
+                .inNamespace(resource.getMetadata().getNamespace())
+                .withLabel("app", resource.getMetadata().getName())
+                .list()
+                .getItems();
+        for (Pod pod : pods) {
+            if (pod.getStatus() != null && pod.getStatus().getPodIP() != null && isReady(pod)) {
+                endpoints.add("http://" + pod.getStatus().getPodIP() + ":" + port + path);
+            }
+        }
+        return endpoints;
+    }
+
+    private static boolean isReady(Pod pod) {
+        return pod.getStatus().getConditions() != null && pod.getStatus().getConditions().stream()
+                .anyMatch(condition -> "Ready".equals(condition.getType()) && "True".equals(condition.getStatus()));
+    }
+
+    private static int getMinReplicas(PaymentHubDeploymentSpec.MetricScaling spec) {
+        return spec != null && spec.getMinReplicas() != null ? spec.getMinReplicas() : DEFAULT_MIN_REPLICAS;
+    }
+
+    private static int orDefault(Integer value, int defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    private static Map<String, String> gaugeLabels(PaymentHubDeployment resource) {
+        return MetricsUtil.labels("namespace", resource.getMetadata().getNamespace(), "resource", resource.getMetadata().getName());
+    }
+
+    private static String key(PaymentHubDeployment resource) {
+        return resource.getMetadata().getNamespace() + "/" + resource.getMetadata().getName();
+    }
+
+    /**
+     * The periodic scaling of one custom resource, with its recommendation history.
+     */
+    private class ScalingTask {
+        private final int interval;
+        private volatile PaymentHubDeployment resource;
+        private volatile MetricExpression query;
+        private ScheduledFuture<?> future;
+        // Desired replica counts by time of recommendation, oldest first
+        private final Deque<long[]> recommendations = new ArrayDeque<>();
+        private long lastScaledAt;
+
+        ScalingTask(PaymentHubDeployment resource, MetricExpression query, int interval) {
+            this.resource = resource;
+            this.query = query;
+            this.interval = interval;
+        }
+
+        void update(PaymentHubDeployment resource, MetricExpression query) {
+            this.resource = resource;
+            this.query = query;
+        }
+
+        void run() {
+            PaymentHubDeployment current = resource;
+            String key = key(current);
+            try {
+                PaymentHubDeploymentSpec.MetricScaling spec = current.getSpec().getMetricScaling();
+                Resource<Deployment> deploymentResource = kubernetesClient.apps().deployments()
+                        .inNamespace(current.getMetadata().getNamespace())
+                        .withName(BlueGreenUtils.getActiveDeploymentName(current));
+                Deployment deployment = deploymentResource.get();
+                if (deployment == null && kubernetesClient.resources(PaymentHubDeployment.class)
+                        .inNamespace(current.getMetadata().getNamespace())
+                        .withName(current.getMetadata().getName())
+                        .get() == null) {
+                    // The custom resource was deleted
+                    unregister(current);
+                    return;
+                }
+                if (deployment == null || deployment.getSpec().getReplicas() == null || deployment.getSpec().getReplicas() == 0) {
+                    // Nothing to scale, or kept at zero on purpose (warm standby)
+                    return;
+                }
+
+                List<MetricExpression.Sample> samples = scrape(current);
+                if (samples.isEmpty()) {
+                    log.debug("No metrics scraped for {}, keeping the replica count.", key);
+                    return;
+                }
+                double value = query.evaluate(samples);
+                int minReplicas = getMinReplicas(spec);
+                int maxReplicas = Math.max(minReplicas, orDefault(spec.getMaxReplicas(), minReplicas));
+                int desired = (int) Math.min(maxReplicas, Math.max(minReplicas, Math.ceil(value / spec.getTargetValue())));
+
+                long now = System.currentTimeMillis();
+                recommendations.addLast(new long[] {now, desired});
+                int upWindow = orDefault(spec.getScaleUpStabilizationSeconds(), DEFAULT_SCALE_UP_STABILIZATION_SECONDS);
+                int downWindow = orDefault(spec.getScaleDownStabilizationSeconds(), DEFAULT_SCALE_DOWN_STABILIZATION_SECONDS);
+                long keepSince = now - Math.max(upWindow, downWindow) * 1000L;
+                while (!recommendations.isEmpty() && recommendations.peekFirst()[0] < keepSince) {
+                    recommendations.removeFirst();
+                }
+
+                int replicas = deployment.getSpec().getReplicas();
+                int target = replicas;
+                if (desired > replicas) {
+                    target = (int) Math.max(replicas, stabilized(now - upWindow * 1000L, true));
+                } else if (desired < replicas) {
+                    target = (int) Math.min(replicas, stabilized(now - downWindow * 1000L, false));
+                }
+
+                MetricsUtil.setGauge("phee_operator_metric_scaler_value", "Value of the metric scaling query",
+                        gaugeLabels(current), value);
+                MetricsUtil.setGauge("phee_operator_metric_scaler_desired_replicas", "Replica count desired by the metric scaler",
+                        gaugeLabels(current), desired);
+
+                int cooldown = orDefault(spec.getCooldownSeconds(), DEFAULT_COOLDOWN_SECONDS);
+                if (target == replicas) {
+                    return;
+                }
+                if (now - lastScaledAt < cooldown * 1000L) {
+                    log.debug("Metric scaling of {} to {} replicas held back by the cooldown.", key, target);
+                    return;
+                }
+                deploymentResource.scale(target);
+                lastScaledAt = now;
+                log.info("Scaled {} from {} to {} replicas, {} = {} with target {}.", deployment.getMetadata().getName(),
+                        replicas, target, query, value, spec.getTargetValue());
+            } catch (Exception e) {
+                log.warn("Metric scaling of {} failed: {}", key, e.getMessage());
+            }
+        }
+
+        /**
+         * Returns the lowest (for a scale-up) or highest (for a scale-down) recommendation made since the given time.
+         */
+        private long stabilized(long since, boolean up) {
+            long result = up ? Long.MAX_VALUE : Long.MIN_VALUE;
+            for (long[] recommendation : recommendations) {
+                if (recommendation[0] >= since) {
+                    result = up ? Math.min(result, recommendation[1]) : Math.max(result, recommendation[1]);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.paymenthub.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Minimal in-process metrics registry for the operator.
+ *
+ * Metrics are kept in memory and rendered in the Prometheus text exposition format by {@link #scrape()},
+ * which the {@link AdminServer} serves on {@code /metrics}. Label sets are identified by their rendered
+ * form, so the same name and labels always update the same series.
+ */
+public class MetricsUtil {
+
+    private static final ConcurrentMap<String, MetricFamily> families = new ConcurrentHashMap<>();
+
+    /**
+     * Builds an ordered label map from alternating key/value arguments.
+     *
+     * @param keyValues Label names and values, e.g. {@code "kind", "Deployment", "outcome", "changed"}.
+     * @return The label map.
+     */
+    public static Map<String, String> labels(String... keyValues) {
+        Map<String, String> labels = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            labels.put(keyValues[i], keyValues[i + 1] == null ? "" : keyValues[i + 1]);
+        }
+        return labels;
+    }
+
+    /**
+     * Increments a counter series.
+     *
+     * @param name The metric name.
+     * @param help The help text shown in the exposition output.
+     * @param labels The label set of the series.
+     * @param amount The amount to add.
+     */
+    public static void incrementCounter(String name, String help, Map<String, String> labels, double amount) {
+        family(name, help, "counter").counters
+                .computeIfAbsent(renderLabels(labels), key -> new DoubleAdder())
+                .add(amount);
+    }
+
+    /**
+     * Sets a gauge series to the given value.
+     *
+     * @param name The metric name.
+     * @param help The help text shown in the exposition output.
+     * @param labels The label set of the series.
+     * @param value The current value.
+     */
+    public static void setGauge(String name, String help, Map<String, String> labels, double value) {
+        family(name, help, "gauge").gauges.put(renderLabels(labels), value);
+    }
+
+    /**
+     * Records an observation in a histogram series.
+     *
+     * @param name The metric name.
+     * @param help The help text shown in the exposition output.
+     * @param labels The label set of the series.
+     * @param buckets The upper bounds of the buckets, ascending; the same for every observation of the metric.
+     * @param value The observed value.
+     */
+    public static void observeHistogram(String name, String help, Map<String, String> labels, double[] buckets, double value) {
+        family(name, help, "histogram").histograms
+                .computeIfAbsent(renderLabels(labels), key -> new Histogram(labels, buckets))
+                .observe(value);
+    }
+
+    /**
+     * Removes a series, e.g. one labelled with a resource that no longer exists.
+     *
+     * @param name The metric name.
+     * @param labels The label set of the series.
+     */
+    public static void removeSeries(String name, Map<String, String> labels) {
+        MetricFamily family = families.get(name);
+        if (family != null) {
+            String key = renderLabels(labels);
+            family.counters.remove(key);
+            family.gauges.remove(key);
+            family.histograms.remove(key);
+        }
+    }
+
+    /**
+     * Renders all registered metrics in the Prometheus text exposition format.
+     *
+     * @return The exposition text.
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (MetricFamily family : new TreeMap<>(families).values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, DoubleAdder> series : new TreeMap<>(family.counters).entrySet()) {
+                appendSample(out, family.name, series.getKey(), series.getValue().sum());
+            }
+            for (Map.Entry<String, Double> series : new TreeMap<>(family.gauges).entrySet()) {
+                appendSample(out, family.name, series.getKey(), series.getValue());
+            }
+            for (Map.Entry<String, Histogram> series : new TreeMap<>(family.histograms).entrySet()) {
+                series.getValue().append(out, family.name);
+            }
+        }
+        return out.toString();
+    }
+
+    private static MetricFamily family(String name, String help, String type) {
+        return families.computeIfAbsent(name, key -> new MetricFamily(name, help, type));
+    }
+
+    private static void appendSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String renderLabels(Map<String, String> labels) {
+        if (labels == null || labels.isEmpty()) {
+            return "";
+        }
+        StringBuilder rendered = new StringBuilder("{");
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            if (rendered.length() > 1) {
+                rendered.append(',');
+            }
+            rendered.append(label.getKey()).append("=\"").append(escape(label.getValue())).append('"');
+        }
+        return rendered.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static class MetricFamily {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final ConcurrentMap<String, DoubleAdder> counters = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Double> gauges = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+        private MetricFamily(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    /**
+     * A histogram series with cumulative buckets, as rendered in the exposition format.
+     */
+    private static class Histogram {
+        private final Map<String, String> labels;
+        private final double[] buckets;
+        private final DoubleAdder[] counts;
+        private final DoubleAdder sum = new DoubleAdder();
+        private final DoubleAdder count = new DoubleAdder();
+
+        private Histogram(Map<String, String> labels, double[] buckets) {
+            this.labels = labels != null ? new LinkedHashMap<>(labels) : new LinkedHashMap<>();
+            this.buckets = buckets.clone();
+            this.counts = new DoubleAdder[buckets.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new DoubleAdder();
+            }
+        }
+
+        private void observe(double value) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (value <= buckets[i]) {
+                    counts[i].add(1);
+                }
+            }
+            sum.add(value);
+            count.add(1);
+        }
+
+        private void append(StringBuilder out, String name) {
+            for (int i = 0; i < buckets.length; i++) {
+                appendSample(out, name + "_bucket", withBound(Double.toString(buckets[i])), counts[i].sum());
+            }
+            appendSample(out, name + "_bucket", withBound("+Inf"), count.sum());
+            appendSample(out, name + "_sum", renderLabels(labels), sum.sum());
+            appendSample(out, name + "_count", renderLabels(labels), count.sum());
+        }
+
+        private String withBound(String bound) {
+            Map<String, String> bucketLabels = new LinkedHashMap<>(labels);
+            bucketLabels.put("le", bound);
+            return renderLabels(bucketLabels);
+        }
+    }
+}
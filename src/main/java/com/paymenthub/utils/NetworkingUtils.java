@@ -123,8 +123,7 @@ public class NetworkingUtils {
                                 .withOwnerReferences(OwnerReferenceUtils.createOwnerReferences(resource)) 
                             .endMetadata()
                             .withNewSpec()
-                                .withSelector(serviceSpec.getSelector() != null ? serviceSpec.getSelector() :
-                                        Map.of("app", resource.getMetadata().getName()))
+                                .withSelector(createServiceSelector(resource, serviceSpec, getActiveColor(resource)))
                                 .withPorts(ports)
                                 .withType(serviceSpec.getType() != null ? serviceSpec.getType() : "ClusterIP")
                                 .withSessionAffinity(serviceSpec.getSessionAffinity())
@@ -134,6 +133,63 @@ public class NetworkingUtils {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Points the Services of the given custom resource at the pods of one blue/green color, or at all pods of
+     * the resource if no color is given. Each Service selector is changed with a single patch, so traffic moves
+     * from one color to the other at once.
+     *
+     * @param resource The custom resource specifying the service configuration.
+     * @param color The color to send traffic to, or null to select the pods regardless of color.
+     */
+    public void switchServiceSelectors(PaymentHubDeployment resource, String color) {
+        if (resource.getSpec().getServices() == null) {
+            return;
+        }
+        for (PaymentHubDeploymentSpec.Service serviceSpec : resource.getSpec().getServices()) {
+            Resource<Service> serviceResource = kubernetesClient.services()
+                    .inNamespace(resource.getMetadata().getNamespace())
+                    .withName(serviceSpec.getName());
+            if (serviceResource.get() == null) {
+                log.warn("Service {} not found, skipping selector switch.", serviceSpec.getName());
+                continue;
+            }
+            Map<String, String> selector = createServiceSelector(resource, serviceSpec, color);
+            serviceResource.edit(service -> new ServiceBuilder(service)
+                    .editSpec()
+                        .withSelector(selector)
+                    .endSpec()
+                    .build());
+            log.info("Switched Service {} to selector {}.", serviceSpec.getName(), selector);
+        }
+    }
+
+    /**
+     * Creates the selector of a Service: the selector from the spec, or the app label of the resource, narrowed
+     * down to the active blue/green color if there is one.
+     *
+     * @param resource The custom resource.
+     * @param serviceSpec The service specification.
+     * @param color The active blue/green color, or null.
+     * @return The Service selector.
+     */
+    private Map<String, String> createServiceSelector(PaymentHubDeployment resource, PaymentHubDeploymentSpec.Service serviceSpec, String color) {
+        Map<String, String> selector = new HashMap<>(serviceSpec.getSelector() != null ? serviceSpec.getSelector() :
+                Map.of("app", resource.getMetadata().getName()));
+        if (color != null) {
+            selector.put(BlueGreenUtils.COLOR_LABEL, color);
+        }
+        return selector;
+    }
+
+    private String getActiveColor(PaymentHubDeployment resource) {
+        String activeColor = resource.getStatus() != null ? resource.getStatus().getActiveColor() : null;
+        if (BlueGreenUtils.LEGACY.equals(activeColor) && !BlueGreenUtils.isBlueGreen(resource)) {
+            // Switched back before the first blue/green release; the Deployment is rolled without the color label
+            return null;
+        }
+        return activeColor;
+    }
+
     /**
      * Reconciles the Ingress for the given custom resource.
      * This includes creating or updating the Ingress as necessary.
@@ -221,4 +277,122 @@ public class NetworkingUtils {
                 .build();
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns the name of the canary Ingress of the given custom resource.
+     *
+     * @param resource The custom resource.
+     * @return The canary Ingress name.
+     */
+    public static String getCanaryIngressName(PaymentHubDeployment resource) {
+        return resource.getMetadata().getName() + "-ingress-canary";
+    }
+
+    /**
+     * Reconciles the canary Services: one copy of every Service of the resource, named {@code <service>-canary},
+     * selecting the canary pods instead of the stable ones.
+     *
+     * @param resource The custom resource specifying the service configuration.
+     */
+    public void reconcileCanaryServices(PaymentHubDeployment resource) {
+        if (resource.getSpec().getServices() == null) {
+            return;
+        }
+        for (Service stableService : createServices(resource)) {
+            Service desiredService = toCanaryService(resource, stableService);
+            Resource<Service> serviceResource = kubernetesClient.services()
+                    .inNamespace(resource.getMetadata().getNamespace())
+                    .withName(desiredService.getMetadata().getName());
+
+            Service existingService = serviceResource.get();
+            if (existingService == null) {
+                serviceResource.create(desiredService);
+                log.info("Created canary Service: {}", desiredService.getMetadata().getName());
+            } else if (!areServicesEqual(existingService, desiredService)) {
+                serviceResource.patch(desiredService);
+                log.info("Updated canary Service: {}", desiredService.getMetadata().getName());
+            }
+        }
+    }
+
+    /**
+     * Reconciles the canary Ingress: a copy of the Ingress of the resource that routes to the canary Services
+     * and carries the nginx canary annotations, so that the given share of requests reaches the canary.
+     *
+     * @param resource The custom resource specifying the Ingress configuration.
+     * @param weight The percentage of requests to send to the canary.
+     */
+    public void reconcileCanaryIngress(PaymentHubDeployment resource, int weight) {
+        String ingressName = getCanaryIngressName(resource);
+        Ingress ingress = createIngress(resource, ingressName);
+
+        Set<String> stableServices = resource.getSpec().getServices() == null ? Collections.emptySet()
+                : resource.getSpec().getServices().stream()
+                        .map(PaymentHubDeploymentSpec.Service::getName)
+                        .collect(Collectors.toSet());
+        for (IngressRule rule : ingress.getSpec().getRules()) {
+            for (HTTPIngressPath path : rule.getHttp().getPaths()) {
+                IngressServiceBackend backend = path.getBackend().getService();
+                if (backend != null && stableServices.contains(backend.getName())) {
+                    backend.setName(backend.getName() + "-canary");
+                }
+            }
+        }
+
+        Map<String, String> annotations = new HashMap<>();
+        if (ingress.getMetadata().getAnnotations() != null) {
+            annotations.putAll(ingress.getMetadata().getAnnotations());
+        }
+        annotations.put("nginx.ingress.kubernetes.io/canary", "true");
+        annotations.put("nginx.ingress.kubernetes.io/canary-weight", String.valueOf(weight));
+        ingress.getMetadata().setAnnotations(annotations);
+
+        Resource<Ingress> ingressResource = kubernetesClient.network().v1().ingresses()
+                .inNamespace(resource.getMetadata().getNamespace())
+                .withName(ingressName);
+        if (ingressResource.get() == null) {
+            ingressResource.create(ingress);
+            log.info("Created canary Ingress {} with weight {}.", ingressName, weight);
+        } else {
+            ingressResource.patch(ingress);
+            log.info("Updated canary Ingress {} to weight {}.", ingressName, weight);
+        }
+    }
+
+    /**
+     * Deletes the canary Ingress and the canary Services of the given custom resource.
+     *
+     * @param resource The custom resource.
+     */
+    public void deleteCanaryNetworking(PaymentHubDeployment resource) {
+        String namespace = resource.getMetadata().getNamespace();
+        String ingressName = getCanaryIngressName(resource);
+        if (kubernetesClient.network().v1().ingresses().inNamespace(namespace).withName(ingressName).get() != null) {
+            kubernetesClient.network().v1().ingresses().inNamespace(namespace).withName(ingressName).delete();
+            log.info("Deleted canary Ingress: {}", ingressName);
+        }
+        if (resource.getSpec().getServices() == null) {
+            return;
+        }
+        for (PaymentHubDeploymentSpec.Service serviceSpec : resource.getSpec().getServices()) {
+            String serviceName = serviceSpec.getName() + "-canary";
+            if (kubernetesClient.services().inNamespace(namespace).withName(serviceName).get() != null) {
+                kubernetesClient.services().inNamespace(namespace).withName(serviceName).delete();
+                log.info("Deleted canary Service: {}", serviceName);
+            }
+        }
+    }
+
+    private Service toCanaryService(PaymentHubDeployment resource, Service stableService) {
+        Map<String, String> selector = new HashMap<>(stableService.getSpec().getSelector());
+        selector.put("app", CanaryUtils.getDeploymentName(resource));
+        return new ServiceBuilder(stableService)
+                .editMetadata()
+                    .withName(stableService.getMetadata().getName() + "-canary")
+                .endMetadata()
+                .editSpec()
+                    .withSelector(selector)
+                .endSpec()
+                .build();
+    }
+
+}
@@ -28,4 +28,22 @@ public class OwnerReferenceUtils {
                 .build()
         );
     }
+
+    /**
+     * Creates an OwnerReference that does not make the custom resource the controller, for objects owned by
+     * several custom resources at once. Kubernetes deletes such an object once all its owners are gone.
+     *
+     * @param resource The custom resource for which to create the OwnerReference.
+     * @return The OwnerReference.
+     */
+    public static OwnerReference createSharedOwnerReference(PaymentHubDeployment resource) {
+        return new OwnerReferenceBuilder()
+            .withApiVersion(resource.getApiVersion())
+            .withKind(resource.getKind())
+            .withName(resource.getMetadata().getName())
+            .withUid(resource.getMetadata().getUid())
+            .withController(false)
+            .withBlockOwnerDeletion(false)
+            .build();
+    }
 }
@@ -0,0 +1,222 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.api.model.scheduling.v1.PriorityClass;
+import io.fabric8.kubernetes.api.model.scheduling.v1.PriorityClassBuilder;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * Utility class translating {@code spec.performanceProfile} into scheduling and QoS settings.
+ *
+ * <ul>
+ *   <li>{@code latencyCritical}: Guaranteed QoS (requests equal to limits, and with {@code spec.exclusiveCpus} the
+ *   CPU rounded up to whole cores so that the static CPU manager can pin exclusive cores) and the
+ *   {@code ph-ee-latency-critical} PriorityClass.</li>
+ *   <li>{@code standard}: the resources and priority of the spec as they are; the default.</li>
+ *   <li>{@code batch}: the {@code ph-ee-batch} PriorityClass, which is below the default priority and never
+ *   preempts other pods.</li>
+ * </ul>
+ * With {@code spec.dedicatedNodePool} the pods are additionally restricted to nodes labelled
+ * {@code gazelle.mifos.io/node-pool=<pool>} and tolerate the matching {@code NoSchedule} taint.
+ */
+public class PerformanceProfileUtils {
+
+    public static final String LATENCY_CRITICAL = "latencyCritical";
+    public static final String STANDARD = "standard";
+    public static final String BATCH = "batch";
+
+    public static final String NODE_POOL_LABEL = "gazelle.mifos.io/node-pool";
+    public static final String LATENCY_CRITICAL_PRIORITY_CLASS = "ph-ee-latency-critical";
+    public static final String BATCH_PRIORITY_CLASS = "ph-ee-batch";
+
+    private static final int LATENCY_CRITICAL_PRIORITY = 1000000;
+    private static final int BATCH_PRIORITY = -1000;
+    private static final String MANAGED_BY_LABEL = "app.kubernetes.io/managed-by";
+    private static final String MANAGED_BY = "ph-ee-operator";
+
+    private final KubernetesClient kubernetesClient;
+    private static final Logger log = LoggerFactory.getLogger(PerformanceProfileUtils.class);
+
+    public PerformanceProfileUtils(KubernetesClient kubernetesClient) {
+        this.kubernetesClient = kubernetesClient;
+    }
+
+    /**
+     * Returns the performance profile of the custom resource.
+     *
+     * @param resource The custom resource.
+     * @return The profile, {@code standard} if none is set.
+     */
+    public static String getProfile(PaymentHubDeployment resource) {
+        return resource.getSpec().getPerformanceProfile() != null ? resource.getSpec().getPerformanceProfile() : STANDARD;
+    }
+
+    /**
+     * Returns the PriorityClass the pods of the custom resource run with.
+     *
+     * @param resource The custom resource.
+     * @return The PriorityClass name, or null for the default priority.
+     */
+    public static String getPriorityClassName(PaymentHubDeployment resource) {
+        switch (getProfile(resource)) {
+            case LATENCY_CRITICAL:
+                return LATENCY_CRITICAL_PRIORITY_CLASS;
+            case BATCH:
+                return BATCH_PRIORITY_CLASS;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Adjusts the resource requirements of the main container to the profile. For {@code latencyCritical} the
+     * requests are set to the limits, the limits being raised to the requests where they are lower. The CPU is
+     * only rounded up to whole cores when {@code spec.exclusiveCpus} asks for pinned cores; otherwise fractional
+     * values are kept, as rounding a 500m container up to a core would double its reservation for nothing.
+     *
+     * @param resource The custom resource.
+     * @param requests The requests, updated in place.
+     * @param limits The limits, updated in place.
+     */
+    public static void applyQualityOfService(PaymentHubDeployment resource, Map<String, Quantity> requests, Map<String, Quantity> limits) {
+        if (!LATENCY_CRITICAL.equals(getProfile(resource))) {
+            return;
+        }
+        for (String name : Arrays.asList("cpu", "memory")) {
+            Quantity request = requests.get(name);
+            Quantity limit = limits.get(name);
+            Quantity guaranteed = limit == null || (request != null
+                    && request.getNumericalAmount().compareTo(limit.getNumericalAmount()) > 0) ? request : limit;
+            if ("cpu".equals(name) && guaranteed != null && Boolean.TRUE.equals(resource.getSpec().getExclusiveCpus())) {
+                BigDecimal cores = guaranteed.getNumericalAmount().setScale(0, RoundingMode.CEILING).max(BigDecimal.ONE);
+                guaranteed = new Quantity(cores.toPlainString());
+            }
+            requests.put(name, guaranteed);
+            limits.put(name, guaranteed);
+        }
+    }
+
+    /**
+     * Applies the priority class and the dedicated node pool of the profile to a pod spec. For
+     * {@code latencyCritical}, init containers without resources get those of the main container, as a pod is
+     * only Guaranteed if all of its containers are.
+     *
+     * @param resource The custom resource.
+     * @param podSpecBuilder The pod spec being built, with its containers already set.
+     */
+    public static void applyProfile(PaymentHubDeployment resource, PodSpecBuilder podSpecBuilder) {
+        String priorityClassName = getPriorityClassName(resource);
+        if (priorityClassName != null) {
+            podSpecBuilder.withPriorityClassName(priorityClassName);
+        }
+
+        if (LATENCY_CRITICAL.equals(getProfile(resource)) && !podSpecBuilder.buildInitContainers().isEmpty()) {
+            ResourceRequirements mainResources = podSpecBuilder.buildContainers().get(0).getResources();
+            List<Container> initContainers = new ArrayList<>();
+            for (Container initContainer : podSpecBuilder.buildInitContainers()) {
+                if (initContainer.getResources() == null || initContainer.getResources().getLimits() == null
+                        || initContainer.getResources().getLimits().isEmpty()) {
+                    initContainer = new ContainerBuilder(initContainer).withResources(mainResources).build();
+                }
+                initContainers.add(initContainer);
+            }
+            podSpecBuilder.withInitContainers(initContainers);
+        }
+
+        applyNodePool(resource, podSpecBuilder);
+    }
+
+    /**
+     * Restricts a pod spec to the {@code spec.dedicatedNodePool} of the custom resource, if any, and lets it
+     * tolerate the taint of the pool.
+     *
+     * @param resource The custom resource.
+     * @param podSpecBuilder The pod spec being built.
+     */
+    public static void applyNodePool(PaymentHubDeployment resource, PodSpecBuilder podSpecBuilder) {
+        Toleration toleration = getNodePoolToleration(resource);
+        if (toleration != null) {
+            podSpecBuilder.addToNodeSelector(NODE_POOL_LABEL, toleration.getValue());
+            podSpecBuilder.addToTolerations(toleration);
+        }
+    }
+
+    /**
+     * Returns the toleration for the taint of the {@code spec.dedicatedNodePool} of the custom resource.
+     *
+     * @param resource The custom resource.
+     * @return The toleration, or null without a dedicated node pool.
+     */
+    public static Toleration getNodePoolToleration(PaymentHubDeployment resource) {
+        String pool = resource.getSpec().getDedicatedNodePool();
+        if (pool == null || pool.isEmpty()) {
+            return null;
+        }
+        return new TolerationBuilder()
+                .withKey(NODE_POOL_LABEL)
+                .withOperator("Equal")
+                .withValue(pool)
+                .withEffect("NoSchedule")
+                .build();
+    }
+
+    /**
+     * Makes sure the PriorityClass used by the profile of the custom resource exists with the operator's value
+     * and preemption policy. PriorityClasses are cluster-scoped and shared by all custom resources, and both
+     * fields are immutable, so one created by an operator version with other settings is replaced; running pods
+     * keep the priority they were admitted with. A PriorityClass of the same name not created by the operator is
+     * left alone.
+     *
+     * @param resource The custom resource.
+     */
+    public void reconcilePriorityClass(PaymentHubDeployment resource) {
+        String name = getPriorityClassName(resource);
+        if (name == null) {
+            return;
+        }
+        boolean latencyCritical = LATENCY_CRITICAL_PRIORITY_CLASS.equals(name);
+        PriorityClass priorityClass = new PriorityClassBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .addToLabels(MANAGED_BY_LABEL, MANAGED_BY)
+                .endMetadata()
+                .withValue(latencyCritical ? LATENCY_CRITICAL_PRIORITY : BATCH_PRIORITY)
+                .withPreemptionPolicy(latencyCritical ? "PreemptLowerPriority" : "Never")
+                .withGlobalDefault(false)
+                .withDescription(latencyCritical
+                        ? "Payment Hub EE components on the payment path, scheduled ahead of other workloads."
+                        : "Payment Hub EE batch components, scheduled after other workloads and never preempting them.")
+                .build();
+
+        PriorityClass existing = kubernetesClient.scheduling().v1().priorityClasses().withName(name).get();
+        if (existing == null) {
+            kubernetesClient.scheduling().v1().priorityClasses().resource(priorityClass).create();
+            log.info("Created PriorityClass: {}", name);
+            return;
+        }
+        if (Objects.equals(existing.getValue(), priorityClass.getValue())
+                && Objects.equals(existing.getPreemptionPolicy(), priorityClass.getPreemptionPolicy())) {
+            return;
+        }
+        Map<String, String> labels = existing.getMetadata().getLabels();
+        if (labels == null || !MANAGED_BY.equals(labels.get(MANAGED_BY_LABEL))) {
+            log.warn("PriorityClass {} was not created by the operator and differs from its settings, leaving it unchanged.", name);
+            return;
+        }
+        // Value and preemption policy cannot be updated in place
+        kubernetesClient.scheduling().v1().priorityClasses().resource(existing).lockResourceVersion().delete();
+        kubernetesClient.scheduling().v1().priorityClasses().resource(priorityClass).create();
+        log.info("Replaced PriorityClass {}: value {} -> {}, preemption policy {} -> {}.", name, existing.getValue(),
+                priorityClass.getValue(), existing.getPreemptionPolicy(), priorityClass.getPreemptionPolicy());
+    }
+}
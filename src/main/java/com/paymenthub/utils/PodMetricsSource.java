@@ -0,0 +1,38 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source of pod resource usage samples for the operator's own resource recommender, see
+ * {@link VerticalAutoscalingUtils}. The default implementation reads the {@code metrics.k8s.io} API served by
+ * metrics-server; other implementations can feed recorded or synthetic samples, e.g. in tests.
+ */
+public interface PodMetricsSource {
+
+    /**
+     * Returns the current usage of the pods matching the given labels.
+     *
+     * @param namespace The namespace of the pods.
+     * @param labels The labels selecting the pods.
+     * @return The usage of each matching pod, empty if there is none.
+     */
+    List<PodMetrics> getPodMetrics(String namespace, Map<String, String> labels);
+
+    /**
+     * Creates a source reading the {@code metrics.k8s.io} API through the given client.
+     *
+     * @param kubernetesClient The Kubernetes client.
+     * @return The metrics API source.
+     */
+    static PodMetricsSource metricsApi(KubernetesClient kubernetesClient) {
+        return (namespace, labels) -> kubernetesClient.top().pods()
+                .inNamespace(namespace)
+                .withLabels(labels)
+                .metrics()
+                .getItems();
+    }
+}
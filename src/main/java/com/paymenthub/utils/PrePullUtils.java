@@ -0,0 +1,359 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.api.model.apps.DaemonSet;
+import io.fabric8.kubernetes.api.model.apps.DaemonSetBuilder;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Resource;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Utility class pulling a new container image onto the cluster nodes before the Deployment is updated.
+ *
+ * When {@code spec.imagePrePull} is enabled and {@code spec.image} differs from the image of the running
+ * Deployment, a DaemonSet named {@code <name>-prepull} is created whose init container uses the new image and
+ * exits right away, so that the selected nodes pull the image while the old pods keep serving traffic. Without
+ * {@code spec.imagePrePull.nodeSelector}, the nodes are those the pods of the Deployment may be scheduled on. The
+ * Deployment update is held until the configured percentage of nodes report the image present, or until the
+ * timeout has passed. The DaemonSet is removed once the pre-pull is finished.
+ */
+public class PrePullUtils {
+
+    public static final String PREPULL_LABEL = "gazelle.mifos.io/prepull-for";
+    public static final String IMAGE_ANNOTATION = "gazelle.mifos.io/prepull-image";
+    public static final String STARTED_ANNOTATION = "gazelle.mifos.io/prepull-started";
+
+    private static final String PREPULL_CONTAINER = "prepull";
+    private static final String PAUSE_IMAGE = "registry.k8s.io/pause:3.9";
+    private static final int DEFAULT_MIN_NODE_PERCENTAGE = 100;
+    private static final int DEFAULT_TIMEOUT_SECONDS = 600;
+
+    // Waiting reasons reported once the image is on the node but the container could not run
+    private static final Set<String> PULLED_WAITING_REASONS = new HashSet<>(Arrays.asList(
+            "CrashLoopBackOff", "RunContainerError", "CreateContainerError", "CreateContainerConfigError"));
+
+    private final KubernetesClient kubernetesClient;
+    private static final Logger log = LoggerFactory.getLogger(PrePullUtils.class);
+
+    public PrePullUtils(KubernetesClient kubernetesClient) {
+        this.kubernetesClient = kubernetesClient;
+    }
+
+    /**
+     * Returns the name of the pre-pull DaemonSet of the given custom resource.
+     *
+     * @param resource The custom resource.
+     * @return The DaemonSet name.
+     */
+    public static String getDaemonSetName(PaymentHubDeployment resource) {
+        return resource.getMetadata().getName() + "-prepull";
+    }
+
+    /**
+     * Reconciles the image pre-pull for the given custom resource and reports whether the Deployment may be
+     * updated to the given image.
+     *
+     * @param resource The custom resource specifying the pre-pull configuration.
+     * @param image The image the Deployment is about to be updated to.
+     * @return The pre-pull progress; {@link Progress#isFinished()} is true when the Deployment update may proceed.
+     */
+    public Progress reconcilePrePull(PaymentHubDeployment resource, String image) {
+        PaymentHubDeploymentSpec.ImagePrePull prePull = resource.getSpec().getImagePrePull();
+        if (prePull == null || !Boolean.TRUE.equals(prePull.getEnabled()) || image == null) {
+            return Progress.finished("Image pre-pull is disabled.");
+        }
+
+        String name = resource.getMetadata().getName();
+        String namespace = resource.getMetadata().getNamespace();
+        Resource<DaemonSet> daemonSetResource = kubernetesClient.apps().daemonSets()
+                .inNamespace(namespace)
+                .withName(getDaemonSetName(resource));
+
+        Deployment current = kubernetesClient.apps().deployments()
+                .inNamespace(namespace)
+                .withName(BlueGreenUtils.getActiveDeploymentName(resource))
+                .get();
+        if (current == null || image.equals(getDeploymentImage(current, name))) {
+            // Nothing to roll out: the first creation pulls anyway, and an unchanged image needs no pre-pull
+            deleteDaemonSet(daemonSetResource, name);
+            return Progress.finished("Image " + image + " needs no pre-pull.");
+        }
+
+        DaemonSet existing = daemonSetResource.get();
+        if (existing == null || !image.equals(getAnnotation(existing, IMAGE_ANNOTATION))) {
+            DaemonSet desired = createPrePullDaemonSet(resource, image, prePull);
+            if (existing == null) {
+                daemonSetResource.create(desired);
+                log.info("Created pre-pull DaemonSet {} for image {}.", getDaemonSetName(resource), image);
+            } else {
+                daemonSetResource.replace(desired);
+                log.info("Updated pre-pull DaemonSet {} to image {}.", getDaemonSetName(resource), image);
+            }
+            return new Progress(false, 0, 0, "Started pre-pull of image " + image + ".");
+        }
+
+        int targetNodes = existing.getStatus() != null && existing.getStatus().getDesiredNumberScheduled() != null
+                ? existing.getStatus().getDesiredNumberScheduled() : 0;
+        boolean statusObserved = existing.getStatus() != null && existing.getStatus().getObservedGeneration() != null
+                && existing.getStatus().getObservedGeneration() >= existing.getMetadata().getGeneration();
+        int nodesWithImage = countNodesWithImage(namespace, name, image);
+        int minPercentage = prePull.getMinNodePercentage() != null ? prePull.getMinNodePercentage() : DEFAULT_MIN_NODE_PERCENTAGE;
+        String message = String.format("Image %s present on %d of %d nodes (%d%% required).",
+                image, nodesWithImage, targetNodes, minPercentage);
+
+        if (statusObserved && targetNodes == 0) {
+            log.warn("No node matches the pre-pull node selector of {}, continuing without pre-pull.", name);
+            deleteDaemonSet(daemonSetResource, name);
+            return new Progress(true, 0, 0, "No node matches the pre-pull node selector.");
+        }
+        if (targetNodes > 0 && nodesWithImage * 100 >= minPercentage * targetNodes) {
+            log.info("Pre-pull for {} finished: {}", name, message);
+            deleteDaemonSet(daemonSetResource, name);
+            return new Progress(true, nodesWithImage, targetNodes, message);
+        }
+
+        int timeoutSeconds = prePull.getTimeoutSeconds() != null ? prePull.getTimeoutSeconds() : DEFAULT_TIMEOUT_SECONDS;
+        Instant started = getStartTime(existing);
+        if (Instant.now().isAfter(started.plus(Duration.ofSeconds(timeoutSeconds)))) {
+            log.warn("Pre-pull for {} timed out after {} seconds, continuing the rollout: {}", name, timeoutSeconds, message);
+            deleteDaemonSet(daemonSetResource, name);
+            return new Progress(true, nodesWithImage, targetNodes, "Pre-pull timed out. " + message);
+        }
+
+        log.info("Pre-pull for {} in progress: {}", name, message);
+        return new Progress(false, nodesWithImage, targetNodes, message);
+    }
+
+    /**
+     * Counts the nodes whose pre-pull pod has the given image available, i.e. the pre-pull init container has
+     * been started at least once.
+     *
+     * @param namespace The namespace of the pre-pull pods.
+     * @param name The name of the custom resource.
+     * @param image The image being pulled.
+     * @return The number of distinct nodes holding the image.
+     */
+    private int countNodesWithImage(String namespace, String name, String image) {
+        Set<String> nodes = new HashSet<>();
+        List<Pod> pods = kubernetesClient.pods()
+                .inNamespace(namespace)
+                .withLabel(PREPULL_LABEL, name)
+                .list()
+                .getItems();
+
+        for (Pod pod : pods) {
+            // Pods of the previous DaemonSet template may still be around while they are replaced
+            boolean currentImage = pod.getSpec().getInitContainers().stream()
+                    .anyMatch(container -> PREPULL_CONTAINER.equals(container.getName()) && image.equals(container.getImage()));
+            if (!currentImage || pod.getSpec().getNodeName() == null || pod.getStatus() == null) {
+                continue;
+            }
+            boolean pulled = pod.getStatus().getInitContainerStatuses().stream()
+                    .filter(status -> PREPULL_CONTAINER.equals(status.getName()))
+                    .anyMatch(PrePullUtils::isImagePresent);
+            if (pulled) {
+                nodes.add(pod.getSpec().getNodeName());
+            }
+        }
+        return nodes.size();
+    }
+
+    /**
+     * Tells from a container status whether the container image is present on the node.
+     *
+     * @param status The container status.
+     * @return true if the image has been pulled.
+     */
+    private static boolean isImagePresent(ContainerStatus status) {
+        if (status.getImageID() != null && !status.getImageID().isEmpty()) {
+            return true;
+        }
+        ContainerState state = status.getState();
+        if (state == null) {
+            return false;
+        }
+        return state.getRunning() != null
+                || state.getTerminated() != null
+                || (state.getWaiting() != null && PULLED_WAITING_REASONS.contains(state.getWaiting().getReason()));
+    }
+
+    /**
+     * Creates the pre-pull DaemonSet. The init container runs the new image with a no-op command, the main
+     * container is a pause container keeping the pod (and therefore the image reference) alive.
+     *
+     * @param resource The custom resource.
+     * @param image The image to pull.
+     * @param prePull The pre-pull configuration.
+     * @return The DaemonSet object.
+     */
+    private DaemonSet createPrePullDaemonSet(PaymentHubDeployment resource, String image, PaymentHubDeploymentSpec.ImagePrePull prePull) {
+        Map<String, String> labels = new HashMap<>();
+        labels.put(PREPULL_LABEL, resource.getMetadata().getName());
+        labels.put("app.kubernetes.io/managed-by", "ph-ee-operator");
+
+        Map<String, String> annotations = new HashMap<>();
+        annotations.put(IMAGE_ANNOTATION, image);
+        annotations.put(STARTED_ANNOTATION, Instant.now().toString());
+
+        ResourceRequirements minimalResources = new ResourceRequirementsBuilder()
+                .addToRequests("cpu", new Quantity("10m"))
+                .addToRequests("memory", new Quantity("16Mi"))
+                .addToLimits("cpu", new Quantity("50m"))
+                .addToLimits("memory", new Quantity("32Mi"))
+                .build();
+
+        Container prePullContainer = new ContainerBuilder()
+                .withName(PREPULL_CONTAINER)
+                .withImage(image)
+                .withImagePullPolicy("IfNotPresent")
+                .withCommand("sh", "-c", "exit 0")
+                .withResources(minimalResources)
+                .build();
+
+        Container pauseContainer = new ContainerBuilder()
+                .withName("pause")
+                .withImage(PAUSE_IMAGE)
+                .withResources(minimalResources)
+                .build();
+
+        PodSpecBuilder podSpecBuilder = new PodSpecBuilder()
+                .withAutomountServiceAccountToken(false)
+                .withTerminationGracePeriodSeconds(0L)
+                .withInitContainers(prePullContainer)
+                .withContainers(pauseContainer);
+        applyNodeSelection(resource, prePull, podSpecBuilder);
+
+        return new DaemonSetBuilder()
+                .withNewMetadata()
+                    .withName(getDaemonSetName(resource))
+                    .withNamespace(resource.getMetadata().getNamespace())
+                    .withLabels(labels)
+                    .withAnnotations(annotations)
+                    .withOwnerReferences(OwnerReferenceUtils.createOwnerReferences(resource))
+                .endMetadata()
+                .withNewSpec()
+                    .withNewSelector()
+                        .withMatchLabels(labels)
+                    .endSelector()
+                    .withNewUpdateStrategy()
+                        .withType("RollingUpdate")
+                        .withNewRollingUpdate()
+                            .withMaxUnavailable(new IntOrString("100%"))
+                        .endRollingUpdate()
+                    .endUpdateStrategy()
+                    .withNewTemplate()
+                        .withNewMetadata()
+                            .withLabels(labels)
+                        .endMetadata()
+                        .withSpec(podSpecBuilder.build())
+                    .endTemplate()
+                .endSpec()
+                .build();
+    }
+
+    /**
+     * Selects the nodes of the pre-pull pods: those of {@code spec.imagePrePull.nodeSelector} if set, otherwise the
+     * nodes the pods of the Deployment may run on, as selected by {@code spec.scheduling} and
+     * {@code spec.dedicatedNodePool}. The pods tolerate the taint of the dedicated node pool either way.
+     */
+    private static void applyNodeSelection(PaymentHubDeployment resource, PaymentHubDeploymentSpec.ImagePrePull prePull,
+                                           PodSpecBuilder podSpecBuilder) {
+        if (prePull.getNodeSelector() != null && !prePull.getNodeSelector().isEmpty()) {
+            podSpecBuilder.withNodeSelector(prePull.getNodeSelector());
+            Toleration toleration = PerformanceProfileUtils.getNodePoolToleration(resource);
+            if (toleration != null) {
+                podSpecBuilder.addToTolerations(toleration);
+            }
+            return;
+        }
+        SchedulingUtils.applyNodeSelection(resource, podSpecBuilder);
+        PerformanceProfileUtils.applyNodePool(resource, podSpecBuilder);
+    }
+
+    private void deleteDaemonSet(Resource<DaemonSet> daemonSetResource, String name) {
+        if (daemonSetResource.get() != null) {
+            daemonSetResource.delete();
+            log.info("Deleted pre-pull DaemonSet for {}.", name);
+        }
+    }
+
+    private static String getDeploymentImage(Deployment deployment, String containerName) {
+        List<Container> containers = deployment.getSpec().getTemplate().getSpec().getContainers();
+        return containers.stream()
+                .filter(container -> containerName.equals(container.getName()))
+                .findFirst()
+                .orElse(containers.isEmpty() ? new Container() : containers.get(0))
+                .getImage();
+    }
+
+    private static String getAnnotation(HasMetadata object, String key) {
+        Map<String, String> annotations = object.getMetadata().getAnnotations();
+        return annotations != null ? annotations.get(key) : null;
+    }
+
+    private static Instant getStartTime(DaemonSet daemonSet) {
+        String started = getAnnotation(daemonSet, STARTED_ANNOTATION);
+        try {
+            if (started != null) {
+                return Instant.parse(started);
+            }
+        } catch (DateTimeParseException e) {
+            log.warn("Invalid pre-pull start time '{}' on {}.", started, daemonSet.getMetadata().getName());
+        }
+        return Instant.parse(daemonSet.getMetadata().getCreationTimestamp());
+    }
+
+    /**
+     * Progress of an image pre-pull.
+     */
+    public static class Progress {
+        private final boolean finished;
+        private final int nodesWithImage;
+        private final int targetNodes;
+        private final String message;
+
+        public Progress(boolean finished, int nodesWithImage, int targetNodes, String message) {
+            this.finished = finished;
+            this.nodesWithImage = nodesWithImage;
+            this.targetNodes = targetNodes;
+            this.message = message;
+        }
+
+        static Progress finished(String message) {
+            return new Progress(true, 0, 0, message);
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        public int getNodesWithImage() {
+            return nodesWithImage;
+        }
+
+        public int getTargetNodes() {
+            return targetNodes;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return message;
+        }
+    }
+}
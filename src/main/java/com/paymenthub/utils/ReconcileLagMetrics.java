@@ -0,0 +1,120 @@
+package com.paymenthub.utils;
+
+import io.javaoperatorsdk.operator.api.monitoring.Metrics;
+import io.javaoperatorsdk.operator.processing.event.Event;
+import io.javaoperatorsdk.operator.processing.event.ResourceID;
+import io.javaoperatorsdk.operator.processing.event.source.controller.ResourceAction;
+import io.javaoperatorsdk.operator.processing.event.source.controller.ResourceEvent;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how long PaymentHubDeployments wait between a watch event and the start of their reconciliation.
+ *
+ * The first unapplied event of a resource, a change to the custom resource itself or to a ConfigMap or Secret it
+ * consumes, starts its clock; the reconciliation that passes the {@link ReconcileThrottle} and the
+ * {@link ReconcileQueue} stops it. The lag therefore includes the framework queue, debouncing, rate limiting and
+ * the priority queue, which is what a change experiences before it starts applying. Reconciliations rescheduled by
+ * the operator itself have no event and are not measured.
+ *
+ * Registered with the operator as its {@link Metrics}, so that it sees the events of the custom resource after the
+ * framework dropped those that do not change its generation; events of the consumed ConfigMaps and Secrets are
+ * reported by the controller through {@link #recordEvent}.
+ */
+public class ReconcileLagMetrics implements Metrics {
+
+    public static final String SOURCE_RESOURCE = "resource";
+    public static final String SOURCE_CONFIGMAP = "configmap";
+    public static final String SOURCE_SECRET = "secret";
+
+    private static final String LAG_METRIC = "phee_operator_reconcile_lag_seconds";
+    private static final String LAST_LAG_METRIC = "phee_operator_reconcile_last_lag_seconds";
+    // Bucket bounds in seconds, dense around the 1 to 5 second range latency objectives are set in
+    private static final double[] LAG_BUCKETS = {0.05, 0.1, 0.25, 0.5, 1, 2, 5, 10, 30, 60, 300};
+
+    // First unapplied event by resource
+    private static final ConcurrentMap<ResourceID, PendingEvent> pending = new ConcurrentHashMap<>();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+
+    @Override
+    public void receivedEvent(Event event, Map<String, Object> metadata) {
+        if (event instanceof ResourceEvent && ((ResourceEvent) event).getAction() != ResourceAction.DELETED) {
+            recordEvent(event.getRelatedCustomResourceID(), SOURCE_RESOURCE);
+        }
+    }
+
+    @Override
+    public void cleanupDoneFor(ResourceID resourceID, Map<String, Object> metadata) {
+        pending.remove(resourceID);
+        exportBacklog();
+        MetricsUtil.removeSeries(LAST_LAG_METRIC, MetricsUtil.labels(
+                "namespace", resourceID.getNamespace().orElse(""), "name", resourceID.getName()));
+    }
+
+    /**
+     * Records a watch event that requires the reconciliation of a resource. Only the first event before the next
+     * reconciliation counts, so that the lag measures the oldest change still waiting.
+     *
+     * @param resourceID The custom resource to reconcile.
+     * @param source What changed: {@value #SOURCE_RESOURCE}, {@value #SOURCE_CONFIGMAP} or {@value #SOURCE_SECRET}.
+     */
+    public static void recordEvent(ResourceID resourceID, String source) {
+        if (pending.putIfAbsent(resourceID, new PendingEvent(source, System.nanoTime())) == null) {
+            exportBacklog();
+        }
+    }
+
+    /**
+     * Marks the start of the reconciliation of a resource and records the lag since its first unapplied event.
+     *
+     * @param resource The custom resource.
+     * @return The lag in milliseconds, or null if no event is waiting for this reconciliation.
+     */
+    public static Long reconcileStarted(PaymentHubDeployment resource) {
+        MetricsUtil.setGauge("phee_operator_reconciles_in_flight", "Reconciliations running past the reconcile queue",
+                MetricsUtil.labels(), inFlight.incrementAndGet());
+        PendingEvent event = pending.remove(ResourceID.fromResource(resource));
+        if (event == null) {
+            return null;
+        }
+        exportBacklog();
+        double lagSeconds = (System.nanoTime() - event.receivedAt) / 1e9;
+        MetricsUtil.observeHistogram(LAG_METRIC, "Time from a watch event to the start of the reconciliation it triggered",
+                MetricsUtil.labels("source", event.source), LAG_BUCKETS, lagSeconds);
+        MetricsUtil.setGauge(LAST_LAG_METRIC, "Lag of the last reconciliation of a resource triggered by a watch event",
+                MetricsUtil.labels("namespace", resource.getMetadata().getNamespace(), "name", resource.getMetadata().getName()),
+                lagSeconds);
+        return (long) (lagSeconds * 1000);
+    }
+
+    /**
+     * Marks the end of a reconciliation started with {@link #reconcileStarted}.
+     */
+    public static void reconcileFinished() {
+        MetricsUtil.setGauge("phee_operator_reconciles_in_flight", "Reconciliations running past the reconcile queue",
+                MetricsUtil.labels(), inFlight.decrementAndGet());
+    }
+
+    private static void exportBacklog() {
+        MetricsUtil.setGauge("phee_operator_reconcile_backlog", "Resources with a watch event waiting for reconciliation",
+                MetricsUtil.labels(), pending.size());
+    }
+
+    /**
+     * The first event of a resource since its last reconciliation.
+     */
+    private static class PendingEvent {
+        private final String source;
+        private final long receivedAt;
+
+        PendingEvent(String source, long receivedAt) {
+            this.source = source;
+            this.receivedAt = receivedAt;
+        }
+    }
+}
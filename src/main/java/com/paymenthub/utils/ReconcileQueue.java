@@ -0,0 +1,353 @@
+package com.paymenthub.utils;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fair priority queue in front of the reconciliation of PaymentHubDeployments.
+ *
+ * The reconciliation threads of the operator enter the queue with the resource they are about to reconcile, and
+ * at most {@code RECONCILE_CONCURRENCY} of them reconcile at a time, at most
+ * {@code RECONCILE_NAMESPACE_CONCURRENCY} from the same namespace. When a slot frees up, it goes to a namespace by
+ * weighted fair queuing: every reconciliation advances the virtual time of its namespace by the inverse of the
+ * namespace weight from {@code RECONCILE_NAMESPACE_WEIGHTS}, and the waiting namespace with the lowest virtual time
+ * goes next. A namespace that churns its resources thus gets its share of the slots, but no more while others
+ * wait.
+ *
+ * Within the namespace, the slot goes to the resource with the highest effective priority: its
+ * {@link #getPriority priority} plus {@value #AGING_STEP} for every {@code RECONCILE_PRIORITY_AGING_SECONDS} it
+ * has waited. Resources of equal effective priority are served in arrival order.
+ *
+ * The priority is set by each tenant in its own custom resources, so only resources with a priority of at least
+ * {@value #CRITICAL_PRIORITY} in the namespaces listed in {@code RECONCILE_TRUSTED_NAMESPACES} may pass the
+ * fairness order. Such a critical resource goes before the fair choice unless that one has reached a higher
+ * effective priority by aging, so that every resource is delayed but never starved, even by a steady stream of
+ * critical ones.
+ *
+ * The state and metric series of a namespace are dropped once it has been idle for ten minutes, so that
+ * short-lived namespaces such as those of CI runs do not accumulate.
+ *
+ * The queue orders the resources whose reconciliation threads have entered it. With more pending resources than
+ * {@code RECONCILE_THREADS}, the rest wait in the framework queue in arrival order until a thread frees up.
+ */
+public class ReconcileQueue {
+
+    public static final int CRITICAL_PRIORITY = 100;
+    public static final int DEFAULT_PRIORITY = 50;
+    public static final int LOW_PRIORITY = 0;
+    private static final int AGING_STEP = 10;
+    // Waiters re-evaluate their turn at least this often, as aging changes the order without a release
+    private static final long REEVALUATE_MILLIS = 1000;
+    // Namespaces idle for this long are forgotten, together with their metric series
+    private static final long TENANT_RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final int concurrency;
+    private final int namespaceConcurrency;
+    private final long agingMillis;
+    private final Map<String, Double> weights;
+    private final Set<String> trustedNamespaces;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition changed = lock.newCondition();
+    private final List<Waiter> waiters = new ArrayList<>();
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    private int running;
+    private long sequence;
+
+    private static final Logger log = LoggerFactory.getLogger(ReconcileQueue.class);
+
+    public ReconcileQueue(int concurrency, int namespaceConcurrency, long agingMillis, Map<String, Double> weights,
+                          Set<String> trustedNamespaces) {
+        this.concurrency = Math.max(1, concurrency);
+        this.namespaceConcurrency = namespaceConcurrency > 0 ? namespaceConcurrency : this.concurrency;
+        this.agingMillis = Math.max(1, agingMillis);
+        this.weights = weights;
+        this.trustedNamespaces = trustedNamespaces != null ? trustedNamespaces : Collections.emptySet();
+    }
+
+    /**
+     * Creates the queue from the {@code RECONCILE_CONCURRENCY}, {@code RECONCILE_NAMESPACE_CONCURRENCY},
+     * {@code RECONCILE_PRIORITY_AGING_SECONDS}, {@code RECONCILE_NAMESPACE_WEIGHTS} and
+     * {@code RECONCILE_TRUSTED_NAMESPACES} environment variables.
+     *
+     * @return The queue.
+     */
+    public static ReconcileQueue fromEnvironment() {
+        return new ReconcileQueue(EnvUtil.getInt("RECONCILE_CONCURRENCY", 4),
+                EnvUtil.getInt("RECONCILE_NAMESPACE_CONCURRENCY", 2),
+                TimeUnit.SECONDS.toMillis(EnvUtil.getLong("RECONCILE_PRIORITY_AGING_SECONDS", 10)),
+                parseWeights(EnvUtil.getString("RECONCILE_NAMESPACE_WEIGHTS", "")),
+                parseNamespaces(EnvUtil.getString("RECONCILE_TRUSTED_NAMESPACES", "")));
+    }
+
+    /**
+     * Parses a comma-separated list of namespaces.
+     *
+     * @param value The namespaces, e.g. {@code payments,gateway}.
+     * @return The set of namespaces.
+     */
+    public static Set<String> parseNamespaces(String value) {
+        Set<String> namespaces = new HashSet<>();
+        for (String namespace : value.split(",")) {
+            if (!namespace.trim().isEmpty()) {
+                namespaces.add(namespace.trim());
+            }
+        }
+        return namespaces;
+    }
+
+    /**
+     * Parses namespace weights written as {@code namespace=weight} pairs separated by commas, e.g.
+     * {@code payments=4,ci=0.5}. Namespaces not listed have weight 1; invalid entries are logged and skipped.
+     *
+     * @param value The weights.
+     * @return The weight by namespace.
+     */
+    public static Map<String, Double> parseWeights(String value) {
+        Map<String, Double> weights = new HashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = entry.split("=", 2);
+            try {
+                double weight = Double.parseDouble(parts[1].trim());
+                if (weight <= 0) {
+                    throw new NumberFormatException("weight must be positive");
+                }
+                weights.put(parts[0].trim(), weight);
+            } catch (RuntimeException e) {
+                log.warn("Ignoring invalid namespace weight '{}' in RECONCILE_NAMESPACE_WEIGHTS.", entry);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Returns the reconciliation priority of a resource: {@code spec.reconcilePriority} if set, otherwise derived
+     * from the performance profile, {@value #CRITICAL_PRIORITY} for {@code latencyCritical}, {@value #LOW_PRIORITY}
+     * for {@code batch} and {@value #DEFAULT_PRIORITY} for everything else.
+     *
+     * @param resource The custom resource.
+     * @return The priority; higher values are reconciled first.
+     */
+    public static int getPriority(PaymentHubDeployment resource) {
+        Integer priority = resource.getSpec().getReconcilePriority();
+        if (priority != null) {
+            return priority;
+        }
+        String profile = resource.getSpec().getPerformanceProfile();
+        if ("latencyCritical".equals(profile)) {
+            return CRITICAL_PRIORITY;
+        }
+        if ("batch".equals(profile)) {
+            return LOW_PRIORITY;
+        }
+        return DEFAULT_PRIORITY;
+    }
+
+    /**
+     * Waits for the turn of the given resource.
+     *
+     * @param resource The custom resource about to be reconciled.
+     * @return The ticket to release once the reconciliation is done.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public Ticket enter(PaymentHubDeployment resource) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        String namespace = resource.getMetadata().getNamespace() != null ? resource.getMetadata().getNamespace() : "";
+        Tenant tenant;
+        lock.lock();
+        try {
+            pruneIdleTenants(start);
+            tenant = tenant(namespace);
+            Waiter waiter = new Waiter(tenant, getPriority(resource), start, sequence++);
+            waiters.add(waiter);
+            tenant.waiting++;
+            exportQueueDepth(tenant);
+            try {
+                while (running >= concurrency || next(System.currentTimeMillis()) != waiter) {
+                    changed.await(REEVALUATE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                waiters.remove(waiter);
+                tenant.waiting--;
+                exportQueueDepth(tenant);
+                // Whoever is next now may be able to go
+                changed.signalAll();
+            }
+            running++;
+            tenant.running++;
+            tenant.virtualTime += 1 / weight(namespace);
+        } finally {
+            lock.unlock();
+        }
+        long waited = System.currentTimeMillis() - start;
+        MetricsUtil.incrementCounter("phee_operator_reconcile_queue_wait_seconds_total", "Time reconciliations waited for their turn",
+                MetricsUtil.labels("namespace", namespace), waited / 1000.0);
+        MetricsUtil.incrementCounter("phee_operator_reconcile_queue_admitted_total", "Reconciliations admitted by the queue",
+                MetricsUtil.labels("namespace", namespace), 1);
+        if (waited > 0) {
+            log.debug("{} waited {} ms for its turn to reconcile.", resource.getMetadata().getName(), waited);
+        }
+        return new Ticket(tenant);
+    }
+
+    /**
+     * Picks the waiter to admit next among those whose namespace is below its concurrency cap. The fair choice is,
+     * from the namespace with the lowest virtual time, the waiter with the highest effective priority. The critical
+     * waiter of a trusted namespace with the highest effective priority goes before it, unless the fair choice has
+     * aged past it.
+     */
+    private Waiter next(long now) {
+        Waiter fair = null;
+        Waiter critical = null;
+        for (Waiter waiter : waiters) {
+            if (waiter.tenant.running >= namespaceConcurrency) {
+                continue;
+            }
+            if (fair == null || isFairlyAhead(waiter, fair, now)) {
+                fair = waiter;
+            }
+            if (isCritical(waiter) && (critical == null || isBefore(waiter, critical, now))) {
+                critical = waiter;
+            }
+        }
+        return critical != null && !isBefore(fair, critical, now) ? critical : fair;
+    }
+
+    private boolean isCritical(Waiter waiter) {
+        return waiter.priority >= CRITICAL_PRIORITY && trustedNamespaces.contains(waiter.tenant.namespace);
+    }
+
+    private static boolean isFairlyAhead(Waiter waiter, Waiter other, long now) {
+        if (waiter.tenant != other.tenant && waiter.tenant.virtualTime != other.tenant.virtualTime) {
+            return waiter.tenant.virtualTime < other.tenant.virtualTime;
+        }
+        return isBefore(waiter, other, now);
+    }
+
+    private static boolean isBefore(Waiter waiter, Waiter other, long now) {
+        long priority = waiter.effectivePriority(now);
+        long otherPriority = other.effectivePriority(now);
+        return priority > otherPriority || (priority == otherPriority && waiter.sequence < other.sequence);
+    }
+
+    /**
+     * Returns the state of a namespace. A namespace that becomes active again starts at the lowest virtual time
+     * of the active namespaces, so that idle time does not turn into a burst of credit.
+     */
+    private Tenant tenant(String namespace) {
+        Tenant tenant = tenants.computeIfAbsent(namespace, Tenant::new);
+        if (tenant.waiting == 0 && tenant.running == 0) {
+            double minimum = tenants.values().stream()
+                    .filter(other -> other != tenant && (other.waiting > 0 || other.running > 0))
+                    .mapToDouble(other -> other.virtualTime)
+                    .min().orElse(tenant.virtualTime);
+            tenant.virtualTime = Math.max(tenant.virtualTime, minimum);
+        }
+        return tenant;
+    }
+
+    private void pruneIdleTenants(long now) {
+        tenants.values().removeIf(tenant -> {
+            if (tenant.waiting > 0 || tenant.running > 0 || now - tenant.lastActive < TENANT_RETENTION_MILLIS) {
+                return false;
+            }
+            Map<String, String> labels = MetricsUtil.labels("namespace", tenant.namespace);
+            MetricsUtil.removeSeries("phee_operator_reconcile_queue_waiting", labels);
+            MetricsUtil.removeSeries("phee_operator_reconcile_queue_wait_seconds_total", labels);
+            MetricsUtil.removeSeries("phee_operator_reconcile_queue_admitted_total", labels);
+            return true;
+        });
+    }
+
+    private double weight(String namespace) {
+        Double weight = weights.get(namespace);
+        return weight != null ? weight : 1;
+    }
+
+    private void exportQueueDepth(Tenant tenant) {
+        MetricsUtil.setGauge("phee_operator_reconcile_queue_waiting", "Reconciliations waiting for their turn",
+                MetricsUtil.labels("namespace", tenant.namespace), tenant.waiting);
+    }
+
+    /**
+     * The queueing state of a namespace.
+     */
+    private static class Tenant {
+        private final String namespace;
+        private double virtualTime;
+        private int waiting;
+        private int running;
+        private long lastActive = System.currentTimeMillis();
+
+        Tenant(String namespace) {
+            this.namespace = namespace;
+        }
+    }
+
+    /**
+     * A resource waiting for its turn.
+     */
+    private class Waiter {
+        private final Tenant tenant;
+        private final int priority;
+        private final long enqueuedAt;
+        private final long sequence;
+
+        Waiter(Tenant tenant, int priority, long enqueuedAt, long sequence) {
+            this.tenant = tenant;
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+            this.sequence = sequence;
+        }
+
+        long effectivePriority(long now) {
+            return priority + (now - enqueuedAt) / agingMillis * AGING_STEP;
+        }
+    }
+
+    /**
+     * The turn of a resource; releasing it hands the slot to the next waiting resource.
+     */
+    public class Ticket {
+        private final Tenant tenant;
+        private boolean released;
+
+        private Ticket(Tenant tenant) {
+            this.tenant = tenant;
+        }
+
+        /**
+         * Releases the slot. Releasing a ticket again has no effect.
+         */
+        public void release() {
+            lock.lock();
+            try {
+                if (!released) {
+                    released = true;
+                    running--;
+                    tenant.running--;
+                    tenant.lastActive = System.currentTimeMillis();
+                    changed.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
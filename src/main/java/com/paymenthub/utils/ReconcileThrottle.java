@@ -0,0 +1,192 @@
+package com.paymenthub.utils;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces bursts of changes to a PaymentHubDeployment into one reconciliation and limits the rate of
+ * reconciliations across all resources.
+ *
+ * A change to the spec of a resource opens a debounce window: the reconciliation is deferred until the resource
+ * has not changed for {@code RECONCILE_DEBOUNCE_MILLIS}, or at most {@code RECONCILE_DEBOUNCE_MAX_MILLIS} after the
+ * first change, and then runs once against the latest state. The first sight of a resource, e.g. after a restart
+ * of the operator, opens no window. Reconciliations that are not deferred draw from a token bucket refilled at
+ * {@code RECONCILE_RATE_LIMIT_PER_SECOND} and holding up to {@code RECONCILE_RATE_BURST} tokens. When the bucket is
+ * empty, the token is reserved ahead, letting the balance go negative, and the resource waits until it is due;
+ * the waits of a burst are therefore staggered at the refill rate instead of all retrying at once. Changes are told
+ * apart by {@code metadata.generation}, so the status updates of the operator itself do not open a window.
+ */
+public class ReconcileThrottle {
+
+    // State of resources not seen for this long is dropped
+    private static final long STATE_RETENTION_MILLIS = Duration.ofHours(1).toMillis();
+    private static final int PRUNE_THRESHOLD = 1024;
+
+    private final long debounceMillis;
+    private final long maxDebounceMillis;
+    private final double ratePerSecond;
+    private final int burst;
+
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    private static final Logger log = LoggerFactory.getLogger(ReconcileThrottle.class);
+
+    public ReconcileThrottle(long debounceMillis, long maxDebounceMillis, double ratePerSecond, int burst) {
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.maxDebounceMillis = Math.max(this.debounceMillis, maxDebounceMillis);
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+    }
+
+    /**
+     * Creates the throttle from the {@code RECONCILE_*} environment variables.
+     *
+     * @return The throttle.
+     */
+    public static ReconcileThrottle fromEnvironment() {
+        return new ReconcileThrottle(
+                EnvUtil.getLong("RECONCILE_DEBOUNCE_MILLIS", 2000),
+                EnvUtil.getLong("RECONCILE_DEBOUNCE_MAX_MILLIS", 10000),
+                EnvUtil.getDouble("RECONCILE_RATE_LIMIT_PER_SECOND", 10),
+                EnvUtil.getInt("RECONCILE_RATE_BURST", 20));
+    }
+
+    /**
+     * Decides whether the reconciliation of a resource runs now.
+     *
+     * @param resource The custom resource about to be reconciled.
+     * @return The delay after which to try again, or empty to reconcile now.
+     */
+    public Optional<Duration> acquire(PaymentHubDeployment resource) {
+        long now = System.currentTimeMillis();
+        State state = getState(resource, now);
+        Optional<Duration> debounce = debounce(resource, state, now);
+        if (debounce.isPresent()) {
+            MetricsUtil.incrementCounter("phee_operator_reconciles_deferred_total", "Reconciliations deferred by the throttle",
+                    MetricsUtil.labels("reason", "debounce"), 1);
+            return debounce;
+        }
+        Optional<Duration> rateLimit = rateLimit(state, now);
+        if (rateLimit.isPresent()) {
+            MetricsUtil.incrementCounter("phee_operator_reconciles_deferred_total", "Reconciliations deferred by the throttle",
+                    MetricsUtil.labels("reason", "rate_limit"), 1);
+        }
+        return rateLimit;
+    }
+
+    /**
+     * Returns the state of a resource, created with its current generation so that the first sight opens no
+     * debounce window, or null for a resource without UID.
+     */
+    private State getState(PaymentHubDeployment resource, long now) {
+        if (resource.getMetadata().getUid() == null) {
+            return null;
+        }
+        if (states.size() > PRUNE_THRESHOLD) {
+            states.values().removeIf(state -> now - state.lastSeen > STATE_RETENTION_MILLIS);
+        }
+        State state = states.computeIfAbsent(resource.getMetadata().getUid(), uid -> new State(resource.getMetadata().getGeneration()));
+        synchronized (state) {
+            state.lastSeen = now;
+        }
+        return state;
+    }
+
+    private Optional<Duration> debounce(PaymentHubDeployment resource, State state, long now) {
+        if (debounceMillis == 0 || state == null) {
+            return Optional.empty();
+        }
+        synchronized (state) {
+            Long generation = resource.getMetadata().getGeneration();
+            if (!Objects.equals(generation, state.generation)) {
+                state.generation = generation;
+                state.lastChange = now;
+                if (state.burstStart == 0) {
+                    state.burstStart = now;
+                }
+            }
+            if (state.burstStart == 0) {
+                return Optional.empty();
+            }
+            long quietFor = now - state.lastChange;
+            long burstFor = now - state.burstStart;
+            if (quietFor < debounceMillis && burstFor < maxDebounceMillis) {
+                long delay = Math.min(debounceMillis - quietFor, maxDebounceMillis - burstFor);
+                log.debug("Deferring reconciliation of {} by {} ms to coalesce changes.", resource.getMetadata().getName(), delay);
+                return Optional.of(Duration.ofMillis(delay));
+            }
+            state.burstStart = 0;
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Lets the reconciliation run if it holds a token reserved earlier that is now due, or takes a new one,
+     * reserving it ahead when the bucket is empty.
+     */
+    private Optional<Duration> rateLimit(State state, long now) {
+        if (ratePerSecond <= 0) {
+            return Optional.empty();
+        }
+        if (state == null) {
+            return takeToken();
+        }
+        synchronized (state) {
+            if (state.reservedAt != 0) {
+                long remaining = state.reservedAt - now;
+                if (remaining > 0) {
+                    return Optional.of(Duration.ofMillis(remaining));
+                }
+                state.reservedAt = 0;
+                return Optional.empty();
+            }
+            Optional<Duration> wait = takeToken();
+            wait.ifPresent(delay -> state.reservedAt = now + delay.toMillis());
+            return wait;
+        }
+    }
+
+    /**
+     * Takes a token from the bucket, going into debt when it is empty.
+     *
+     * @return The time until the token taken is covered by the refill, or empty if it was available.
+     */
+    private synchronized Optional<Duration> takeToken() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) / 1e9 * ratePerSecond);
+        lastRefill = now;
+        tokens -= 1;
+        if (tokens >= 0) {
+            return Optional.empty();
+        }
+        long waitMillis = (long) Math.ceil(-tokens / ratePerSecond * 1000);
+        return Optional.of(Duration.ofMillis(Math.max(1, waitMillis)));
+    }
+
+    /**
+     * The last generation seen of a resource, the timing of its current burst of changes and its reserved token.
+     */
+    private static class State {
+        private Long generation;
+        private long lastChange;
+        private long burstStart;
+        private long lastSeen;
+        // Time the token reserved for the deferred reconciliation is due, or 0
+        private long reservedAt;
+
+        State(Long generation) {
+            this.generation = generation;
+        }
+    }
+}
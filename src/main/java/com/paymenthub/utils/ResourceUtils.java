@@ -2,6 +2,7 @@ package com.paymenthub.utils;
 
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.Resource;
 
 import java.util.Base64;
@@ -24,12 +25,103 @@ public class ResourceUtils {
     }
 
     /**
-     * Reconciles the ConfigMap for the given custom resource. Creates or updates the ConfigMap as necessary.
+     * Label carrying the name of the custom resource on its content-addressed ConfigMaps and Secrets.
+     */
+    public static final String CONFIG_OF_LABEL = "gazelle.mifos.io/config-of";
+
+    /**
+     * Label marking the ConfigMaps shared by all custom resources with the same configuration.
+     */
+    public static final String SHARED_CONFIG_LABEL = "gazelle.mifos.io/shared-config";
+
+    // Versions of a content-addressed ConfigMap or Secret kept, the current one included, so that a rollback finds its configuration
+    private static final int RETAINED_VERSIONS = 2;
+
+    /**
+     * Tells whether the ConfigMap and Secret of the custom resource are immutable and content-addressed.
+     *
+     * @param resource The custom resource.
+     * @return true if {@code spec.immutableConfig} is set.
+     */
+    public static boolean isImmutableConfig(PaymentHubDeployment resource) {
+        return Boolean.TRUE.equals(resource.getSpec().getImmutableConfig());
+    }
+
+    /**
+     * Tells whether the ConfigMap of the custom resource is shared with the other custom resources in the
+     * namespace whose configuration is identical.
+     *
+     * @param resource The custom resource.
+     * @return true if {@code spec.sharedConfig} is set.
+     */
+    public static boolean isSharedConfig(PaymentHubDeployment resource) {
+        return Boolean.TRUE.equals(resource.getSpec().getSharedConfig());
+    }
+
+    /**
+     * Returns the name of the ConfigMap of the custom resource: {@code <name>-configmap}, followed by a hash of
+     * the content with {@code spec.immutableConfig}, or {@code ph-ee-shared-config-<hash>} with
+     * {@code spec.sharedConfig}.
+     *
+     * @param resource The custom resource.
+     * @return The ConfigMap name.
+     */
+    public static String getConfigMapName(PaymentHubDeployment resource) {
+        if (isSharedConfig(resource)) {
+            return "ph-ee-shared-config-" + ConfigHashUtils.hashContent(createConfigMapData(resource));
+        }
+        String name = resource.getMetadata().getName() + "-configmap";
+        return isImmutableConfig(resource) ? name + "-" + ConfigHashUtils.hashContent(createConfigMapData(resource)) : name;
+    }
+
+    /**
+     * Returns the name of the Secret of the custom resource: {@code <name>-secret}, followed by a hash of the
+     * content with {@code spec.immutableConfig}.
+     *
+     * @param resource The custom resource.
+     * @return The Secret name.
+     */
+    public static String getSecretName(PaymentHubDeployment resource) {
+        String name = resource.getMetadata().getName() + "-secret";
+        return isImmutableConfig(resource) ? name + "-" + ConfigHashUtils.hashContent(createSecretData(resource)) : name;
+    }
+
+    /**
+     * Resolves a ConfigMap or Secret name referenced in the spec. With {@code spec.immutableConfig}, references to
+     * {@code <name>-configmap} and {@code <name>-secret} point at the current content-addressed version; any other
+     * name is returned as is.
+     *
+     * @param resource The custom resource.
+     * @param referencedName The name as written in the spec.
+     * @return The name to use in the pod template.
+     */
+    public static String resolveName(PaymentHubDeployment resource, String referencedName) {
+        if ((!isImmutableConfig(resource) && !isSharedConfig(resource)) || referencedName == null) {
+            return referencedName;
+        }
+        String name = resource.getMetadata().getName();
+        if (Boolean.TRUE.equals(resource.getSpec().getConfigMapEnabled()) && referencedName.equals(name + "-configmap")) {
+            return getConfigMapName(resource);
+        }
+        if (isImmutableConfig(resource) && Boolean.TRUE.equals(resource.getSpec().getSecretEnabled()) && referencedName.equals(name + "-secret")) {
+            return getSecretName(resource);
+        }
+        return referencedName;
+    }
+
+    /**
+     * Reconciles the ConfigMap for the given custom resource. Creates or updates the ConfigMap as necessary. With
+     * {@code spec.immutableConfig}, a changed content creates a new immutable ConfigMap instead.
      * 
      * @param resource The custom resource containing the specifications for the ConfigMap.
      */
     public void reconcileConfigmap(PaymentHubDeployment resource) {
-        String name = resource.getMetadata().getName() + "-configmap";
+        if (isSharedConfig(resource)) {
+            reconcileSharedConfigMap(resource);
+            return;
+        }
+        releaseSharedConfigMaps(resource, null);
+        String name = getConfigMapName(resource);
         log.info("Reconciling ConfigMap for resource: " + resource.getMetadata().getName());
         ConfigMap configMap = createConfigMap(resource, name);
         log.info("Created ConfigMap spec: " + configMap);
@@ -38,15 +130,111 @@ public class ResourceUtils {
                 .inNamespace(resource.getMetadata().getNamespace())
                 .withName(name);
 
-        if (configMapResource.get() == null) {
-            configMapResource.create(configMap);
+        ConfigMap existing = configMapResource.get();
+        if (existing == null) {
+            ConfigHashUtils.recordWrite(resource, configMapResource.create(configMap), null);
             log.info("Created new ConfigMap: " + name);
+        } else if (isImmutableConfig(resource)) {
+            log.fine("Immutable ConfigMap already exists: " + name);
+        } else if (isUpToDate(existing.getMetadata(), existing.getData(), configMap.getMetadata(), configMap.getData())) {
+            log.fine("ConfigMap is up-to-date: " + name);
         } else {
-            configMapResource.patch(configMap);
+            ConfigHashUtils.recordWrite(resource, configMapResource.patch(configMap), existing);
             log.info("Updated existing ConfigMap: " + name);
         }
     }
 
+    /**
+     * Reconciles the shared ConfigMap for the given custom resource. All custom resources of a namespace with the
+     * same configuration use one immutable ConfigMap, named after the hash of its content, and each of them holds
+     * an owner reference on it. The reference count is the list of owner references: Kubernetes deletes the
+     * ConfigMap once the last custom resource referencing it is deleted, and a custom resource whose configuration
+     * changed releases its reference on the previous one.
+     *
+     * @param resource The custom resource.
+     */
+    private void reconcileSharedConfigMap(PaymentHubDeployment resource) {
+        String name = getConfigMapName(resource);
+        OwnerReference ownerReference = OwnerReferenceUtils.createSharedOwnerReference(resource);
+        Resource<ConfigMap> configMapResource = kubernetesClient.configMaps()
+                .inNamespace(resource.getMetadata().getNamespace())
+                .withName(name);
+
+        ConfigMap existing = configMapResource.get();
+        if (existing == null) {
+            Map<String, String> labels = new HashMap<>();
+            labels.put("app.kubernetes.io/managed-by", "ph-ee-operator");
+            labels.put(SHARED_CONFIG_LABEL, "true");
+            ConfigMap created = configMapResource.create(new ConfigMapBuilder()
+                    .withNewMetadata()
+                        .withName(name)
+                        .withNamespace(resource.getMetadata().getNamespace())
+                        .withLabels(labels)
+                        .withOwnerReferences(ownerReference)
+                    .endMetadata()
+                    .withImmutable(true)
+                    .addToData(createConfigMapData(resource))
+                    .build());
+            ConfigHashUtils.recordWrite(resource, created, null);
+            log.info("Created new shared ConfigMap: " + name);
+        } else if (!isOwner(existing, resource)) {
+            configMapResource.edit(current -> new ConfigMapBuilder(current)
+                    .editMetadata()
+                        .addToOwnerReferences(ownerReference)
+                    .endMetadata()
+                    .build());
+            log.info("Added " + resource.getMetadata().getName() + " to the users of shared ConfigMap: " + name);
+        }
+        releaseSharedConfigMaps(resource, name);
+    }
+
+    /**
+     * Releases the references of the custom resource on shared ConfigMaps other than the given one, deleting
+     * those it was the last user of.
+     *
+     * @param resource The custom resource.
+     * @param keepName The shared ConfigMap still in use, or null to release all of them.
+     */
+    public void releaseSharedConfigMaps(PaymentHubDeployment resource, String keepName) {
+        String namespace = resource.getMetadata().getNamespace();
+        String uid = resource.getMetadata().getUid();
+        List<ConfigMap> shared = kubernetesClient.configMaps().inNamespace(namespace)
+                .withLabel(SHARED_CONFIG_LABEL, "true").list().getItems();
+        for (ConfigMap configMap : shared) {
+            String name = configMap.getMetadata().getName();
+            if (name.equals(keepName) || !isOwner(configMap, resource)) {
+                continue;
+            }
+            boolean lastUser = configMap.getMetadata().getOwnerReferences().stream().allMatch(ref -> uid.equals(ref.getUid()));
+            if (lastUser) {
+                try {
+                    // Only delete the version listed, so that a user added since then keeps the ConfigMap
+                    kubernetesClient.configMaps().inNamespace(namespace).withName(name)
+                            .lockResourceVersion(configMap.getMetadata().getResourceVersion())
+                            .delete();
+                    log.info("Deleted shared ConfigMap without users: " + name);
+                } catch (KubernetesClientException e) {
+                    if (e.getCode() != 409) {
+                        throw e;
+                    }
+                    log.info("Shared ConfigMap " + name + " changed while releasing it, releasing it on the next reconciliation.");
+                }
+            } else {
+                kubernetesClient.configMaps().inNamespace(namespace).withName(name).edit(current -> new ConfigMapBuilder(current)
+                        .editMetadata()
+                            .removeMatchingFromOwnerReferences(ref -> uid.equals(ref.getUid()))
+                        .endMetadata()
+                        .build());
+                log.info("Released " + resource.getMetadata().getName() + " from shared ConfigMap: " + name);
+            }
+        }
+    }
+
+    private static boolean isOwner(ConfigMap configMap, PaymentHubDeployment resource) {
+        return configMap.getMetadata().getOwnerReferences() != null && configMap.getMetadata().getOwnerReferences().stream()
+                .anyMatch(ref -> resource.getMetadata().getUid().equals(ref.getUid()));
+    }
+
     /**
      * Creates a Kubernetes ConfigMap object based on the custom resource specifications.
      * 
@@ -56,7 +244,33 @@ public class ResourceUtils {
      */
     private ConfigMap createConfigMap(PaymentHubDeployment resource, String name) {
         log.info("Creating ConfigMap spec for resource: " + resource.getMetadata().getName());
-        
+
+        ConfigMapBuilder configMapBuilder = new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(resource.getMetadata().getNamespace())
+                    .withLabels(createVersionLabels(resource))
+                    .withOwnerReferences(OwnerReferenceUtils.createOwnerReferences(resource))
+                .endMetadata()
+                .addToData(createConfigMapData(resource)); // Add the configuration properties data
+        if (isImmutableConfig(resource)) {
+            configMapBuilder.withImmutable(true);
+        }
+        return configMapBuilder.build();
+    }
+
+    /**
+     * Creates the data of the ConfigMap: the rendered {@code spec.configData}, or the default sandbox
+     * configuration without it.
+     *
+     * @param resource The custom resource.
+     * @return The ConfigMap data.
+     */
+    private static Map<String, String> createConfigMapData(PaymentHubDeployment resource) {
+        Map<String, String> rendered = ConfigTemplateUtils.getConfigData(resource);
+        if (rendered != null) {
+            return rendered;
+        }
         Map<String, String> data = new HashMap<>();
         data.put("configuration.properties", 
             "oauth.enabled false\n" +
@@ -66,38 +280,37 @@ public class ResourceUtils {
             "serverUrl https://ops.sandbox.mifos.io\n"  +
             "auth.enabled false\n" +
             "auth.tenant phdefault");
-
-        return new ConfigMapBuilder()
-                .withNewMetadata()
-                    .withName(name)
-                    .withNamespace(resource.getMetadata().getNamespace())
-                    .withOwnerReferences(OwnerReferenceUtils.createOwnerReferences(resource))
-                .endMetadata()
-                .addToData(data) // Add the configuration properties data
-                .build();
+        return data;
     }
 
 
     /**
-     * Reconciles the Secret for the given custom resource. Creates or updates the Secret as necessary.
+     * Reconciles the Secret for the given custom resource. Creates or updates the Secret as necessary. With
+     * {@code spec.immutableConfig}, a changed content creates a new immutable Secret instead.
      * 
      * @param resource The custom resource containing the specifications for the Secret.
      */
     public void reconcileSecret(PaymentHubDeployment resource) {
-        String secretName = resource.getMetadata().getName() + "-secret";
+        String secretName = getSecretName(resource);
         log.info("Reconciling Secret for resource: " + resource.getMetadata().getName());
         Secret secret = createSecret(resource, secretName);
-        log.info("Created Secret spec: " + secret);
+        // The data holds credentials rendered from spec.secretData, so only its keys are logged
+        log.info("Created Secret spec: " + secret.getMetadata().getName() + " with keys " + (secret.getData() != null ? new TreeSet<>(secret.getData().keySet()) : Collections.emptySet()));
 
         Resource<Secret> secretResource = kubernetesClient.secrets()
                 .inNamespace(resource.getMetadata().getNamespace())
                 .withName(secretName);
 
-        if (secretResource.get() == null) {
-            secretResource.create(secret);
+        Secret existing = secretResource.get();
+        if (existing == null) {
+            ConfigHashUtils.recordWrite(resource, secretResource.create(secret), null);
             log.info("Created new Secret: " + secretName);
+        } else if (isImmutableConfig(resource)) {
+            log.fine("Immutable Secret already exists: " + secretName);
+        } else if (isUpToDate(existing.getMetadata(), existing.getData(), secret.getMetadata(), secret.getData())) {
+            log.fine("Secret is up-to-date: " + secretName);
         } else {
-            secretResource.patch(secret);
+            ConfigHashUtils.recordWrite(resource, secretResource.patch(secret), existing);
             log.info("Updated existing Secret: " + secretName);
         }
     }
@@ -112,40 +325,113 @@ public class ResourceUtils {
     private Secret createSecret(PaymentHubDeployment resource, String secretName) {
         log.info("Creating Secret spec for resource: " + resource.getMetadata().getName());
 
-        // Initialize the SecretBuilder with common metadata
         SecretBuilder secretBuilder = new SecretBuilder()
                 .withNewMetadata()
                     .withName(secretName)
                     .withNamespace(resource.getMetadata().getNamespace())
+                    .withLabels(createVersionLabels(resource))
                     .withOwnerReferences(OwnerReferenceUtils.createOwnerReferences(resource))
-                .endMetadata();
+                .endMetadata()
+                .addToData(createSecretData(resource));
+        if (isImmutableConfig(resource)) {
+            secretBuilder.withImmutable(true);
+        }
+        return secretBuilder.build();
+    }
+
+    /**
+     * Creates the base64 encoded data of the Secret: the rendered {@code spec.secretData}, or the default
+     * credentials of the component without it.
+     *
+     * @param resource The custom resource.
+     * @return The Secret data.
+     */
+    private static Map<String, String> createSecretData(PaymentHubDeployment resource) {
+        Map<String, String> rendered = ConfigTemplateUtils.getSecretData(resource);
+        if (rendered != null) {
+            return rendered;
+        }
+        Map<String, String> data = new HashMap<>();
 
         // Add access_key, secret_key, and aws-region only if the deployment is for ph-ee-connector-bulk
         if ("ph-ee-connector-bulk".equals(resource.getMetadata().getName())) {
-            secretBuilder
-                .addToData("aws-access-key", Base64.getEncoder().encodeToString("root".getBytes()))
-                .addToData("aws-secret-key", Base64.getEncoder().encodeToString("password".getBytes()))
-                .addToData("aws-region", Base64.getEncoder().encodeToString("ap-south-1".getBytes()));
-
-            return secretBuilder.build();
+            data.put("aws-access-key", Base64.getEncoder().encodeToString("root".getBytes()));
+            data.put("aws-secret-key", Base64.getEncoder().encodeToString("password".getBytes()));
+            data.put("aws-region", Base64.getEncoder().encodeToString("ap-south-1".getBytes()));
+            return data;
         }
 
         // Add api-key, project-id, and database-password only if the deployment is for message-gateway
         if ("message-gateway".equals(resource.getMetadata().getName())) {
-            secretBuilder
-                .addToData("api-key", Base64.getEncoder().encodeToString("<api-key>".getBytes()))
-                .addToData("project-id", Base64.getEncoder().encodeToString("<project-id>".getBytes()))
-                .addToData("database-password", Base64.getEncoder().encodeToString("password".getBytes()));
-
-            return secretBuilder.build();
+            data.put("api-key", Base64.getEncoder().encodeToString("<api-key>".getBytes()));
+            data.put("project-id", Base64.getEncoder().encodeToString("<project-id>".getBytes()));
+            data.put("database-password", Base64.getEncoder().encodeToString("password".getBytes()));
+            return data;
         }
 
         // Add database-password for all other deployments
-        secretBuilder.addToData("database-password", Base64.getEncoder().encodeToString("password".getBytes()));
+        data.put("database-password", Base64.getEncoder().encodeToString("password".getBytes()));
+        return data;
+    }
 
-        return secretBuilder.build();
+    /**
+     * Deletes the content-addressed ConfigMaps and Secrets of the custom resource that were superseded, keeping
+     * the current version and the one before it. Called once a rollout completed, when no pod uses the older
+     * versions anymore.
+     *
+     * @param resource The custom resource.
+     */
+    public void deleteSupersededVersions(PaymentHubDeployment resource) {
+        String namespace = resource.getMetadata().getNamespace();
+        String name = resource.getMetadata().getName();
+        List<ConfigMap> configMaps = kubernetesClient.configMaps().inNamespace(namespace)
+                .withLabel(CONFIG_OF_LABEL, name).list().getItems();
+        for (ConfigMap configMap : superseded(configMaps, getConfigMapName(resource))) {
+            kubernetesClient.configMaps().inNamespace(namespace).withName(configMap.getMetadata().getName()).delete();
+            log.info("Deleted superseded ConfigMap: " + configMap.getMetadata().getName());
+        }
+        List<Secret> secrets = kubernetesClient.secrets().inNamespace(namespace)
+                .withLabel(CONFIG_OF_LABEL, name).list().getItems();
+        for (Secret secret : superseded(secrets, getSecretName(resource))) {
+            kubernetesClient.secrets().inNamespace(namespace).withName(secret.getMetadata().getName()).delete();
+            log.info("Deleted superseded Secret: " + secret.getMetadata().getName());
+        }
     }
 
+    /**
+     * Returns the versions beyond the retained ones, newest first, never including the current version.
+     */
+    private static <T extends HasMetadata> List<T> superseded(List<T> versions, String currentName) {
+        List<T> older = new ArrayList<>();
+        for (T version : versions) {
+            if (!version.getMetadata().getName().equals(currentName)) {
+                older.add(version);
+            }
+        }
+        // ISO-8601 timestamps sort chronologically as strings
+        older.sort(Comparator.comparing((T version) -> version.getMetadata().getCreationTimestamp(),
+                Comparator.nullsFirst(Comparator.<String>naturalOrder())).reversed());
+        return older.size() > RETAINED_VERSIONS - 1 ? older.subList(RETAINED_VERSIONS - 1, older.size()) : Collections.emptyList();
+    }
 
+    /**
+     * Tells whether an existing ConfigMap or Secret already carries the desired data and labels, so that writing it
+     * again can be skipped.
+     */
+    private static boolean isUpToDate(ObjectMeta existingMetadata, Map<String, String> existingData,
+                                      ObjectMeta desiredMetadata, Map<String, String> desiredData) {
+        Map<String, String> existingLabels = existingMetadata.getLabels() != null ? existingMetadata.getLabels() : Collections.emptyMap();
+        return Objects.equals(existingData != null ? existingData : Collections.emptyMap(), desiredData)
+                && existingLabels.entrySet().containsAll(desiredMetadata.getLabels().entrySet());
+    }
+
+    private static Map<String, String> createVersionLabels(PaymentHubDeployment resource) {
+        Map<String, String> labels = new HashMap<>();
+        labels.put("app.kubernetes.io/managed-by", "ph-ee-operator");
+        if (isImmutableConfig(resource)) {
+            labels.put(CONFIG_OF_LABEL, resource.getMetadata().getName());
+        }
+        return labels;
+    }
 
 }
@@ -0,0 +1,252 @@
+package com.paymenthub.utils;
+
+// Kubernetes API model imports
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentCondition;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatus;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStrategy;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStrategyBuilder;
+
+// Custom resource imports
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+import com.paymenthub.customresource.PaymentHubDeploymentStatus;
+
+// Logging imports
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility class for tracking the rollout of the Deployment owned by a PaymentHubDeployment.
+ *
+ * The rollout state is derived from the Deployment status and its {@code Progressing} condition, which the
+ * Deployment controller sets to {@code ProgressDeadlineExceeded} once no progress was made for
+ * {@code progressDeadlineSeconds}. When a rollout stalls the image is recorded as failed in the status, and as
+ * long as {@code spec.image} still names that image the operator keeps running the last known-good image.
+ */
+public class RolloutUtils {
+
+    private static final Logger log = LoggerFactory.getLogger(RolloutUtils.class);
+
+    public static final int DEFAULT_PROGRESS_DEADLINE_SECONDS = 600;
+
+    /**
+     * The state of a Deployment rollout.
+     */
+    public enum RolloutState {
+        PROGRESSING,
+        COMPLETE,
+        STALLED
+    }
+
+    /**
+     * Returns the progress deadline configured for the custom resource.
+     *
+     * @param resource The custom resource.
+     * @return The progress deadline in seconds.
+     */
+    public static int getProgressDeadlineSeconds(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.Rollout rollout = resource.getSpec().getRollout();
+        return rollout != null && rollout.getProgressDeadlineSeconds() != null
+                ? rollout.getProgressDeadlineSeconds() : DEFAULT_PROGRESS_DEADLINE_SECONDS;
+    }
+
+    /**
+     * Creates the rolling update strategy of the Deployment from {@code spec.rollout}.
+     *
+     * @param resource The custom resource.
+     * @return The strategy, or null to keep the Kubernetes defaults of 25% surge and 25% unavailable.
+     */
+    public static DeploymentStrategy createStrategy(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.Rollout rollout = resource.getSpec().getRollout();
+        if (rollout == null || (rollout.getMaxSurge() == null && rollout.getMaxUnavailable() == null)) {
+            return null;
+        }
+        return new DeploymentStrategyBuilder()
+                .withType("RollingUpdate")
+                .withNewRollingUpdate()
+                    .withMaxSurge(DeploymentUtils.toIntOrString(rollout.getMaxSurge()))
+                    .withMaxUnavailable(DeploymentUtils.toIntOrString(rollout.getMaxUnavailable()))
+                .endRollingUpdate()
+                .build();
+    }
+
+    /**
+     * Returns the time a new pod has to be ready before it counts as available.
+     *
+     * @param resource The custom resource.
+     * @return The minimum ready seconds, or null for the Kubernetes default of 0.
+     */
+    public static Integer getMinReadySeconds(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.Rollout rollout = resource.getSpec().getRollout();
+        return rollout != null ? rollout.getMinReadySeconds() : null;
+    }
+
+    /**
+     * Returns the number of old ReplicaSets kept for rollbacks.
+     *
+     * @param resource The custom resource.
+     * @return The revision history limit, or null for the Kubernetes default of 10.
+     */
+    public static Integer getRevisionHistoryLimit(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.Rollout rollout = resource.getSpec().getRollout();
+        return rollout != null ? rollout.getRevisionHistoryLimit() : null;
+    }
+
+    /**
+     * Tells whether a stalled rollout is rolled back automatically. Enabled unless explicitly turned off.
+     *
+     * @param resource The custom resource.
+     * @return true if automatic rollback is enabled.
+     */
+    public static boolean isAutoRollbackEnabled(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.Rollout rollout = resource.getSpec().getRollout();
+        return rollout == null || !Boolean.FALSE.equals(rollout.getAutoRollback());
+    }
+
+    /**
+     * Returns the last image that was rolled out completely, as recorded in the status.
+     *
+     * @param resource The custom resource.
+     * @return The last known-good image, or null if no rollout has completed yet.
+     */
+    public static String getLastAppliedImage(PaymentHubDeployment resource) {
+        return resource.getStatus() != null ? resource.getStatus().getLastAppliedImage() : null;
+    }
+
+    /**
+     * Resolves the image to deploy. This is {@code spec.image}, unless that image failed to roll out before and
+     * automatic rollback is enabled, in which case the last known-good image is kept. When {@code spec.image}
+     * has moved on from the failed image, the failed image is cleared from the status.
+     *
+     * @param resource The custom resource.
+     * @return The image to deploy.
+     */
+    public static String resolveImage(PaymentHubDeployment resource) {
+        String image = resource.getSpec().getImage();
+        PaymentHubDeploymentStatus status = resource.getStatus();
+        if (status == null || status.getFailedImage() == null) {
+            return image;
+        }
+        if (!status.getFailedImage().equals(image)) {
+            // A different image was requested, so the earlier failure no longer applies
+            log.info("Image {} replaces failed image {} for {}.", image, status.getFailedImage(), resource.getMetadata().getName());
+            status.setFailedImage(null);
+            return image;
+        }
+        String lastApplied = status.getLastAppliedImage();
+        if (isAutoRollbackEnabled(resource) && lastApplied != null) {
+            log.info("Image {} failed to roll out for {}, keeping last known-good image {}.", image, resource.getMetadata().getName(), lastApplied);
+            return lastApplied;
+        }
+        return image;
+    }
+
+    /**
+     * Returns the image to record as failed when the rollout of the given image stalls. When the image being
+     * rolled out is the last known-good image kept in place of {@code spec.image}, the originally failed image
+     * stays recorded, so that the operator does not fall back to it.
+     *
+     * @param resource The custom resource.
+     * @param image The image whose rollout stalled.
+     * @return The image to record in {@code status.failedImage}.
+     */
+    public static String getFailedImageToRecord(PaymentHubDeployment resource, String image) {
+        return image.equals(resource.getSpec().getImage()) || resource.getStatus() == null
+                ? image : resource.getStatus().getFailedImage();
+    }
+
+    /**
+     * Describes a completed rollout for the status error message: empty, unless the completed image is the
+     * last known-good image kept in place of a failed {@code spec.image}.
+     *
+     * @param resource The custom resource.
+     * @param image The image that was rolled out.
+     * @return The status error message.
+     */
+    public static String describeCompletedRollout(PaymentHubDeployment resource, String image) {
+        String failedImage = resource.getStatus() != null ? resource.getStatus().getFailedImage() : null;
+        return failedImage != null
+                ? "Image " + failedImage + " failed to roll out, running last known-good image " + image + "." : "";
+    }
+
+    /**
+     * Determines the rollout state of the given Deployment.
+     *
+     * @param deployment The Deployment as returned by the API server.
+     * @return The rollout state.
+     */
+    public static RolloutState getRolloutState(Deployment deployment) {
+        DeploymentStatus status = deployment.getStatus();
+        if (status == null || status.getObservedGeneration() == null
+                || status.getObservedGeneration() < deployment.getMetadata().getGeneration()) {
+            // The Deployment controller has not seen the latest spec yet
+            return RolloutState.PROGRESSING;
+        }
+
+        DeploymentCondition progressing = getCondition(status, "Progressing");
+        if (progressing != null && "ProgressDeadlineExceeded".equals(progressing.getReason())) {
+            return RolloutState.STALLED;
+        }
+
+        int desired = deployment.getSpec().getReplicas() != null ? deployment.getSpec().getReplicas() : 1;
+        if (valueOf(status.getUpdatedReplicas()) >= desired
+                && valueOf(status.getReplicas()) <= valueOf(status.getUpdatedReplicas())
+                && valueOf(status.getAvailableReplicas()) >= desired) {
+            return RolloutState.COMPLETE;
+        }
+        return RolloutState.PROGRESSING;
+    }
+
+    /**
+     * Describes the progress of a rollout for the status message.
+     *
+     * @param deployment The Deployment as returned by the API server.
+     * @return A short progress description.
+     */
+    public static String describeProgress(Deployment deployment) {
+        DeploymentStatus status = deployment.getStatus();
+        int desired = deployment.getSpec().getReplicas() != null ? deployment.getSpec().getReplicas() : 1;
+        if (status == null) {
+            return String.format("Rollout started, 0 of %d replicas updated.", desired);
+        }
+        return String.format("%d of %d replicas updated, %d available.",
+                valueOf(status.getUpdatedReplicas()), desired, valueOf(status.getAvailableReplicas()));
+    }
+
+    /**
+     * Returns the reason reported by the Deployment controller for a stalled rollout.
+     *
+     * @param deployment The Deployment as returned by the API server.
+     * @return The message of the Progressing condition, or a generic description.
+     */
+    public static String describeStall(Deployment deployment) {
+        DeploymentCondition progressing = deployment.getStatus() != null ? getCondition(deployment.getStatus(), "Progressing") : null;
+        return progressing != null && progressing.getMessage() != null
+                ? progressing.getMessage() : "no progress within the progress deadline";
+    }
+
+    /**
+     * Returns the number of available replicas of the given Deployment.
+     *
+     * @param deployment The Deployment as returned by the API server.
+     * @return The number of available replicas.
+     */
+    public static int getAvailableReplicas(Deployment deployment) {
+        return deployment.getStatus() != null ? valueOf(deployment.getStatus().getAvailableReplicas()) : 0;
+    }
+
+    private static DeploymentCondition getCondition(DeploymentStatus status, String type) {
+        if (status.getConditions() == null) {
+            return null;
+        }
+        return status.getConditions().stream()
+                .filter(condition -> type.equals(condition.getType()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,226 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.api.model.policy.v1.PodDisruptionBudget;
+import io.fabric8.kubernetes.api.model.policy.v1.PodDisruptionBudgetBuilder;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Resource;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Utility class placing the pods of a PaymentHubDeployment and protecting them during voluntary disruptions.
+ *
+ * {@code spec.scheduling} adds a node selector, affinity and topology spread constraints to the pod template,
+ * plus a generated pod anti-affinity between the replicas of the component. {@code spec.disruptionBudget}
+ * makes the operator own a {@code policy/v1} PodDisruptionBudget named {@code <name>-pdb}, so that a node drain
+ * evicts the pods of a component one at a time.
+ */
+public class SchedulingUtils {
+
+    private static final String DEFAULT_ANTI_AFFINITY_TOPOLOGY_KEY = "kubernetes.io/hostname";
+    private static final int PREFERRED_ANTI_AFFINITY_WEIGHT = 100;
+
+    private final KubernetesClient kubernetesClient;
+    private static final Logger log = LoggerFactory.getLogger(SchedulingUtils.class);
+
+    public SchedulingUtils(KubernetesClient kubernetesClient) {
+        this.kubernetesClient = kubernetesClient;
+    }
+
+    /**
+     * Applies {@code spec.scheduling} to a pod spec. Topology spread constraints without a label selector, and the
+     * generated anti-affinity, select the pods by the {@code app} label of the pod template.
+     *
+     * @param resource The custom resource.
+     * @param podSpecBuilder The pod spec being built.
+     * @param podLabels The labels of the pod template.
+     */
+    public static void applyScheduling(PaymentHubDeployment resource, PodSpecBuilder podSpecBuilder, Map<String, String> podLabels) {
+        PaymentHubDeploymentSpec.Scheduling scheduling = resource.getSpec().getScheduling();
+        if (scheduling == null) {
+            return;
+        }
+        LabelSelector appSelector = new LabelSelectorBuilder()
+            .withMatchLabels(Collections.singletonMap("app", podLabels.get("app")))
+            .build();
+
+        applyNodeSelector(scheduling, podSpecBuilder);
+
+        if (scheduling.getTopologySpreadConstraints() != null) {
+            List<TopologySpreadConstraint> constraints = new ArrayList<>();
+            for (TopologySpreadConstraint constraint : scheduling.getTopologySpreadConstraints()) {
+                TopologySpreadConstraintBuilder builder = new TopologySpreadConstraintBuilder(constraint);
+                if (constraint.getLabelSelector() == null) {
+                    builder.withLabelSelector(appSelector);
+                }
+                if (constraint.getMaxSkew() == null) {
+                    builder.withMaxSkew(1);
+                }
+                if (constraint.getWhenUnsatisfiable() == null) {
+                    builder.withWhenUnsatisfiable("ScheduleAnyway");
+                }
+                constraints.add(builder.build());
+            }
+            podSpecBuilder.withTopologySpreadConstraints(constraints);
+        }
+
+        Affinity affinity = scheduling.getAffinity() != null ? new AffinityBuilder(scheduling.getAffinity()).build() : null;
+        String antiAffinity = scheduling.getPodAntiAffinity();
+        if ("preferred".equals(antiAffinity) || "required".equals(antiAffinity)) {
+            if (affinity == null) {
+                affinity = new Affinity();
+            }
+            PodAntiAffinity podAntiAffinity = affinity.getPodAntiAffinity() != null
+                ? new PodAntiAffinityBuilder(affinity.getPodAntiAffinity()).build() : new PodAntiAffinity();
+            PodAffinityTerm term = new PodAffinityTermBuilder()
+                .withLabelSelector(appSelector)
+                .withTopologyKey(scheduling.getAntiAffinityTopologyKey() != null
+                    ? scheduling.getAntiAffinityTopologyKey() : DEFAULT_ANTI_AFFINITY_TOPOLOGY_KEY)
+                .build();
+            if ("required".equals(antiAffinity)) {
+                List<PodAffinityTerm> required = podAntiAffinity.getRequiredDuringSchedulingIgnoredDuringExecution() != null
+                    ? new ArrayList<>(podAntiAffinity.getRequiredDuringSchedulingIgnoredDuringExecution()) : new ArrayList<>();
+                required.add(term);
+                podAntiAffinity.setRequiredDuringSchedulingIgnoredDuringExecution(required);
+            } else {
+                List<WeightedPodAffinityTerm> preferred = podAntiAffinity.getPreferredDuringSchedulingIgnoredDuringExecution() != null
+                    ? new ArrayList<>(podAntiAffinity.getPreferredDuringSchedulingIgnoredDuringExecution()) : new ArrayList<>();
+                preferred.add(new WeightedPodAffinityTerm(term, PREFERRED_ANTI_AFFINITY_WEIGHT));
+                podAntiAffinity.setPreferredDuringSchedulingIgnoredDuringExecution(preferred);
+            }
+            affinity.setPodAntiAffinity(podAntiAffinity);
+        }
+        if (affinity != null) {
+            podSpecBuilder.withAffinity(affinity);
+        }
+    }
+
+    /**
+     * Applies the node selection of {@code spec.scheduling} to a pod spec: the node selector and the node affinity.
+     * The pod (anti-)affinity and the topology spread constraints are left out, as they place the pods relative to
+     * the replicas of the component.
+     *
+     * @param resource The custom resource.
+     * @param podSpecBuilder The pod spec being built.
+     */
+    public static void applyNodeSelection(PaymentHubDeployment resource, PodSpecBuilder podSpecBuilder) {
+        PaymentHubDeploymentSpec.Scheduling scheduling = resource.getSpec().getScheduling();
+        if (scheduling == null) {
+            return;
+        }
+        applyNodeSelector(scheduling, podSpecBuilder);
+        if (scheduling.getAffinity() != null && scheduling.getAffinity().getNodeAffinity() != null) {
+            podSpecBuilder.withNewAffinity()
+                .withNodeAffinity(new NodeAffinityBuilder(scheduling.getAffinity().getNodeAffinity()).build())
+            .endAffinity();
+        }
+    }
+
+    private static void applyNodeSelector(PaymentHubDeploymentSpec.Scheduling scheduling, PodSpecBuilder podSpecBuilder) {
+        if (scheduling.getNodeSelector() != null && !scheduling.getNodeSelector().isEmpty()) {
+            podSpecBuilder.withNodeSelector(scheduling.getNodeSelector());
+        }
+    }
+
+    /**
+     * Returns the name of the PodDisruptionBudget of the given custom resource.
+     *
+     * @param resource The custom resource.
+     * @return The PodDisruptionBudget name.
+     */
+    public static String getPodDisruptionBudgetName(PaymentHubDeployment resource) {
+        return resource.getMetadata().getName() + "-pdb";
+    }
+
+    /**
+     * Tells whether a PodDisruptionBudget is requested for the custom resource.
+     *
+     * @param resource The custom resource.
+     * @return true if {@code spec.disruptionBudget.enabled} is set.
+     */
+    public static boolean isDisruptionBudgetEnabled(PaymentHubDeployment resource) {
+        return resource.getSpec().getDisruptionBudget() != null && Boolean.TRUE.equals(resource.getSpec().getDisruptionBudget().getEnabled());
+    }
+
+    /**
+     * Reconciles the PodDisruptionBudget for the given custom resource.
+     *
+     * @param resource The custom resource specifying the disruption budget.
+     */
+    public void reconcilePodDisruptionBudget(PaymentHubDeployment resource) {
+        String pdbName = getPodDisruptionBudgetName(resource);
+        PodDisruptionBudget desired = createPodDisruptionBudget(resource, pdbName);
+
+        Resource<PodDisruptionBudget> pdbResource = kubernetesClient.policy().v1().podDisruptionBudget()
+                .inNamespace(resource.getMetadata().getNamespace())
+                .withName(pdbName);
+
+        PodDisruptionBudget existing = pdbResource.get();
+        if (existing == null) {
+            pdbResource.create(desired);
+            log.info("Created new PodDisruptionBudget: {}", pdbName);
+        } else if (!Objects.equals(existing.getSpec(), desired.getSpec())) {
+            pdbResource.patch(desired);
+            log.info("Updated existing PodDisruptionBudget: {}", pdbName);
+        } else {
+            log.debug("PodDisruptionBudget is up-to-date: {}", pdbName);
+        }
+    }
+
+    /**
+     * Deletes the PodDisruptionBudget of the given custom resource, if it exists.
+     *
+     * @param resource The custom resource.
+     */
+    public void deletePodDisruptionBudget(PaymentHubDeployment resource) {
+        String pdbName = getPodDisruptionBudgetName(resource);
+        Resource<PodDisruptionBudget> pdbResource = kubernetesClient.policy().v1().podDisruptionBudget()
+                .inNamespace(resource.getMetadata().getNamespace())
+                .withName(pdbName);
+        if (pdbResource.get() != null) {
+            pdbResource.delete();
+            log.info("Deleted PodDisruptionBudget: {}", pdbName);
+        }
+    }
+
+    /**
+     * Creates the PodDisruptionBudget object. Without {@code minAvailable} or {@code maxUnavailable}, one pod may
+     * be unavailable at a time.
+     */
+    private PodDisruptionBudget createPodDisruptionBudget(PaymentHubDeployment resource, String pdbName) {
+        PaymentHubDeploymentSpec.DisruptionBudget budget = resource.getSpec().getDisruptionBudget();
+        IntOrString minAvailable = DeploymentUtils.toIntOrString(budget.getMinAvailable());
+        IntOrString maxUnavailable = DeploymentUtils.toIntOrString(budget.getMaxUnavailable());
+        if (minAvailable == null && maxUnavailable == null) {
+            maxUnavailable = new IntOrString(1);
+        }
+
+        Map<String, String> labels = new HashMap<>();
+        labels.put("app", resource.getMetadata().getName());
+        labels.put("app.kubernetes.io/managed-by", "ph-ee-operator");
+
+        return new PodDisruptionBudgetBuilder()
+                .withNewMetadata()
+                    .withName(pdbName)
+                    .withNamespace(resource.getMetadata().getNamespace())
+                    .withLabels(labels)
+                    .withOwnerReferences(OwnerReferenceUtils.createOwnerReferences(resource))
+                .endMetadata()
+                .withNewSpec()
+                    .withMinAvailable(minAvailable)
+                    .withMaxUnavailable(maxUnavailable)
+                    .withNewSelector()
+                        .withMatchLabels(Collections.singletonMap("app", resource.getMetadata().getName()))
+                    .endSelector()
+                .endSpec()
+                .build();
+    }
+}
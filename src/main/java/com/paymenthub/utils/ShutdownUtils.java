@@ -0,0 +1,187 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.*;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.VersionInfo;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Utility class draining the pods of a PaymentHubDeployment before they stop, as configured by {@code spec.shutdown}.
+ *
+ * When a pod is deleted, the kubelet sends SIGTERM while the endpoint removal is still propagating to kube-proxy
+ * and the ingress controllers, so requests keep arriving for a few seconds. A preStop hook delays SIGTERM until
+ * the pod is out of rotation, and the termination grace period leaves the application time to finish the requests
+ * in flight after that.
+ */
+public class ShutdownUtils {
+
+    private static final int DEFAULT_PRE_STOP_DELAY_SECONDS = 10;
+    // Time the application gets to finish requests in flight once SIGTERM arrives
+    private static final int DEFAULT_DRAIN_SECONDS = 30;
+    // Kept free at the end of the grace period so that the JVM exits before SIGKILL
+    private static final int SHUTDOWN_MARGIN_SECONDS = 5;
+    // First Kubernetes minor version with the sleep action of lifecycle hooks enabled by default
+    private static final int NATIVE_SLEEP_MINOR_VERSION = 30;
+
+    private static volatile boolean nativeSleepSupported;
+
+    private static final Logger log = LoggerFactory.getLogger(ShutdownUtils.class);
+
+    /**
+     * Checks once whether the cluster runs Kubernetes 1.30 or later, where the preStop hook can sleep without a
+     * {@code sleep} binary in the image. The check is kept for the life of the operator; clusters are only ever
+     * upgraded, so a stale answer falls back to the exec sleep at worst.
+     *
+     * @param kubernetesClient The Kubernetes client.
+     */
+    public static void detectNativeSleep(KubernetesClient kubernetesClient) {
+        try {
+            VersionInfo version = kubernetesClient.getKubernetesVersion();
+            int major = parseVersion(version.getMajor());
+            int minor = parseVersion(version.getMinor());
+            nativeSleepSupported = major > 1 || (major == 1 && minor >= NATIVE_SLEEP_MINOR_VERSION);
+            log.info("Kubernetes {}.{}: preStop hooks {} the native sleep action by default.", version.getMajor(), version.getMinor(),
+                    nativeSleepSupported ? "use" : "cannot use");
+        } catch (Exception e) {
+            log.warn("Could not read the Kubernetes version, preStop hooks run sleep in the image: {}", e.getMessage());
+            nativeSleepSupported = false;
+        }
+    }
+
+    private static int parseVersion(String part) {
+        // Managed clusters report minor versions such as "30+"
+        String digits = part != null ? part.replaceAll("[^0-9].*$", "") : "";
+        return digits.isEmpty() ? 0 : Integer.parseInt(digits);
+    }
+
+    /**
+     * Tells whether {@code spec.shutdown} is enabled.
+     *
+     * @param resource The custom resource.
+     * @return true if {@code spec.shutdown.enabled} is set.
+     */
+    public static boolean isShutdownEnabled(PaymentHubDeployment resource) {
+        return resource.getSpec().getShutdown() != null && Boolean.TRUE.equals(resource.getSpec().getShutdown().getEnabled());
+    }
+
+    /**
+     * Returns the preStop delay, 10 seconds unless configured.
+     *
+     * @param resource The custom resource.
+     * @return The delay in seconds.
+     */
+    public static int getPreStopDelaySeconds(PaymentHubDeployment resource) {
+        Integer delay = resource.getSpec().getShutdown().getPreStopDelaySeconds();
+        return delay != null ? delay : DEFAULT_PRE_STOP_DELAY_SECONDS;
+    }
+
+    /**
+     * Returns the termination grace period. It has to cover the preStop delay, since the kubelet counts the hook
+     * against it, so a configured value that does not is raised.
+     *
+     * @param resource The custom resource.
+     * @return The grace period in seconds.
+     */
+    public static int getTerminationGracePeriodSeconds(PaymentHubDeployment resource) {
+        int preStopDelay = getPreStopDelaySeconds(resource);
+        Integer configured = resource.getSpec().getShutdown().getTerminationGracePeriodSeconds();
+        if (configured == null) {
+            return preStopDelay + DEFAULT_DRAIN_SECONDS;
+        }
+        int minimum = preStopDelay + SHUTDOWN_MARGIN_SECONDS;
+        if (configured < minimum) {
+            log.warn("terminationGracePeriodSeconds {} of {} does not cover the preStop delay of {}s, using {}.",
+                    configured, resource.getMetadata().getName(), preStopDelay, minimum);
+            return minimum;
+        }
+        return configured;
+    }
+
+    /**
+     * Creates the lifecycle of the main container: a preStop hook running {@code spec.shutdown.preStopCommand},
+     * or otherwise sleeping for the preStop delay. The sleep uses the native Kubernetes sleep action when
+     * {@code nativeSleep} is set, or is left unset on a cluster that supports it (Kubernetes 1.30 and later);
+     * otherwise it runs {@code sleep} in the image, which distroless images do not ship.
+     *
+     * @param resource The custom resource.
+     * @return The lifecycle, or null if {@code spec.shutdown} is not enabled.
+     */
+    public static Lifecycle createLifecycle(PaymentHubDeployment resource) {
+        if (!isShutdownEnabled(resource)) {
+            return null;
+        }
+        PaymentHubDeploymentSpec.Shutdown shutdown = resource.getSpec().getShutdown();
+        int delay = getPreStopDelaySeconds(resource);
+        if (shutdown.getPreStopCommand() == null && delay == 0) {
+            return null;
+        }
+
+        LifecycleHandlerBuilder preStop = new LifecycleHandlerBuilder();
+        if (shutdown.getPreStopCommand() != null && !shutdown.getPreStopCommand().isEmpty()) {
+            preStop.withNewExec().withCommand(shutdown.getPreStopCommand()).endExec();
+        } else if (shutdown.getNativeSleep() != null ? shutdown.getNativeSleep() : nativeSleepSupported) {
+            preStop.withNewSleep().withSeconds((long) delay).endSleep();
+        } else {
+            preStop.withNewExec().withCommand("sleep", String.valueOf(delay)).endExec();
+        }
+        return new LifecycleBuilder().withPreStop(preStop.build()).build();
+    }
+
+    /**
+     * Adds the Spring Boot graceful shutdown settings to the environment of the main container, if
+     * {@code spec.shutdown.gracefulApplicationShutdown} is set. The application then stops accepting requests on
+     * SIGTERM and waits for the ones in flight, for whatever is left of the grace period after the preStop delay.
+     * Values set in {@code spec.environment} are kept.
+     *
+     * @param resource The custom resource.
+     * @param env The environment variables of the main container, updated in place.
+     */
+    public static void addGracefulShutdownEnvironment(PaymentHubDeployment resource, List<EnvVar> env) {
+        if (!isShutdownEnabled(resource) || !Boolean.TRUE.equals(resource.getSpec().getShutdown().getGracefulApplicationShutdown())) {
+            return;
+        }
+        int timeout = Math.max(1, getTerminationGracePeriodSeconds(resource) - getPreStopDelaySeconds(resource) - SHUTDOWN_MARGIN_SECONDS);
+        addIfAbsent(env, "SERVER_SHUTDOWN", "graceful");
+        addIfAbsent(env, "SPRING_LIFECYCLE_TIMEOUT_PER_SHUTDOWN_PHASE", timeout + "s");
+    }
+
+    /**
+     * Applies the termination grace period and the readiness gates of {@code spec.shutdown} to a pod spec.
+     *
+     * The readiness gates are condition types set on the pods by another controller, e.g. a load balancer
+     * controller reporting target health. A new pod then only counts as ready, and the rollout only removes the
+     * next old pod, once the load balancer actually sends traffic to it.
+     *
+     * @param resource The custom resource.
+     * @param podSpecBuilder The pod spec being built.
+     */
+    public static void applyShutdown(PaymentHubDeployment resource, PodSpecBuilder podSpecBuilder) {
+        if (!isShutdownEnabled(resource)) {
+            return;
+        }
+        podSpecBuilder.withTerminationGracePeriodSeconds((long) getTerminationGracePeriodSeconds(resource));
+
+        List<String> readinessGates = resource.getSpec().getShutdown().getReadinessGates();
+        if (readinessGates != null && !readinessGates.isEmpty()) {
+            List<PodReadinessGate> gates = new ArrayList<>();
+            for (String conditionType : readinessGates) {
+                gates.add(new PodReadinessGate(conditionType));
+            }
+            podSpecBuilder.withReadinessGates(gates);
+        }
+    }
+
+    private static void addIfAbsent(List<EnvVar> env, String name, String value) {
+        if (env.stream().noneMatch(var -> name.equals(var.getName()))) {
+            env.add(new EnvVarBuilder().withName(name).withValue(value).build());
+        }
+    }
+}
@@ -7,6 +7,8 @@ import io.javaoperatorsdk.operator.api.reconciler.UpdateControl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+
 /**
  * Utility class for updating the status of the PaymentHubDeployment custom resource.
  */
@@ -26,25 +28,19 @@ public class StatusUpdateUtil {
      * @return An UpdateControl object indicating whether the status was successfully updated or not.
      */
     public static UpdateControl<PaymentHubDeployment> updateStatus(KubernetesClient kubernetesClient, PaymentHubDeployment resource, Integer replicas, String image, boolean isReady, String errorMessage) {
-        PaymentHubDeploymentStatus status = new PaymentHubDeploymentStatus();
+        PaymentHubDeploymentStatus status = currentStatus(resource);
         status.setAvailableReplicas(replicas);
         status.setLastAppliedImage(image);
         status.setReady(isReady);
         status.setErrorMessage(errorMessage);
+        status.setPhase(isReady ? "Ready" : "Failed");
+        status.setMessage(null);
 
         resource.setStatus(status);
         log.info("Updating Status - Available Replicas: {}, Last Applied Image: {}, Ready: {}, Error Message: {}",
                 status.getAvailableReplicas(), status.getLastAppliedImage(), status.isReady(), status.getErrorMessage());
 
-        if (kubernetesClient.resources(PaymentHubDeployment.class)
-                .inNamespace(resource.getMetadata().getNamespace())
-                .withName(resource.getMetadata().getName())
-                .get() != null) {
-            return UpdateControl.patchStatus(resource);
-        } else {
-            log.error("Resource not found for status update: {}", resource.getMetadata().getName());
-            return UpdateControl.noUpdate();
-        }
+        return patchStatus(kubernetesClient, resource);
     }
 
     /**
@@ -74,10 +70,106 @@ public class StatusUpdateUtil {
         status.setReady(false);
         status.setErrorMessage("Resource is disabled and not created.");
 
+        status.setPhase("Disabled");
+
         resource.setStatus(status);
         log.info("Resource {} is disabled. Setting status - Available Replicas: 0, Last Applied Image: {}, Ready: false, Error Message: Resource is disabled and not created.",
                 resource.getMetadata().getName());
 
+        return patchStatus(kubernetesClient, resource);
+    }
+
+    /**
+     * Updates the status of the given PaymentHubDeployment resource to indicate that the resource is disabled
+     * and kept as a warm standby, scaled to zero replicas.
+     * 
+     * @param kubernetesClient The Kubernetes client used to interact with the Kubernetes API.
+     * @param resource The PaymentHubDeployment custom resource to update.
+     * @return An UpdateControl object indicating whether the status was successfully updated or not.
+     */
+    public static UpdateControl<PaymentHubDeployment> updateStandbyStatus(KubernetesClient kubernetesClient, PaymentHubDeployment resource) {
+        PaymentHubDeploymentStatus status = currentStatus(resource);
+        status.setAvailableReplicas(0);
+        // lastAppliedImage is kept: it names the last image that rolled out, which a standby does not change
+        status.setReady(false);
+        status.setErrorMessage("Resource is disabled and scaled to zero, associated resources are kept for a warm restart.");
+        status.setPhase("Standby");
+        status.setMessage(null);
+
+        resource.setStatus(status);
+        log.info("Resource {} is disabled and kept on standby with zero replicas.", resource.getMetadata().getName());
+
+        return patchStatus(kubernetesClient, resource);
+    }
+
+    /**
+     * Updates the status of the given PaymentHubDeployment resource while the reconciliation is waiting for
+     * something to complete (for example an image pre-pull), and schedules the next check. Readiness, replicas
+     * and the last applied image are left as they are, since the running Deployment is not touched meanwhile.
+     *
+     * @param kubernetesClient The Kubernetes client used to interact with the Kubernetes API.
+     * @param resource The PaymentHubDeployment custom resource to update.
+     * @param phase The phase the resource is in, e.g. "PrePulling".
+     * @param message A human readable description of the progress.
+     * @param recheckAfter The delay after which the resource is reconciled again.
+     * @return An UpdateControl object patching the status and rescheduling the reconciliation.
+     */
+    public static UpdateControl<PaymentHubDeployment> updatePendingStatus(KubernetesClient kubernetesClient, PaymentHubDeployment resource, String phase, String message, Duration recheckAfter) {
+        PaymentHubDeploymentStatus status = currentStatus(resource);
+        status.setPhase(phase);
+        status.setMessage(message);
+        status.setErrorMessage("");
+
+        resource.setStatus(status);
+        log.info("Resource {} is {}: {}", resource.getMetadata().getName(), phase, message);
+
+        return patchStatus(kubernetesClient, resource).rescheduleAfter(recheckAfter);
+    }
+
+    /**
+     * Updates the status of the given PaymentHubDeployment resource after its rollout stalled, recording the
+     * failed image so that it is not rolled out again while {@code spec.image} still names it.
+     *
+     * @param kubernetesClient The Kubernetes client used to interact with the Kubernetes API.
+     * @param resource The PaymentHubDeployment custom resource to update.
+     * @param failedImage The image whose rollout stalled.
+     * @param rolledBack Whether the Deployment was rolled back to the last known-good image.
+     * @param errorMessage A description of the failure.
+     * @param recheckAfter The delay after which the resource is reconciled again.
+     * @return An UpdateControl object patching the status and rescheduling the reconciliation.
+     */
+    public static UpdateControl<PaymentHubDeployment> updateRolloutFailedStatus(KubernetesClient kubernetesClient, PaymentHubDeployment resource, String failedImage, boolean rolledBack, String errorMessage, Duration recheckAfter) {
+        PaymentHubDeploymentStatus status = currentStatus(resource);
+        status.setFailedImage(failedImage);
+        status.setReady(false);
+        status.setErrorMessage(errorMessage);
+        status.setPhase(rolledBack ? "RolledBack" : "Failed");
+        status.setMessage(null);
+
+        resource.setStatus(status);
+        log.warn("Rollout of image {} failed for {}: {}", failedImage, resource.getMetadata().getName(), errorMessage);
+
+        return patchStatus(kubernetesClient, resource).rescheduleAfter(recheckAfter);
+    }
+
+    /**
+     * Returns the status currently held by the resource, so that fields not touched by an update are kept.
+     *
+     * @param resource The PaymentHubDeployment custom resource.
+     * @return The existing status, or a new empty status if the resource has none yet.
+     */
+    private static PaymentHubDeploymentStatus currentStatus(PaymentHubDeployment resource) {
+        return resource.getStatus() != null ? resource.getStatus() : new PaymentHubDeploymentStatus();
+    }
+
+    /**
+     * Patches the status of the resource if it still exists.
+     *
+     * @param kubernetesClient The Kubernetes client used to interact with the Kubernetes API.
+     * @param resource The PaymentHubDeployment custom resource carrying the new status.
+     * @return An UpdateControl object indicating whether the status was successfully updated or not.
+     */
+    private static UpdateControl<PaymentHubDeployment> patchStatus(KubernetesClient kubernetesClient, PaymentHubDeployment resource) {
         if (kubernetesClient.resources(PaymentHubDeployment.class)
                 .inNamespace(resource.getMetadata().getNamespace())
                 .withName(resource.getMetadata().getName())
@@ -88,4 +180,4 @@ public class StatusUpdateUtil {
             return UpdateControl.noUpdate();
         }
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,367 @@
+package com.paymenthub.utils;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceBuilder;
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.ContainerMetrics;
+import io.fabric8.kubernetes.api.model.metrics.v1beta1.PodMetrics;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Resource;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+import com.paymenthub.customresource.PaymentHubDeploymentStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Utility class computing CPU and memory recommendations for a PaymentHubDeployment.
+ *
+ * With {@code spec.verticalAutoscaling.enabled} the operator owns a {@code VerticalPodAutoscaler} named
+ * {@code <name>-vpa} for the serving Deployment, in update mode {@code Off} (recommendations only) or
+ * {@code Auto}, and copies its recommendation for the main container into the status. Where the
+ * VerticalPodAutoscaler CRD is not installed, the operator recommends on its own: it samples the usage of the
+ * pods through a {@link PodMetricsSource}, keeps a peak that halves every {@code PEAK_HALF_LIFE}, and recommends
+ * that peak plus a safety margin. In {@code Auto} mode the operator's recommendation replaces the requests of
+ * {@code spec.resources}, see {@link DeploymentUtils#createResourceRequirements}.
+ */
+public class VerticalAutoscalingUtils {
+
+    public static final String VPA_API_VERSION = "autoscaling.k8s.io/v1";
+    public static final String VPA_KIND = "VerticalPodAutoscaler";
+    public static final String SOURCE_VPA = "VerticalPodAutoscaler";
+    public static final String SOURCE_OPERATOR = "Operator";
+
+    // Delay between two samples or two reads of the VerticalPodAutoscaler recommendation
+    public static final Duration RECOMMENDATION_INTERVAL = Duration.ofMinutes(5);
+
+    private static final Duration PEAK_HALF_LIFE = Duration.ofHours(24);
+    private static final double SAFETY_MARGIN = 1.15;
+    // Relative change below which a published recommendation is kept, so that Auto mode does not restart pods for noise
+    private static final double CHANGE_TOLERANCE = 0.15;
+    private static final BigDecimal MIN_CPU_CORES = new BigDecimal("0.01");
+    private static final BigDecimal MIN_MEMORY_BYTES = BigDecimal.valueOf(32L * 1024 * 1024);
+    private static final BigDecimal MEBIBYTE = BigDecimal.valueOf(1024L * 1024);
+
+    // How long the result of the API discovery for the VerticalPodAutoscaler CRD is reused
+    private static final Duration DISCOVERY_TTL = Duration.ofMinutes(10);
+
+    // Decaying usage peaks per custom resource, keyed by namespace/name
+    private static final Map<String, UsagePeak> peaks = new ConcurrentHashMap<>();
+
+    private static volatile boolean vpaInstalled;
+    private static volatile long vpaCheckedAt;
+
+    private final KubernetesClient kubernetesClient;
+    private final PodMetricsSource podMetricsSource;
+    private static final Logger log = LoggerFactory.getLogger(VerticalAutoscalingUtils.class);
+
+    public VerticalAutoscalingUtils(KubernetesClient kubernetesClient) {
+        this(kubernetesClient, PodMetricsSource.metricsApi(kubernetesClient));
+    }
+
+    public VerticalAutoscalingUtils(KubernetesClient kubernetesClient, PodMetricsSource podMetricsSource) {
+        this.kubernetesClient = kubernetesClient;
+        this.podMetricsSource = podMetricsSource;
+    }
+
+    /**
+     * Tells whether vertical autoscaling is enabled for the custom resource.
+     *
+     * @param resource The custom resource.
+     * @return true if {@code spec.verticalAutoscaling.enabled} is set.
+     */
+    public static boolean isVerticalAutoscalingEnabled(PaymentHubDeployment resource) {
+        PaymentHubDeploymentSpec.VerticalAutoscaling vertical = resource.getSpec().getVerticalAutoscaling();
+        return vertical != null && Boolean.TRUE.equals(vertical.getEnabled());
+    }
+
+    /**
+     * Tells whether the operator's own recommendation is applied to the requests of the Deployment. This is the
+     * case in {@code Auto} mode when no VerticalPodAutoscaler is available; a VerticalPodAutoscaler applies its
+     * recommendation to the pods itself.
+     *
+     * @param resource The custom resource.
+     * @return true if the status recommendation replaces the requests of {@code spec.resources}.
+     */
+    public static boolean isRecommendationApplied(PaymentHubDeployment resource) {
+        PaymentHubDeploymentStatus status = resource.getStatus();
+        return isVerticalAutoscalingEnabled(resource) && isAutoMode(resource)
+                && status != null && SOURCE_OPERATOR.equals(status.getRecommendationSource())
+                && status.getRecommendedCpu() != null && status.getRecommendedMemory() != null;
+    }
+
+    /**
+     * Returns the name of the VerticalPodAutoscaler of the given custom resource.
+     *
+     * @param resource The custom resource.
+     * @return The VerticalPodAutoscaler name.
+     */
+    public static String getVerticalPodAutoscalerName(PaymentHubDeployment resource) {
+        return resource.getMetadata().getName() + "-vpa";
+    }
+
+    /**
+     * Reconciles the VerticalPodAutoscaler, or the operator's own recommender where it is not installed, and
+     * records the current recommendation in the status of the resource. The status is not patched here.
+     *
+     * @param resource The custom resource.
+     */
+    public void reconcileVerticalAutoscaling(PaymentHubDeployment resource) {
+        if (resource.getStatus() == null) {
+            resource.setStatus(new PaymentHubDeploymentStatus());
+        }
+        if (isVerticalPodAutoscalerInstalled()) {
+            reconcileVerticalPodAutoscaler(resource);
+        } else {
+            log.debug("{} is not installed, recommending resources for {} from the metrics API.", VPA_KIND, resource.getMetadata().getName());
+            recommendFromMetrics(resource);
+        }
+    }
+
+    /**
+     * Deletes the VerticalPodAutoscaler of the given custom resource, forgets the collected usage and clears the
+     * recommendation from the status.
+     *
+     * @param resource The custom resource.
+     */
+    public void deleteVerticalAutoscaling(PaymentHubDeployment resource) {
+        peaks.remove(key(resource));
+        if (isVerticalPodAutoscalerInstalled()) {
+            Resource<GenericKubernetesResource> vpaResource = verticalPodAutoscaler(resource);
+            if (vpaResource.get() != null) {
+                vpaResource.delete();
+                log.info("Deleted {}: {}", VPA_KIND, getVerticalPodAutoscalerName(resource));
+            }
+        }
+        PaymentHubDeploymentStatus status = resource.getStatus();
+        if (status != null) {
+            status.setRecommendedCpu(null);
+            status.setRecommendedMemory(null);
+            status.setRecommendationSource(null);
+        }
+    }
+
+    /**
+     * Tells whether the VerticalPodAutoscaler CRD is served by the cluster. The API discovery is repeated every
+     * {@code DISCOVERY_TTL}, so that a VerticalPodAutoscaler installed later is picked up.
+     */
+    private boolean isVerticalPodAutoscalerInstalled() {
+        long now = System.currentTimeMillis();
+        if (now - vpaCheckedAt > DISCOVERY_TTL.toMillis()) {
+            vpaInstalled = kubernetesClient.supports(VPA_API_VERSION, VPA_KIND);
+            vpaCheckedAt = now;
+        }
+        return vpaInstalled;
+    }
+
+    private void reconcileVerticalPodAutoscaler(PaymentHubDeployment resource) {
+        String vpaName = getVerticalPodAutoscalerName(resource);
+        GenericKubernetesResource desired = createVerticalPodAutoscaler(resource, vpaName);
+        Resource<GenericKubernetesResource> vpaResource = verticalPodAutoscaler(resource);
+
+        GenericKubernetesResource existing = vpaResource.get();
+        if (existing == null) {
+            vpaResource.create(desired);
+            log.info("Created new {}: {}", VPA_KIND, vpaName);
+            return;
+        }
+        if (!Objects.equals(existing.getAdditionalProperties().get("spec"), desired.getAdditionalProperties().get("spec"))) {
+            vpaResource.patch(desired);
+            log.info("Updated existing {}: {}", VPA_KIND, vpaName);
+        }
+
+        // status.recommendation.containerRecommendations[].target of the main container
+        Object recommendations = existing.get("status", "recommendation", "containerRecommendations");
+        if (!(recommendations instanceof List)) {
+            log.debug("{} {} has no recommendation yet.", VPA_KIND, vpaName);
+            return;
+        }
+        for (Object item : (List<?>) recommendations) {
+            Map<?, ?> recommendation = (Map<?, ?>) item;
+            if (resource.getMetadata().getName().equals(recommendation.get("containerName"))
+                    && recommendation.get("target") instanceof Map) {
+                Map<?, ?> target = (Map<?, ?>) recommendation.get("target");
+                PaymentHubDeploymentStatus status = resource.getStatus();
+                status.setRecommendedCpu(target.get("cpu") != null ? target.get("cpu").toString() : null);
+                status.setRecommendedMemory(target.get("memory") != null ? target.get("memory").toString() : null);
+                status.setRecommendationSource(SOURCE_VPA);
+            }
+        }
+    }
+
+    private GenericKubernetesResource createVerticalPodAutoscaler(PaymentHubDeployment resource, String vpaName) {
+        PaymentHubDeploymentSpec.VerticalAutoscaling vertical = resource.getSpec().getVerticalAutoscaling();
+
+        Map<String, Object> targetRef = new LinkedHashMap<>();
+        targetRef.put("apiVersion", "apps/v1");
+        targetRef.put("kind", "Deployment");
+        targetRef.put("name", BlueGreenUtils.getActiveDeploymentName(resource));
+
+        Map<String, Object> containerPolicy = new LinkedHashMap<>();
+        containerPolicy.put("containerName", resource.getMetadata().getName());
+        containerPolicy.put("controlledResources", Arrays.asList("cpu", "memory"));
+        putResources(containerPolicy, "minAllowed", vertical.getMinAllowed());
+        putResources(containerPolicy, "maxAllowed", vertical.getMaxAllowed());
+        // Leave init containers such as wait-db alone
+        Map<String, Object> otherContainers = new LinkedHashMap<>();
+        otherContainers.put("containerName", "*");
+        otherContainers.put("mode", "Off");
+
+        Map<String, Object> spec = new LinkedHashMap<>();
+        spec.put("targetRef", targetRef);
+        spec.put("updatePolicy", Collections.singletonMap("updateMode", isAutoMode(resource) ? "Auto" : "Off"));
+        spec.put("resourcePolicy", Collections.singletonMap("containerPolicies", Arrays.asList(containerPolicy, otherContainers)));
+
+        Map<String, String> labels = new HashMap<>();
+        labels.put("app", resource.getMetadata().getName());
+        labels.put("app.kubernetes.io/managed-by", "ph-ee-operator");
+
+        return new GenericKubernetesResourceBuilder()
+                .withApiVersion(VPA_API_VERSION)
+                .withKind(VPA_KIND)
+                .withNewMetadata()
+                    .withName(vpaName)
+                    .withNamespace(resource.getMetadata().getNamespace())
+                    .withLabels(labels)
+                    .withOwnerReferences(OwnerReferenceUtils.createOwnerReferences(resource))
+                .endMetadata()
+                .addToAdditionalProperties("spec", spec)
+                .build();
+    }
+
+    /**
+     * Samples the usage of the serving pods, folds it into the decaying peak of the resource and publishes a new
+     * recommendation when it differs enough from the current one.
+     */
+    private void recommendFromMetrics(PaymentHubDeployment resource) {
+        String name = resource.getMetadata().getName();
+        List<PodMetrics> samples;
+        try {
+            samples = podMetricsSource.getPodMetrics(resource.getMetadata().getNamespace(), Collections.singletonMap("app", name));
+        } catch (Exception e) {
+            // metrics-server may be missing too; the last recommendation stays in place
+            log.warn("Could not read pod metrics for {}: {}", name, e.getMessage());
+            return;
+        }
+
+        BigDecimal cpu = BigDecimal.ZERO;
+        BigDecimal memory = BigDecimal.ZERO;
+        for (PodMetrics pod : samples) {
+            for (ContainerMetrics container : pod.getContainers()) {
+                if (name.equals(container.getName()) && container.getUsage() != null) {
+                    cpu = cpu.max(amount(container.getUsage().get("cpu")));
+                    memory = memory.max(amount(container.getUsage().get("memory")));
+                }
+            }
+        }
+        if (cpu.signum() == 0 && memory.signum() == 0) {
+            log.debug("No usage samples for {} yet.", name);
+            return;
+        }
+
+        UsagePeak peak = peaks.compute(key(resource), (k, previous) -> previous == null ? new UsagePeak() : previous);
+        peak.add(cpu.doubleValue(), memory.doubleValue());
+
+        PaymentHubDeploymentSpec.VerticalAutoscaling vertical = resource.getSpec().getVerticalAutoscaling();
+        BigDecimal recommendedCpu = clamp(BigDecimal.valueOf(peak.cpu * SAFETY_MARGIN).max(MIN_CPU_CORES),
+                vertical.getMinAllowed() != null ? vertical.getMinAllowed().getCpu() : null,
+                vertical.getMaxAllowed() != null ? vertical.getMaxAllowed().getCpu() : null);
+        BigDecimal recommendedMemory = clamp(BigDecimal.valueOf(peak.memory * SAFETY_MARGIN).max(MIN_MEMORY_BYTES),
+                vertical.getMinAllowed() != null ? vertical.getMinAllowed().getMemory() : null,
+                vertical.getMaxAllowed() != null ? vertical.getMaxAllowed().getMemory() : null);
+
+        PaymentHubDeploymentStatus status = resource.getStatus();
+        boolean sourceChanged = !SOURCE_OPERATOR.equals(status.getRecommendationSource());
+        if (sourceChanged || changedBeyondTolerance(status.getRecommendedCpu(), recommendedCpu)) {
+            status.setRecommendedCpu(recommendedCpu.multiply(BigDecimal.valueOf(1000)).setScale(0, RoundingMode.CEILING).toPlainString() + "m");
+        }
+        if (sourceChanged || changedBeyondTolerance(status.getRecommendedMemory(), recommendedMemory)) {
+            status.setRecommendedMemory(recommendedMemory.divide(MEBIBYTE, 0, RoundingMode.CEILING).toPlainString() + "Mi");
+        }
+        status.setRecommendationSource(SOURCE_OPERATOR);
+        log.debug("Recommended resources for {}: cpu {}, memory {}.", name, status.getRecommendedCpu(), status.getRecommendedMemory());
+    }
+
+    private static boolean isAutoMode(PaymentHubDeployment resource) {
+        return "Auto".equals(resource.getSpec().getVerticalAutoscaling().getUpdateMode());
+    }
+
+    private static boolean changedBeyondTolerance(String current, BigDecimal recommended) {
+        if (current == null) {
+            return true;
+        }
+        BigDecimal published = amount(new Quantity(current));
+        if (published.signum() == 0) {
+            return true;
+        }
+        double change = recommended.subtract(published).abs().doubleValue() / published.doubleValue();
+        return change > CHANGE_TOLERANCE;
+    }
+
+    private static BigDecimal clamp(BigDecimal value, String min, String max) {
+        if (min != null && value.compareTo(amount(new Quantity(min))) < 0) {
+            return amount(new Quantity(min));
+        }
+        if (max != null && value.compareTo(amount(new Quantity(max))) > 0) {
+            return amount(new Quantity(max));
+        }
+        return value;
+    }
+
+    private static BigDecimal amount(Quantity quantity) {
+        return quantity != null ? quantity.getNumericalAmount() : BigDecimal.ZERO;
+    }
+
+    private static void putResources(Map<String, Object> policy, String key, PaymentHubDeploymentSpec.ResourceDetails details) {
+        if (details == null) {
+            return;
+        }
+        Map<String, Object> resources = new LinkedHashMap<>();
+        if (details.getCpu() != null) {
+            resources.put("cpu", details.getCpu());
+        }
+        if (details.getMemory() != null) {
+            resources.put("memory", details.getMemory());
+        }
+        if (!resources.isEmpty()) {
+            policy.put(key, resources);
+        }
+    }
+
+    private Resource<GenericKubernetesResource> verticalPodAutoscaler(PaymentHubDeployment resource) {
+        return kubernetesClient.genericKubernetesResources(VPA_API_VERSION, VPA_KIND)
+                .inNamespace(resource.getMetadata().getNamespace())
+                .withName(getVerticalPodAutoscalerName(resource));
+    }
+
+    private static String key(PaymentHubDeployment resource) {
+        return resource.getMetadata().getNamespace() + "/" + resource.getMetadata().getName();
+    }
+
+    /**
+     * Peak usage of the main container, in cores and bytes, halving every {@code PEAK_HALF_LIFE} so that the
+     * recommendation follows a lasting drop in load.
+     */
+    private static class UsagePeak {
+        private double cpu;
+        private double memory;
+        private long updatedAt = System.currentTimeMillis();
+
+        synchronized void add(double cpuSample, double memorySample) {
+            long now = System.currentTimeMillis();
+            double decay = Math.pow(0.5, (double) (now - updatedAt) / PEAK_HALF_LIFE.toMillis());
+            cpu = Math.max(cpuSample, cpu * decay);
+            memory = Math.max(memorySample, memory * decay);
+            updatedAt = now;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.paymenthub.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.fabric8.kubernetes.client.http.AsyncBody;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.Interceptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * HTTP interceptor installed on the operator's Kubernetes client to audit API writes.
+ *
+ * Every request passes through {@link #consumer}, which sees the verb, URI and payload before the request is
+ * sent and wraps the response body consumer to read back the object returned by the API server. Single-object
+ * reads feed the last known resourceVersion of each object; mutating calls are then reported to
+ * {@link WriteAuditUtil} together with the resourceVersion they produced. Watches and list calls pass through
+ * untouched.
+ */
+public class WriteAuditInterceptor implements Interceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAuditInterceptor.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final Set<String> MUTATING_VERBS = new HashSet<>(Arrays.asList("POST", "PUT", "PATCH", "DELETE"));
+
+    @Override
+    public AsyncBody.Consumer<List<ByteBuffer>> consumer(AsyncBody.Consumer<List<ByteBuffer>> consumer, HttpRequest request) {
+        URI uri = request.uri();
+        if (uri.getRawQuery() != null && uri.getRawQuery().contains("watch=true")) {
+            return consumer;
+        }
+
+        ApiPath path = ApiPath.parse(uri.getPath());
+        boolean mutating = MUTATING_VERBS.contains(request.method());
+        if (path == null || (!mutating && path.name == null)) {
+            return consumer;
+        }
+
+        String owner = WriteAuditUtil.getCurrentResource();
+        if (owner == null && "paymenthubdeployments".equals(path.plural) && path.name != null) {
+            // Status updates are issued by the framework after reconcile() returned; attribute them by URI.
+            owner = path.namespace + "/" + path.name;
+        }
+        String body = mutating ? request.bodyString() : null;
+        int payloadBytes = body == null ? 0 : body.getBytes(StandardCharsets.UTF_8).length;
+        return new AuditingConsumer(consumer, request.method(), path, owner, mutating, payloadBytes);
+    }
+
+    /**
+     * Body consumer that copies the response bytes before handing them on, and reports the call once the
+     * body has been fully received.
+     */
+    private static class AuditingConsumer implements AsyncBody.Consumer<List<ByteBuffer>> {
+        private final AsyncBody.Consumer<List<ByteBuffer>> delegate;
+        private final String verb;
+        private final ApiPath path;
+        private final String owner;
+        private final boolean mutating;
+        private final int payloadBytes;
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private boolean completionRegistered;
+
+        private AuditingConsumer(AsyncBody.Consumer<List<ByteBuffer>> delegate, String verb, ApiPath path,
+                                 String owner, boolean mutating, int payloadBytes) {
+            this.delegate = delegate;
+            this.verb = verb;
+            this.path = path;
+            this.owner = owner;
+            this.mutating = mutating;
+            this.payloadBytes = payloadBytes;
+        }
+
+        @Override
+        public void consume(List<ByteBuffer> value, AsyncBody asyncBody) throws Exception {
+            synchronized (received) {
+                if (!completionRegistered) {
+                    completionRegistered = true;
+                    asyncBody.done().whenComplete((ignored, error) -> complete(error == null));
+                }
+                for (ByteBuffer buffer : value) {
+                    ByteBuffer copy = buffer.duplicate();
+                    byte[] bytes = new byte[copy.remaining()];
+                    copy.get(bytes);
+                    received.write(bytes);
+                }
+            }
+            delegate.consume(value, asyncBody);
+        }
+
+        @Override
+        public <U> U unwrap(Class<U> target) {
+            U self = AsyncBody.Consumer.super.unwrap(target);
+            return self != null ? self : delegate.unwrap(target);
+        }
+
+        private void complete(boolean bodyReceived) {
+            try {
+                JsonNode response;
+                synchronized (received) {
+                    response = bodyReceived && received.size() > 0 ? mapper.readTree(received.toByteArray()) : null;
+                }
+                String kind = response != null && response.hasNonNull("kind") ? response.get("kind").asText() : path.plural;
+                boolean status = "Status".equals(kind);
+                JsonNode metadata = response != null ? response.path("metadata") : null;
+                String resourceVersion = metadata != null && metadata.hasNonNull("resourceVersion")
+                        ? metadata.get("resourceVersion").asText() : null;
+                String name = metadata != null && metadata.hasNonNull("name") ? metadata.get("name").asText() : path.name;
+
+                if (!mutating) {
+                    if (!status) {
+                        WriteAuditUtil.recordRead(kind, path.namespace, name, resourceVersion);
+                    }
+                    return;
+                }
+
+                boolean failed = response == null
+                        || (status && !"Success".equals(response.path("status").asText()));
+                if (status) {
+                    // Successful deletes may answer with a Status object instead of the deleted object.
+                    kind = response.path("details").path("kind").asText(path.plural);
+                    resourceVersion = null;
+                }
+                WriteAuditUtil.recordWrite(owner, verb, kind, path.subresource, path.namespace, name,
+                        payloadBytes, resourceVersion, failed);
+            } catch (Exception e) {
+                log.debug("Unable to audit {} {}: {}", verb, path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The parts of a Kubernetes REST path relevant to auditing.
+     */
+    static class ApiPath {
+        private final String namespace;
+        private final String plural;
+        private final String name;
+        private final String subresource;
+
+        private ApiPath(String namespace, String plural, String name, String subresource) {
+            this.namespace = namespace;
+            this.plural = plural;
+            this.name = name;
+            this.subresource = subresource;
+        }
+
+        /**
+         * Parses paths such as {@code /api/v1/namespaces/ns/secrets/name} or
+         * {@code /apis/group/version/namespaces/ns/plural/name/status}.
+         *
+         * @param rawPath The URI path.
+         * @return The parsed path, or null if the path does not address a resource.
+         */
+        static ApiPath parse(String rawPath) {
+            String[] segments = rawPath.replaceAll("^/+", "").split("/");
+            int index;
+            if (segments.length >= 2 && "api".equals(segments[0])) {
+                index = 2;
+            } else if (segments.length >= 3 && "apis".equals(segments[0])) {
+                index = 3;
+            } else {
+                return null;
+            }
+
+            String namespace = null;
+            if (segments.length > index + 2 && "namespaces".equals(segments[index])) {
+                namespace = segments[index + 1];
+                index += 2;
+            }
+            if (segments.length <= index) {
+                return null;
+            }
+            String plural = segments[index];
+            String name = segments.length > index + 1 ? segments[index + 1] : null;
+            String subresource = segments.length > index + 2 ? segments[index + 2] : null;
+            return new ApiPath(namespace, plural, name, subresource);
+        }
+
+        String getNamespace() {
+            return namespace;
+        }
+
+        String getPlural() {
+            return plural;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getSubresource() {
+            return subresource;
+        }
+
+        @Override
+        public String toString() {
+            return (namespace != null ? namespace + "/" : "") + plural + (name != null ? "/" + name : "");
+        }
+    }
+}
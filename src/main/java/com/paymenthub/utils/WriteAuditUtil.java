@@ -0,0 +1,224 @@
+package com.paymenthub.utils;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Utility class keeping the books for the write-amplification audit.
+ *
+ * {@link WriteAuditInterceptor} reports every single-object read and every mutating API call made through
+ * the operator's Kubernetes client. A write is counted as effective when it created, changed or deleted an
+ * object, and as wasted when the API server answered with the resourceVersion the object already had,
+ * i.e. the write was a no-op. Counts are kept per custom resource and per kind, exported as metrics and
+ * logged as a periodic summary. The resourceVersions seen are dropped after an hour without access once more
+ * than {@value #PRUNE_THRESHOLD} objects are tracked, so objects deleted by others do not accumulate.
+ */
+public class WriteAuditUtil {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAuditUtil.class);
+    private static final String UNATTRIBUTED = "<none>";
+    // Versions of objects not read or written for this long are dropped
+    private static final long VERSION_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int PRUNE_THRESHOLD = 4096;
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final ThreadLocal<String> currentResource = new ThreadLocal<>();
+    private static final ConcurrentMap<String, SeenVersion> lastSeenVersions = new ConcurrentHashMap<>();
+    private static volatile long lastPrunedAt;
+    private static final ConcurrentMap<String, ConcurrentMap<String, WriteCounts>> windowCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Attributes API calls made on the current thread to the given custom resource.
+     *
+     * @param resource The custom resource being reconciled.
+     */
+    public static void setCurrentResource(PaymentHubDeployment resource) {
+        currentResource.set(resource.getMetadata().getNamespace() + "/" + resource.getMetadata().getName());
+    }
+
+    /**
+     * Clears the custom resource attribution of the current thread.
+     */
+    public static void clearCurrentResource() {
+        currentResource.remove();
+    }
+
+    /**
+     * Returns the custom resource the current thread is working for.
+     *
+     * @return The "namespace/name" of the custom resource, or null outside of a reconciliation.
+     */
+    public static String getCurrentResource() {
+        return currentResource.get();
+    }
+
+    /**
+     * Records the resourceVersion returned by a read, so that a following write can be classified.
+     *
+     * @param kind The kind of the object.
+     * @param namespace The namespace of the object, or null for cluster-scoped objects.
+     * @param name The name of the object.
+     * @param resourceVersion The resourceVersion returned by the API server.
+     */
+    public static void recordRead(String kind, String namespace, String name, String resourceVersion) {
+        if (resourceVersion != null) {
+            rememberVersion(objectKey(kind, namespace, name), resourceVersion);
+        }
+    }
+
+    /**
+     * Stores the version seen of an object and returns the one seen before, pruning stale versions first, at
+     * most once a minute, when many objects are tracked.
+     */
+    private static String rememberVersion(String key, String resourceVersion) {
+        long now = System.currentTimeMillis();
+        if (lastSeenVersions.size() > PRUNE_THRESHOLD && now - lastPrunedAt > PRUNE_INTERVAL_MILLIS) {
+            lastPrunedAt = now;
+            lastSeenVersions.values().removeIf(seen -> now - seen.seenAt > VERSION_RETENTION_MILLIS);
+        }
+        SeenVersion previous = lastSeenVersions.put(key, new SeenVersion(resourceVersion, now));
+        return previous != null ? previous.version : null;
+    }
+
+    /**
+     * Records a mutating API call and classifies it as effective, wasted or failed.
+     *
+     * @param owner The "namespace/name" of the custom resource the call was made for, or null if unknown.
+     * @param verb The HTTP method of the call.
+     * @param kind The kind of the object written.
+     * @param subresource The subresource written (e.g. "status"), or null for the main resource.
+     * @param namespace The namespace of the object, or null for cluster-scoped objects.
+     * @param name The name of the object.
+     * @param payloadBytes The size of the request body in bytes.
+     * @param resourceVersion The resourceVersion returned by the API server, or null if none was returned.
+     * @param failed Whether the API server rejected the call.
+     */
+    public static void recordWrite(String owner, String verb, String kind, String subresource, String namespace,
+                                   String name, int payloadBytes, String resourceVersion, boolean failed) {
+        String outcome;
+        String key = objectKey(kind, namespace, name);
+        if (failed) {
+            outcome = "failed";
+        } else if ("DELETE".equals(verb)) {
+            lastSeenVersions.remove(key);
+            outcome = "deleted";
+        } else if ("POST".equals(verb)) {
+            recordRead(kind, namespace, name, resourceVersion);
+            outcome = "created";
+        } else {
+            String previous = resourceVersion == null ? null : rememberVersion(key, resourceVersion);
+            outcome = resourceVersion != null && resourceVersion.equals(previous) ? "unchanged" : "changed";
+        }
+
+        String resource = owner != null ? owner : UNATTRIBUTED;
+        String kindLabel = subresource != null ? kind + "/" + subresource : kind;
+        windowCounts.computeIfAbsent(resource, r -> new ConcurrentHashMap<>())
+                .computeIfAbsent(kindLabel, k -> new WriteCounts())
+                .add(outcome, payloadBytes);
+
+        MetricsUtil.incrementCounter("phee_operator_api_writes_total",
+                "Mutating Kubernetes API calls made by the operator, by outcome.",
+                MetricsUtil.labels("resource", resource, "kind", kindLabel, "verb", verb, "outcome", outcome), 1);
+        MetricsUtil.incrementCounter("phee_operator_api_write_bytes_total",
+                "Request payload bytes of mutating Kubernetes API calls, by outcome.",
+                MetricsUtil.labels("resource", resource, "kind", kindLabel, "verb", verb, "outcome", outcome), payloadBytes);
+
+        log.debug("Audited {} {} {}/{} for {}: {} ({} bytes, resourceVersion {}).",
+                verb, kindLabel, namespace, name, resource, outcome, payloadBytes, resourceVersion);
+    }
+
+    /**
+     * Starts logging a write summary at the given interval. Each summary covers the writes since the previous one.
+     *
+     * @param intervalSeconds The summary interval in seconds.
+     */
+    public static void startSummary(long intervalSeconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-audit-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> logSummary(intervalSeconds), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        log.info("Write audit enabled, logging a summary every {} seconds.", intervalSeconds);
+    }
+
+    /**
+     * Logs the writes recorded since the previous summary, per custom resource and per kind, and resets the window.
+     *
+     * @param intervalSeconds The length of the summary window, used for the log message only.
+     */
+    private static void logSummary(long intervalSeconds) {
+        for (String resource : new TreeMap<>(windowCounts).keySet()) {
+            Map<String, WriteCounts> kinds = windowCounts.remove(resource);
+            if (kinds == null || kinds.isEmpty()) {
+                continue;
+            }
+            long total = 0;
+            long wasted = 0;
+            StringBuilder perKind = new StringBuilder();
+            for (Map.Entry<String, WriteCounts> entry : new TreeMap<>(kinds).entrySet()) {
+                WriteCounts counts = entry.getValue();
+                total += counts.writes.get();
+                wasted += counts.wasted.get();
+                perKind.append(String.format("%n  %-28s writes=%d effective=%d wasted=%d failed=%d bytes=%d wastedBytes=%d",
+                        entry.getKey(), counts.writes.get(), counts.effective.get(), counts.wasted.get(),
+                        counts.failed.get(), counts.bytes.get(), counts.wastedBytes.get()));
+            }
+            log.info("Write audit for {} over the last {}s: {} writes, {} wasted ({}%).{}",
+                    resource, intervalSeconds, total, wasted, total == 0 ? 0 : wasted * 100 / total, perKind);
+        }
+    }
+
+    private static String objectKey(String kind, String namespace, String name) {
+        return kind + "|" + (namespace == null ? "" : namespace) + "|" + name;
+    }
+
+    /**
+     * Write counters for one custom resource and kind within the current summary window.
+     */
+    private static class WriteCounts {
+        private final AtomicLong writes = new AtomicLong();
+        private final AtomicLong effective = new AtomicLong();
+        private final AtomicLong wasted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong wastedBytes = new AtomicLong();
+
+        private void add(String outcome, int payloadBytes) {
+            writes.incrementAndGet();
+            bytes.addAndGet(payloadBytes);
+            if ("unchanged".equals(outcome)) {
+                wasted.incrementAndGet();
+                wastedBytes.addAndGet(payloadBytes);
+            } else if ("failed".equals(outcome)) {
+                failed.incrementAndGet();
+            } else {
+                effective.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A resourceVersion seen of an object and when it was seen.
+     */
+    private static class SeenVersion {
+        private final String version;
+        private final long seenAt;
+
+        private SeenVersion(String version, long seenAt) {
+            this.version = version;
+            this.seenAt = seenAt;
+        }
+    }
+}
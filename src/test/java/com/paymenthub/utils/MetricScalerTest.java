@@ -0,0 +1,90 @@
+package com.paymenthub.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scrapes a local HTTP stand-in for the pods of a resource through the {@link MetricScaler.EndpointResolver}.
+ */
+class MetricScalerTest {
+
+    private HttpServer server;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void startStandIn() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/pod-1", exchange -> respond(exchange, "queue_size{partition=\"1\"} 30\n"));
+        server.createContext("/pod-2", exchange -> respond(exchange, "queue_size{partition=\"1\"} 12\n"));
+        server.createContext("/hanging", exchange -> {
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, "queue_size{partition=\"1\"} 1000\n");
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStandIn() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void scrapeCombinesTheSamplesOfAllPods() {
+        MetricScaler scaler = new MetricScaler(null, resource -> Arrays.asList(url("/pod-1"), url("/pod-2")));
+
+        List<MetricExpression.Sample> samples = scaler.scrape(new PaymentHubDeployment());
+
+        assertEquals(2, samples.size());
+        assertEquals(42, MetricExpression.parse("sum(queue_size{partition=\"1\"})").evaluate(samples), 0.001);
+    }
+
+    @Test
+    void scrapeSkipsPodsThatDoNotAnswerInTime() {
+        MetricScaler scaler = new MetricScaler(null, resource -> Arrays.asList(url("/hanging"), url("/pod-1"), url("/pod-2")));
+
+        long start = System.nanoTime();
+        List<MetricExpression.Sample> samples = scaler.scrape(new PaymentHubDeployment());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(42, MetricExpression.parse("sum(queue_size)").evaluate(samples), 0.001);
+        // One scrape timeout for all pods, not one per pod
+        assertTrue(elapsedMillis < 8000, "scrape took " + elapsedMillis + " ms");
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
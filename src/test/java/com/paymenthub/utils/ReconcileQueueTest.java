@@ -0,0 +1,152 @@
+package com.paymenthub.utils;
+
+import com.paymenthub.customresource.PaymentHubDeployment;
+import com.paymenthub.customresource.PaymentHubDeploymentSpec;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lets resources wait behind a held slot, releases it and checks the order in which the queue admits them. Every
+ * admitted resource releases its slot at once, so with a concurrency of one the order is that of {@code next}.
+ */
+class ReconcileQueueTest {
+
+    private static final long NO_AGING = TimeUnit.HOURS.toMillis(1);
+
+    private final List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void criticalResourcesOfTrustedNamespacesPassTheFairOrder() throws Exception {
+        ReconcileQueue queue = new ReconcileQueue(1, 1, NO_AGING, Collections.emptyMap(), new HashSet<>(Arrays.asList("trusted")));
+        ReconcileQueue.Ticket holder = queue.enter(resource("other", "holder", 50));
+        List<Thread> threads = Arrays.asList(enqueue(queue, "other", "o", 50),
+                enqueue(queue, "trusted", "t1", 100), enqueue(queue, "trusted", "t2", 100));
+
+        holder.release();
+        joinAll(threads);
+
+        // t2 goes ahead although its namespace has had its share after t1
+        assertEquals(Arrays.asList("t1", "t2", "o"), admitted);
+    }
+
+    @Test
+    void criticalResourcesOfUntrustedNamespacesKeepTheFairOrder() throws Exception {
+        ReconcileQueue queue = new ReconcileQueue(1, 1, NO_AGING, Collections.emptyMap(), Collections.emptySet());
+        ReconcileQueue.Ticket holder = queue.enter(resource("other", "holder", 50));
+        List<Thread> threads = Arrays.asList(enqueue(queue, "other", "o", 50),
+                enqueue(queue, "tenant", "t1", 100), enqueue(queue, "tenant", "t2", 100));
+
+        holder.release();
+        joinAll(threads);
+
+        assertEquals(Arrays.asList("t1", "o", "t2"), admitted);
+    }
+
+    @Test
+    void agedResourcesGoBeforeCriticalOnes() throws Exception {
+        ReconcileQueue queue = new ReconcileQueue(1, 1, 20, Collections.emptyMap(), new HashSet<>(Arrays.asList("trusted")));
+        ReconcileQueue.Ticket holder = queue.enter(resource("other", "holder", 50));
+        List<Thread> threads = new ArrayList<>();
+        threads.add(enqueue(queue, "other", "low", 0));
+        // 15 aging steps lift the low priority well past the critical one
+        Thread.sleep(300);
+        threads.add(enqueue(queue, "trusted", "t1", 100));
+        threads.add(enqueue(queue, "trusted", "t2", 100));
+
+        holder.release();
+        joinAll(threads);
+
+        assertEquals(Arrays.asList("low", "t1", "t2"), admitted);
+    }
+
+    @Test
+    void namespaceCapLetsOtherNamespacesGoFirst() throws Exception {
+        ReconcileQueue queue = new ReconcileQueue(2, 1, NO_AGING, Collections.emptyMap(), Collections.emptySet());
+        ReconcileQueue.Ticket holder = queue.enter(resource("a", "holder", 50));
+        Thread a = enqueue(queue, "a", "a", 100);
+        Thread b = enqueue(queue, "b", "b", 0);
+
+        b.join(TimeUnit.SECONDS.toMillis(5));
+        assertEquals(Arrays.asList("b"), admitted);
+        assertTrue(a.isAlive(), "a was admitted beyond the namespace cap");
+
+        holder.release();
+        joinAll(Arrays.asList(a));
+
+        assertEquals(Arrays.asList("b", "a"), admitted);
+    }
+
+    @Test
+    void weightsSetTheShareOfEachNamespace() throws Exception {
+        Map<String, Double> weights = ReconcileQueue.parseWeights("heavy=3");
+        ReconcileQueue queue = new ReconcileQueue(1, 1, NO_AGING, weights, Collections.emptySet());
+        ReconcileQueue.Ticket holder = queue.enter(resource("other", "holder", 50));
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            threads.add(enqueue(queue, "heavy", "heavy", 50));
+        }
+        for (int i = 0; i < 6; i++) {
+            threads.add(enqueue(queue, "light", "light", 50));
+        }
+
+        holder.release();
+        joinAll(threads);
+
+        List<String> first = admitted.subList(0, 8);
+        assertEquals(6, Collections.frequency(first, "heavy"), "first admissions: " + first);
+        assertEquals(2, Collections.frequency(first, "light"), "first admissions: " + first);
+    }
+
+    /**
+     * Starts a thread that enters the queue, records its admission and releases its slot, and waits until it is
+     * either waiting for its turn or done.
+     */
+    private Thread enqueue(ReconcileQueue queue, String namespace, String name, int priority) throws InterruptedException {
+        Thread thread = new Thread(() -> {
+            try {
+                ReconcileQueue.Ticket ticket = queue.enter(resource(namespace, name, priority));
+                admitted.add(name);
+                ticket.release();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        while (thread.getState() != Thread.State.TIMED_WAITING && thread.getState() != Thread.State.TERMINATED) {
+            Thread.sleep(5);
+        }
+        return thread;
+    }
+
+    private static void joinAll(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+            assertTrue(!thread.isAlive(), "a resource was never admitted");
+        }
+    }
+
+    private static PaymentHubDeployment resource(String namespace, String name, int priority) {
+        PaymentHubDeployment resource = new PaymentHubDeployment();
+        ObjectMeta metadata = new ObjectMeta();
+        metadata.setNamespace(namespace);
+        metadata.setName(name);
+        resource.setMetadata(metadata);
+        PaymentHubDeploymentSpec spec = new PaymentHubDeploymentSpec();
+        spec.setReconcilePriority(priority);
+        resource.setSpec(spec);
+        return resource;
+    }
+}